@@ -0,0 +1,80 @@
+import java.util.random.RandomGenerator;
+
+// Class to pick one of n outcomes with fixed integer weights in constant time
+// Built with Vose's alias method: every outcome gets a column of equal height,
+// filled partly by itself and topped up by one other ("alias") outcome. A
+// pick is then a single draw no matter how many outcomes there are. Heights
+// are kept in whole weight units, so the odds are exactly weight / total.
+class AliasSampler {
+    private final int count;
+    private final long total;        // Sum of the weights, the height of every column
+    private final long[] threshold;  // Part of each column that belongs to the outcome itself
+    private final int[] alias;       // Outcome that fills the rest of the column
+
+    public AliasSampler(int[] weights) {
+        count = weights.length;
+        long sum = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights can't be negative");
+            }
+            sum += weight;
+        }
+        if (count == 0 || sum == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        total = sum;
+        threshold = new long[count];
+        alias = new int[count];
+
+        // Scale every weight by count so the columns average out to total
+        long[] height = new long[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < count; i++) {
+            height[i] = (long) weights[i] * count;
+            if (height[i] < total) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        // Top up each short column with part of a tall one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            threshold[less] = height[less];
+            alias[less] = more;
+            height[more] -= total - height[less];
+            if (height[more] < total) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            threshold[i] = total;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount]; // Only reachable through rounding, which whole units don't have
+            threshold[i] = total;
+            alias[i] = i;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Pick an outcome index with one random draw
+    public int sample(RandomGenerator random) {
+        long roll = random.nextLong(count * total);
+        int column = (int) (roll / total);
+        return roll % total < threshold[column] ? column : alias[column];
+    }
+}
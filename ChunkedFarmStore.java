@@ -0,0 +1,303 @@
+import java.util.Arrays;
+
+// Farm storage split into fixed chunks of heap arrays, made only where something is on the ground
+// A chunk is CHUNK_SIZE tiles in a row (four rows of a 1024-wide farm), the
+// same as one DayTickEngine range and 64 TileBitmap words. It's created by
+// the first write that puts something on one of its tiles (planting, a flag)
+// and dropped again once every tile in it is back to untouched soil, so the
+// tiles of a big, mostly empty farm take memory for the planted part only.
+// Reads of a missing chunk are empty tiles. Growth skips chunks without
+// live crops (see FarmGrid.growRange).
+class ChunkedFarmStore implements FarmStore {
+    static final int CHUNK_BITS = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 4096 tiles
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int size;
+    private final Chunk[] chunks;          // null where every tile is untouched soil
+    private final boolean[] written;       // Chunks changed since this store was copied or reset
+    private volatile TileSnapshot snapshot; // Background save still reading the tiles, if any
+
+    // One chunk's tiles, for the bulk kernels (see GrowthKernel)
+    static class Chunk {
+        final int[] state;               // Stage and flags, one word per tile
+        final short[] growthProgress;    // 0-100 (keeps counting once mature)
+        final byte[] growthDelay;        // Days of growth delay
+        final byte[] growthAcceleration; // Days of growth acceleration
+        int used;                        // Tiles that aren't untouched soil
+
+        Chunk(int length) {
+            state = new int[length];
+            growthProgress = new short[length];
+            growthDelay = new byte[length];
+            growthAcceleration = new byte[length];
+        }
+
+        Chunk(Chunk other) {
+            state = other.state.clone();
+            growthProgress = other.growthProgress.clone();
+            growthDelay = other.growthDelay.clone();
+            growthAcceleration = other.growthAcceleration.clone();
+            used = other.used;
+        }
+
+        void copyFrom(Chunk other) {
+            System.arraycopy(other.state, 0, state, 0, state.length);
+            System.arraycopy(other.growthProgress, 0, growthProgress, 0, state.length);
+            System.arraycopy(other.growthDelay, 0, growthDelay, 0, state.length);
+            System.arraycopy(other.growthAcceleration, 0, growthAcceleration, 0, state.length);
+            used = other.used;
+        }
+
+        boolean isBlank(int i) {
+            return state[i] == 0 && growthProgress[i] == 0 && growthDelay[i] == 0 && growthAcceleration[i] == 0;
+        }
+    }
+
+    public ChunkedFarmStore(int size) {
+        this.size = size;
+        int chunkCount = (size + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        chunks = new Chunk[chunkCount];
+        written = new boolean[chunkCount];
+    }
+
+    // Independent copy of every chunk there is, for cheap what-if simulations
+    public ChunkedFarmStore copy() {
+        ChunkedFarmStore copy = new ChunkedFarmStore(size);
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] != null) {
+                copy.chunks[c] = new Chunk(chunks[c]);
+            }
+        }
+        return copy;
+    }
+
+    public int chunkCount() {
+        return chunks.length;
+    }
+
+    // Number of tiles in a chunk (the last one can be short)
+    public int chunkLength(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_BITS));
+    }
+
+    // The chunk's tiles, or null if they're all untouched soil
+    Chunk chunk(int chunk) {
+        return chunks[chunk];
+    }
+
+    // Chunks that currently take memory
+    public int getAllocatedChunks() {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Whether a chunk has changed since this store was copied or last reset
+    boolean isWritten(int chunk) {
+        return written[chunk];
+    }
+
+    // Put a chunk back the way it is in the store this one was copied from,
+    // reusing its arrays where both have the chunk
+    void resetChunk(int chunk, ChunkedFarmStore source) {
+        beforeWrite(chunk << CHUNK_BITS);
+        Chunk from = source.chunks[chunk];
+        if (from == null) {
+            chunks[chunk] = null;
+        } else if (chunks[chunk] == null) {
+            chunks[chunk] = new Chunk(from);
+        } else {
+            chunks[chunk].copyFrom(from);
+        }
+        written[chunk] = false;
+    }
+
+    // Freeze the tiles for a background save; writes copy-on-write until it's released
+    public synchronized TileSnapshot freeze() {
+        if (snapshot != null) {
+            throw new IllegalStateException("A snapshot of these tiles is already open");
+        }
+        snapshot = new TileSnapshot(this);
+        return snapshot;
+    }
+
+    synchronized void release(TileSnapshot released) {
+        if (snapshot == released) {
+            snapshot = null;
+        }
+    }
+
+    // Let an open snapshot save [from, to) before it's written through the chunk arrays directly
+    void beforeWrite(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        TileSnapshot open = snapshot;
+        for (int chunk = from >>> CHUNK_BITS; chunk <= (to - 1) >>> CHUNK_BITS; chunk++) {
+            written[chunk] = true;
+            if (open != null) {
+                open.preserve(chunk);
+            }
+        }
+    }
+
+    private void beforeWrite(int index) {
+        int chunk = index >>> CHUNK_BITS;
+        written[chunk] = true;
+        TileSnapshot open = snapshot;
+        if (open != null) {
+            open.preserve(chunk);
+        }
+    }
+
+    long packedTile(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        if (chunk == null) {
+            return 0;
+        }
+        int i = index & CHUNK_MASK;
+        return FarmGrid.pack(chunk.state[i], chunk.growthProgress[i], chunk.growthDelay[i],
+            chunk.growthAcceleration[i]);
+    }
+
+    // Every tile of a chunk packed like FarmGrid.packedTile, into tiles
+    void packChunk(int chunk, long[] tiles) {
+        int length = chunkLength(chunk);
+        Chunk from = chunks[chunk];
+        for (int i = 0; i < length; i++) {
+            tiles[i] = from == null ? 0 : FarmGrid.pack(from.state[i], from.growthProgress[i],
+                from.growthDelay[i], from.growthAcceleration[i]);
+        }
+    }
+
+    // Write the same tile, packed like FarmGrid.pack, over [from, to) (e.g. a run from a save)
+    void fillTiles(int from, int to, long packed) {
+        for (int start = from; start < to; ) {
+            int c = start >>> CHUNK_BITS;
+            int end = Math.min(to, (c + 1) << CHUNK_BITS);
+            Chunk chunk = chunkToWrite(start, packed == 0 ? 0 : 1);
+            if (chunk != null) {
+                int first = start & CHUNK_MASK;
+                int last = end - (c << CHUNK_BITS);
+                int blank = 0;
+                for (int i = first; i < last; i++) {
+                    blank += chunk.isBlank(i) ? 1 : 0;
+                }
+                Arrays.fill(chunk.state, first, last, (int) (packed >>> 32));
+                Arrays.fill(chunk.growthProgress, first, last, (short) (packed >>> 16));
+                Arrays.fill(chunk.growthDelay, first, last, (byte) (packed >>> 8));
+                Arrays.fill(chunk.growthAcceleration, first, last, (byte) packed);
+                chunk.used += packed != 0 ? blank : blank - (last - first);
+                if (chunk.used == 0) {
+                    chunks[c] = null;
+                }
+            }
+            start = end;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getState(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        return chunk == null ? 0 : chunk.state[index & CHUNK_MASK];
+    }
+
+    @Override
+    public void setState(int index, int state) {
+        Chunk chunk = chunkToWrite(index, state);
+        if (chunk != null) {
+            int i = index & CHUNK_MASK;
+            boolean wasBlank = chunk.isBlank(i);
+            chunk.state[i] = state;
+            afterWrite(chunk, index, wasBlank);
+        }
+    }
+
+    @Override
+    public int getGrowthProgress(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        return chunk == null ? 0 : chunk.growthProgress[index & CHUNK_MASK];
+    }
+
+    @Override
+    public void setGrowthProgress(int index, int progress) {
+        Chunk chunk = chunkToWrite(index, (short) progress);
+        if (chunk != null) {
+            int i = index & CHUNK_MASK;
+            boolean wasBlank = chunk.isBlank(i);
+            chunk.growthProgress[i] = (short) progress;
+            afterWrite(chunk, index, wasBlank);
+        }
+    }
+
+    @Override
+    public int getGrowthDelay(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        return chunk == null ? 0 : chunk.growthDelay[index & CHUNK_MASK];
+    }
+
+    @Override
+    public void setGrowthDelay(int index, int days) {
+        Chunk chunk = chunkToWrite(index, (byte) days);
+        if (chunk != null) {
+            int i = index & CHUNK_MASK;
+            boolean wasBlank = chunk.isBlank(i);
+            chunk.growthDelay[i] = (byte) days;
+            afterWrite(chunk, index, wasBlank);
+        }
+    }
+
+    @Override
+    public int getGrowthAcceleration(int index) {
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        return chunk == null ? 0 : chunk.growthAcceleration[index & CHUNK_MASK];
+    }
+
+    @Override
+    public void setGrowthAcceleration(int index, int days) {
+        Chunk chunk = chunkToWrite(index, (byte) days);
+        if (chunk != null) {
+            int i = index & CHUNK_MASK;
+            boolean wasBlank = chunk.isBlank(i);
+            chunk.growthAcceleration[i] = (byte) days;
+            afterWrite(chunk, index, wasBlank);
+        }
+    }
+
+    // The chunk to write a tile's value into, made if needed; null when
+    // there's no chunk and the value is 0, which it already reads as
+    private Chunk chunkToWrite(int index, int value) {
+        int c = index >>> CHUNK_BITS;
+        Chunk chunk = chunks[c];
+        if (chunk == null && value == 0) {
+            return null;
+        }
+        beforeWrite(index);
+        if (chunk == null) {
+            chunk = new Chunk(chunkLength(c));
+            chunks[c] = chunk;
+        }
+        return chunk;
+    }
+
+    // Keep count of the chunk's tiles in use, and drop the chunk once none are
+    private void afterWrite(Chunk chunk, int index, boolean wasBlank) {
+        boolean isBlank = chunk.isBlank(index & CHUNK_MASK);
+        if (wasBlank != isBlank) {
+            chunk.used += isBlank ? -1 : 1;
+            if (chunk.used == 0) {
+                chunks[index >>> CHUNK_BITS] = null;
+            }
+        }
+    }
+}
@@ -1,6 +1,11 @@
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Random;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.swing.*;
 
 public class CornHarvestGame extends JFrame {
@@ -8,78 +13,148 @@ public class CornHarvestGame extends JFrame {
     private static final int WINDOW_WIDTH = 1024;
     private static final int WINDOW_HEIGHT = 768;
     private static final int TILE_SIZE = 64;
-    private static final int INITIAL_MONEY = 500;
-    private static final int INITIAL_LAND_SIZE = 4;
-    private static final int INITIAL_LAND_LENGTH = 4;
-    private static final int INITIAL_LAND_WIDTH = 4; // 4x4 farm
-    
-    // Game state
-    private int money;
-    private int day;
-    private ArrayList<CropTile> farmTiles;
-    private ArrayList<FarmTilePanel> tilePanels;
+    static final String SAVE_FOLDER = "save"; // Where the current game is saved (see SaveJournal)
+    
+    // Game state, kept by the simulation; this window only shows it
+    private FarmSimulation simulation;
+    private FarmGrid farmGrid;
     private Inventory inventory;
-    private Random random;
     private boolean isDaytime;
     
     // UI Components
     private JPanel gamePanel;
-    private JPanel farmPanel;
+    private JScrollPane farmPanel;
+    private FarmCanvas farmCanvas;
     private JPanel controlPanel;
     private JPanel statsPanel;
     private JPanel inventoryPanel;
     private JLabel moneyLabel;
     private JLabel dayLabel;
+    private JLabel cropsLabel;
     private JLabel currentActionLabel;
+    private JButton hintButton;
     
     // Game mechanics
     private EventSystem eventSystem;
+    private EventBus eventBus;
+    private ExecutorService soundExecutor;
     private GameActionsController actionsController;
     private SoundManager soundManager;
+    private ReplayRecorder replayRecorder; // Null if the game couldn't be recorded
+    private SaveJournal saveJournal;       // Null if the game can't be saved
     
     public CornHarvestGame() {
+        this(DifficultyProfile.DEFAULT_NAME);
+    }
+    
+    public CornHarvestGame(String difficulty) {
+        this(difficulty, FarmSimulation.INITIAL_LAND_SIZE);
+    }
+    
+    // Start a new game on a landSize x landSize farm
+    public CornHarvestGame(String difficulty, int landSize) {
+        this(ThreadLocalRandom.current().nextLong(), difficulty, landSize);
+    }
+    
+    // Start a game whose randomness is fully determined by the seed
+    // (with night events from the event table file adjusted for the chosen difficulty)
+    public CornHarvestGame(long gameSeed, String difficulty, int landSize) {
+        this(FarmSimulation.withSettings(gameSeed, difficulty, landSize, new DayTickEngine(), new EventBus()), null);
+    }
+    
+    // Carry on with a saved game (see SaveJournal.recover)
+    public CornHarvestGame(SaveJournal saveJournal) {
+        this(saveJournal.getSimulation(), saveJournal);
+    }
+    
+    private CornHarvestGame(FarmSimulation simulation, SaveJournal saveJournal) {
         setTitle("Daniel's Corn Harvesting Simulator");
         setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        // Closing the window ends the program, but only after dispose has closed the save and the replay
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                dispose();
+                System.exit(0);
+            }
+        });
         setLocationRelativeTo(null);
         
-        initGame();
+        initGame(simulation, saveJournal);
         createUI();
         
         setVisible(true);
         
-        // Show game instructions
-        showInstructions();
+        // Show game instructions for a new game
+        if (saveJournal == null) {
+            showInstructions();
+        }
     }
     
-    private void initGame() {
-        money = INITIAL_MONEY;
-        day = 1;
-        farmTiles = new ArrayList<>();
-        tilePanels = new ArrayList<>();
-        inventory = new Inventory();
-        random = new Random();
+    private void initGame(FarmSimulation simulation, SaveJournal saveJournal) {
         isDaytime = true;
         
-        // Initialize farm with empty tiles
-        for (int i = 0; i < INITIAL_LAND_SIZE * INITIAL_LAND_SIZE; i++) {
-            farmTiles.add(new CropTile());
+        this.simulation = simulation;
+        eventBus = simulation.getEventSystem().getEventBus();
+        farmGrid = simulation.getFarmGrid();
+        inventory = simulation.getInventory();
+        eventSystem = simulation.getEventSystem();
+        
+        // Save the game as it's played, so closing the window or a crash doesn't lose the farm
+        this.saveJournal = saveJournal;
+        if (saveJournal == null) {
+            try {
+                this.saveJournal = SaveJournal.create(new File(SAVE_FOLDER), simulation);
+            } catch (IOException e) {
+                System.out.println("Can't save this game: " + e.getMessage());
+            }
         }
         
-        // Add initial items to inventory
-        inventory.addItem(ItemType.SEED, 10);
-        inventory.addItem(ItemType.FERTILIZER, 3);
-        inventory.addItem(ItemType.BUG_KILLER, 2);
-        
-        // Initialize event system
-        eventSystem = new EventSystem();
+        // Record the game, so an odd outcome can be replayed exactly (see ReplayPlayer);
+        // a continued game is recorded from where the save left off
+        try {
+            replayRecorder = ReplayRecorder.start(new File("replays"), simulation, simulation.getDifficulty().getName(),
+                saveJournal != null);
+        } catch (IOException e) {
+            System.out.println("Can't record this game: " + e.getMessage());
+        }
         
         // Initialize actions controller
-        actionsController = new GameActionsController(this);
+        actionsController = new GameActionsController(this, simulation);
         
         // Initialize sound manager
         soundManager = new SoundManager();
         soundManager.startBackgroundMusic();
+        
+        // Play event sounds on their own thread so they never hold up the night
+        soundExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-sounds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        eventBus.subscribe(FarmEvent.GoodBugs.class, event -> soundManager.playSound("bug"), soundExecutor, 8);
+        eventBus.subscribe(FarmEvent.Flood.class, event -> soundManager.playSound("flood"), soundExecutor, 8);
+    }
+    
+    @Override
+    public void dispose() {
+        soundExecutor.shutdown();
+        if (saveJournal != null) {
+            try {
+                saveJournal.close();
+            } catch (IOException e) {
+                System.out.println("Error saving the game: " + e.getMessage());
+            }
+        }
+        if (replayRecorder != null) {
+            try {
+                replayRecorder.close();
+            } catch (IOException e) {
+                System.out.println("Error closing replay: " + e.getMessage());
+            }
+        }
+        super.dispose();
     }
     
     private void createUI() {
@@ -100,20 +175,12 @@ public class CornHarvestGame extends JFrame {
     }
     
     private void createFarmPanel() {
-        farmPanel = new JPanel();
-        farmPanel.setLayout(new GridLayout(INITIAL_LAND_LENGTH, INITIAL_LAND_WIDTH, 2, 2));
-        farmPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        farmPanel.setBackground(new Color(180, 120, 70)); // Brown background for farm
-        
-        // Create visual representations of farm tiles
-        for (CropTile tile : farmTiles) {
-            FarmTilePanel tilePanel = new FarmTilePanel(tile);
-            tilePanels.add(tilePanel);
-            farmPanel.add(tilePanel);
-            
-            // Add tile panel to actions controller
-            actionsController.addTilePanel(tilePanel);
-        }
+        // One canvas draws the visible part of the farm, however many tiles it has
+        farmCanvas = new FarmCanvas(farmGrid, simulation.getLandSize());
+        farmPanel = new JScrollPane(farmCanvas);
+        farmPanel.setBorder(BorderFactory.createEmptyBorder());
+        farmPanel.getViewport().setBackground(farmCanvas.getBackground());
+        actionsController.setFarmCanvas(farmCanvas);
     }
     
     private void createControlPanel() {
@@ -138,6 +205,9 @@ public class CornHarvestGame extends JFrame {
         JButton shopButton = new JButton("Shop");
         JButton sleepButton = new JButton("Sleep (Next Day)");
         JButton cancelButton = new JButton("Cancel Action");
+        JButton selectHarvestableButton = new JButton("Select Harvestable");
+        JButton selectNeedsWaterButton = new JButton("Select Needs Water");
+        hintButton = new JButton("Bot Hint");
         
         // Make all buttons the same width
         Dimension buttonSize = new Dimension(180, 30);
@@ -149,6 +219,9 @@ public class CornHarvestGame extends JFrame {
         shopButton.setMaximumSize(buttonSize);
         sleepButton.setMaximumSize(buttonSize);
         cancelButton.setMaximumSize(buttonSize);
+        selectHarvestableButton.setMaximumSize(buttonSize);
+        selectNeedsWaterButton.setMaximumSize(buttonSize);
+        hintButton.setMaximumSize(buttonSize);
         
         // Add button icons or colors
         plantButton.setBackground(new Color(200, 255, 200));
@@ -166,16 +239,22 @@ public class CornHarvestGame extends JFrame {
         shopButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         sleepButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        selectHarvestableButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        selectNeedsWaterButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        hintButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         
         // Add action listeners
-        plantButton.addActionListener(e -> setGameAction(GameActionsController.ActionType.PLANT));
-        waterButton.addActionListener(e -> setGameAction(GameActionsController.ActionType.WATER));
-        fertilizeButton.addActionListener(e -> setGameAction(GameActionsController.ActionType.FERTILIZE));
-        protectButton.addActionListener(e -> setGameAction(GameActionsController.ActionType.PROTECT));
-        harvestButton.addActionListener(e -> setGameAction(GameActionsController.ActionType.HARVEST));
+        plantButton.addActionListener(e -> setGameAction(ActionType.PLANT));
+        waterButton.addActionListener(e -> setGameAction(ActionType.WATER));
+        fertilizeButton.addActionListener(e -> setGameAction(ActionType.FERTILIZE));
+        protectButton.addActionListener(e -> setGameAction(ActionType.PROTECT));
+        harvestButton.addActionListener(e -> setGameAction(ActionType.HARVEST));
         shopButton.addActionListener(e -> openShop());
         sleepButton.addActionListener(e -> endDay());
         cancelButton.addActionListener(e -> cancelAction());
+        selectHarvestableButton.addActionListener(e -> actionsController.selectHarvestable());
+        selectNeedsWaterButton.addActionListener(e -> actionsController.selectNeedsWater());
+        hintButton.addActionListener(e -> showBotHint());
         
         // Add buttons to panel
         controlPanel.add(plantButton);
@@ -189,6 +268,12 @@ public class CornHarvestGame extends JFrame {
         controlPanel.add(harvestButton);
         controlPanel.add(Box.createRigidArea(new Dimension(0, 10)));
         controlPanel.add(cancelButton);
+        controlPanel.add(Box.createRigidArea(new Dimension(0, 20)));
+        controlPanel.add(selectHarvestableButton);
+        controlPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        controlPanel.add(selectNeedsWaterButton);
+        controlPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        controlPanel.add(hintButton);
         controlPanel.add(Box.createRigidArea(new Dimension(0, 30)));
         controlPanel.add(shopButton);
         controlPanel.add(Box.createRigidArea(new Dimension(0, 30)));
@@ -203,9 +288,10 @@ public class CornHarvestGame extends JFrame {
         statsPanel.setBackground(new Color(250, 250, 220)); // Light yellow background
         
         // Create labels for game stats
-        moneyLabel = new JLabel("Money: $" + money);
-        dayLabel = new JLabel("Day: " + day + " (Daytime)");
+        moneyLabel = new JLabel("Money: $" + simulation.getMoney());
+        dayLabel = new JLabel("Day: " + simulation.getDay() + " (Daytime)");
         JLabel tempLabel = new JLabel("Temperature: " + eventSystem.getCurrentTemperature() + "°C");
+        cropsLabel = new JLabel(getCropsText());
         
         // Add labels to panel
         statsPanel.add(moneyLabel);
@@ -213,6 +299,8 @@ public class CornHarvestGame extends JFrame {
         statsPanel.add(dayLabel);
         statsPanel.add(Box.createRigidArea(new Dimension(20, 0)));
         statsPanel.add(tempLabel);
+        statsPanel.add(Box.createRigidArea(new Dimension(20, 0)));
+        statsPanel.add(cropsLabel);
     }
     
     private void createInventoryPanel() {
@@ -239,7 +327,7 @@ public class CornHarvestGame extends JFrame {
     }
     
     // Game action methods
-    private void setGameAction(GameActionsController.ActionType action) {
+    private void setGameAction(ActionType action) {
         // Check if action is valid based on inventory
         switch (action) {
             case PLANT:
@@ -267,8 +355,8 @@ public class CornHarvestGame extends JFrame {
         currentActionLabel.setText("Current Action: " + action);
         
         // Execute action if any tiles are already selected
-        int moneyEarned = actionsController.executeAction(inventory);
-        money += moneyEarned;
+        int moneyEarned = actionsController.executeAction();
+        flushSave();
         
         // Play appropriate sound
         switch (action) {
@@ -295,26 +383,49 @@ public class CornHarvestGame extends JFrame {
     }
     
     private void cancelAction() {
-        actionsController.setAction(GameActionsController.ActionType.NONE);
+        actionsController.setAction(ActionType.NONE);
         actionsController.deselectAll();
         currentActionLabel.setText("Current Action: None");
     }
     
+    // Ask the farmer bot what it would do today
+    // The search runs on a copy of the game in the background so the window stays responsive
+    private void showBotHint() {
+        FarmSimulation position = simulation.copy();
+        hintButton.setEnabled(false);
+        hintButton.setText("Thinking...");
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return new FarmerBot().chooseMove(position);
+            }
+
+            @Override
+            protected void done() {
+                hintButton.setText("Bot Hint");
+                hintButton.setEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(CornHarvestGame.this, FarmerBot.describeMove(get()),
+                        "Bot Hint", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    System.out.println("Bot hint failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
     private void openShop() {
         // Open shop dialog
-        ShopDialog shopDialog = new ShopDialog(this, money, inventory);
+        int moneyBefore = simulation.getMoney();
+        ShopDialog shopDialog = new ShopDialog(this, simulation);
         shopDialog.setVisible(true);
-        
-        // Update money after shopping
-        int newMoney = shopDialog.getPlayerMoney();
+        flushSave();
         
         // Play sound if purchase was made
-        if (newMoney < money) {
+        if (simulation.getMoney() < moneyBefore) {
             soundManager.playSound("buy");
         }
         
-        money = newMoney;
-        
         // Update UI
         updateStats();
         updateInventoryPanel();
@@ -327,14 +438,9 @@ public class CornHarvestGame extends JFrame {
         // Play night sound
         soundManager.playSound("night");
         
-        // Simulate night events
-        processNightEvents();
-        
-        // Grow crops
-        growCrops();
-        
-        // Increment day
-        day++;
+        // Simulate the night (events, then crop growth) and start the next day
+        NightReport report = simulation.advanceDay();
+        showNightEvents(report);
         isDaytime = true;
         
         // Update UI
@@ -346,70 +452,57 @@ public class CornHarvestGame extends JFrame {
         checkGameState();
         
         if (!isGameOver()) {
-            JOptionPane.showMessageDialog(this, "It's now Day " + day + "!");
+            JOptionPane.showMessageDialog(this, "It's now Day " + simulation.getDay() + "!");
         }
     }
     
     private boolean isGameOver() {
-        return GameStateChecker.checkWinCondition(money) || 
-               GameStateChecker.checkLossCondition(money, farmTiles);
+        return simulation.isGameOver();
+    }
+    
+    // Make the player's last command part of the save
+    private void flushSave() {
+        if (saveJournal != null) {
+            saveJournal.flush();
+        }
     }
     
     private void checkGameState() {
+        // A finished game can't be continued, so drop its save
+        if (simulation.isGameOver() && saveJournal != null) {
+            try {
+                saveJournal.delete();
+            } catch (IOException e) {
+                System.out.println("Can't remove the save: " + e.getMessage());
+            }
+            saveJournal = null;
+        }
+        
         // Check for win condition
-        if (GameStateChecker.checkWinCondition(money)) {
+        if (simulation.isWon()) {
             soundManager.playSound("win");
-            GameOverDialog gameOverDialog = new GameOverDialog(this, true, money, day);
+            GameOverDialog gameOverDialog = new GameOverDialog(this, true, simulation.getMoney(), simulation.getDay());
             gameOverDialog.setVisible(true);
         }
         
         // Check for loss condition
-        else if (GameStateChecker.checkLossCondition(money, farmTiles)) {
+        else if (simulation.isLost()) {
             soundManager.playSound("lose");
-            GameOverDialog gameOverDialog = new GameOverDialog(this, false, money, day);
+            GameOverDialog gameOverDialog = new GameOverDialog(this, false, simulation.getMoney(), simulation.getDay());
             gameOverDialog.setVisible(true);
         }
     }
     
+    // Forecast what tonight could do to this farm by simulating it many times
     private void showEventProbabilities() {
-        StringBuilder message = new StringBuilder("Event Probabilities:\n\n");
-        
-        message.append("Weather:\n");
-        message.append("- Good Weather (24-30°C): 15%\n");
-        message.append("- Bad Weather (<20°C or >35°C): 15%\n");
-        message.append("- Neutral Weather: 70%\n\n");
-        
-        message.append("Events:\n");
-        message.append("- Pest Invasion: 10%\n");
-        message.append("- Robbery: 3%\n");
-        message.append("- Good Bugs: 7%\n");
-        message.append("- Nothing: 80%\n\n");
-        
-        message.append("Natural Disasters:\n");
-        message.append("- Drought: 5%\n");
-        message.append("- Flood: 4%\n");
-        message.append("- Tornado: 1%\n");
-        message.append("- Nothing: 90%\n");
-        
-        JOptionPane.showMessageDialog(this, message.toString(), "Event Forecast", JOptionPane.INFORMATION_MESSAGE);
+        new ForecastDialog(this, simulation).showForecast();
     }
     
-    private void processNightEvents() {
-        ArrayList<String> eventMessages = eventSystem.processNightEvents(farmTiles, inventory);
-        
-        if (!eventMessages.isEmpty()) {
+    private void showNightEvents(NightReport report) {
+        if (!report.isEmpty()) {
             StringBuilder message = new StringBuilder("Night Events:\n");
-            for (String eventMessage : eventMessages) {
-                message.append("- ").append(eventMessage).append("\n");
-                
-                // Play appropriate sound effects based on event type
-                if (eventMessage.contains("bug") || eventMessage.contains("Bug")) {
-                    soundManager.playSound("bug");
-                } else if (eventMessage.contains("flood") || eventMessage.contains("Flood")) {
-                    soundManager.playSound("flood");
-                } else if (eventMessage.contains("stole") || eventMessage.contains("thieves")) {
-                    // Could add a robbery sound here
-                }
+            for (int i = 0; i < report.size(); i++) {
+                message.append("- ").append(report.getMessage(i)).append("\n");
             }
             
             JOptionPane.showMessageDialog(this, message.toString(), "Night Events", JOptionPane.WARNING_MESSAGE);
@@ -418,23 +511,23 @@ public class CornHarvestGame extends JFrame {
         }
     }
     
-    private void growCrops() {
-        for (CropTile tile : farmTiles) {
-            tile.grow();
-        }
-    }
-    
     private void updateStats() {
-        moneyLabel.setText("Money: $" + money);
-        dayLabel.setText("Day: " + day + (isDaytime ? " (Daytime)" : " (Night)"));
+        moneyLabel.setText("Money: $" + simulation.getMoney());
+        dayLabel.setText("Day: " + simulation.getDay() + (isDaytime ? " (Daytime)" : " (Night)"));
         JLabel tempLabel = (JLabel)statsPanel.getComponent(4);
         tempLabel.setText("Temperature: " + eventSystem.getCurrentTemperature() + "°C");
+        cropsLabel.setText(getCropsText());
+    }
+    
+    private String getCropsText() {
+        FarmStats stats = farmGrid.getStats();
+        return "Crops: " + stats.getLiveCount() + " growing (" +
+               stats.getWateredCount() + " watered), " +
+               stats.getStageCount(CropStage.MATURE) + " ready to harvest";
     }
     
     private void updateFarmVisuals() {
-        for (FarmTilePanel panel : tilePanels) {
-            panel.update();
-        }
+        farmCanvas.repaint();
     }
     
     private void showInstructions() {
@@ -447,7 +540,8 @@ public class CornHarvestGame extends JFrame {
             "4. Protect crops from pests using bug killer\n" +
             "5. Harvest mature corn for money\n" +
             "6. Buy upgrades and supplies from the shop\n" +
-            "7. End each day to progress, but beware of night events!\n\n" +
+            "7. End each day to progress, but beware of night events!\n" +
+            "Click tiles to select them; Ctrl + mouse wheel zooms the farm.\n\n" +
             "Good luck with your farm!";
         
         JOptionPane.showMessageDialog(this, instructions, "Game Instructions", JOptionPane.INFORMATION_MESSAGE);
@@ -1,147 +1,95 @@
-import java.util.Random;
 // Class to represent a single farm tile with crop
+// The tile's state lives in a FarmGrid; this is just a view onto one index of it
 class CropTile {
-    private CropStage stage;
-    private int growthProgress; // 0-100
-    private boolean isWatered;
-    private boolean hasFertilizer;
-    private boolean isProtected; // Protected by bug killer
-    private boolean isSelected;
-    private int growthDelay; // Days of growth delay
-    private int growthAcceleration; // Days of growth acceleration
-    
+    private final FarmGrid grid;
+    private final int index;
+
     public CropTile() {
-        stage = CropStage.EMPTY;
-        growthProgress = 0;
-        isWatered = false;
-        hasFertilizer = false;
-        isProtected = false;
-        isSelected = false;
-        growthDelay = 0;
-        growthAcceleration = 0;
-    }
-    
+        this(new FarmGrid(1), 0);
+    }
+
+    public CropTile(FarmGrid grid, int index) {
+        this.grid = grid;
+        this.index = index;
+    }
+
     public boolean isEmpty() {
-        return stage == CropStage.EMPTY;
+        return grid.isEmpty(index);
     }
-    
+
     public boolean isMature() {
-        return stage == CropStage.MATURE;
+        return grid.isMature(index);
     }
-    
+
     public boolean isDead() {
-        return stage == CropStage.DEAD;
+        return grid.isDead(index);
     }
-    
+
     public void plant() {
-        if (isEmpty()) {
-            stage = CropStage.SEED;
-            growthProgress = 0;
-        }
+        grid.plant(index);
     }
-    
+
     public void water() {
-        isWatered = true;
+        grid.water(index);
     }
-    
+
     public void applyFertilizer() {
-        hasFertilizer = true;
+        grid.applyFertilizer(index);
     }
-    
+
     public void applyBugKiller() {
-        isProtected = true;
+        grid.setProtected(index, true);
     }
-    
+
     public void harvest() {
-        stage = CropStage.EMPTY;
-        growthProgress = 0;
-        isWatered = false;
-        hasFertilizer = false;
-        isProtected = false;
+        grid.harvest(index);
     }
-    
+
     public void accelerateGrowth(int days) {
-        growthAcceleration += days;
+        grid.accelerateGrowth(index, days);
     }
-    
+
     public void delayGrowth(int days) {
-        growthDelay += days;
+        grid.delayGrowth(index, days);
     }
-    
+
     public void grow() {
-        if (stage == CropStage.EMPTY || stage == CropStage.DEAD) {
-            return;
-        }
-        
-        // If not watered, chance to die
-        if (!isWatered) {
-            if (new Random().nextInt(100) < 40) { // 40% chance to die without water
-                stage = CropStage.DEAD;
-                return;
-            }
-        }
-        
-        // Reset watered status for next day
-        isWatered = false;
-        
-        // Calculate growth amount
-        int growthAmount = hasFertilizer ? 20 : 10; // Fertilizer doubles growth rate
-        
-        // Apply growth acceleration/delay
-        if (growthAcceleration > 0) {
-            growthAmount *= 2; // Double growth rate
-            growthAcceleration--;
-        }
-        if (growthDelay > 0) {
-            growthAmount = 0; // No growth
-            growthDelay--;
-        }
-        
-        // Add growth
-        growthProgress += growthAmount;
-        
-        // Update stage based on growth progress
-        if (growthProgress >= 100) {
-            stage = CropStage.MATURE;
-        } else if (growthProgress >= 70) {
-            stage = CropStage.GROWING;
-        } else if (growthProgress >= 30) {
-            stage = CropStage.SEEDLING;
-        }
-        
-        // Reset fertilizer effect (one-time use)
-        hasFertilizer = false;
-    }
-    
+        grid.grow(index);
+    }
+
     public CropStage getStage() {
-        return stage;
+        return grid.getStage(index);
     }
-    
+
     public void setStage(CropStage stage) {
-        this.stage = stage;
+        grid.setStage(index, stage);
     }
-    
+
     public int getGrowthProgress() {
-        return growthProgress;
+        return grid.getGrowthProgress(index);
     }
-    
+
     public boolean isWatered() {
-        return isWatered;
+        return grid.isWatered(index);
     }
-    
+
     public boolean isProtected() {
-        return isProtected;
+        return grid.isProtected(index);
     }
-    
+
     public void setProtected(boolean isProtected) {
-        this.isProtected = isProtected;
+        grid.setProtected(index, isProtected);
     }
-    
+
     public boolean isSelected() {
-        return isSelected;
+        return grid.isSelected(index);
     }
-    
+
     public void setSelected(boolean selected) {
-        isSelected = selected;
+        grid.setSelected(index, selected);
+    }
+
+    public int getIndex() {
+        return index;
     }
-}
\ No newline at end of file
+}
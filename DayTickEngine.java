@@ -0,0 +1,87 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Class to run the per-tile work of a day across all cores
+// The farm is cut into fixed ranges of RANGE_SIZE tiles. Each range is only
+// ever touched by one thread, and the tile rolls don't depend on the order
+// they happen in, so a parallel tick gives exactly the same farm as a
+// sequential one. Farms below the threshold just run on the calling thread.
+class DayTickEngine {
+    // Ranges are whole store chunks (a multiple of 64, so they never share a bitmap word)
+    static final int RANGE_SIZE = ChunkedFarmStore.CHUNK_SIZE;
+    static final int DEFAULT_PARALLEL_THRESHOLD = 65536;
+
+    // Work done on one range of tiles [from, to)
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public DayTickEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public DayTickEngine(int parallelism, int parallelThreshold) {
+        this(new ForkJoinPool(parallelism), parallelThreshold);
+    }
+
+    private DayTickEngine(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    // Run a task over every tile range of a farm with the given size
+    public void forEachRange(int size, RangeTask task) {
+        forEachRange(size, size, task);
+    }
+
+    // Same, when only about work of the tiles need anything done (the task
+    // skips the rest), so a big farm with little on it stays on this thread
+    public void forEachRange(int size, int work, RangeTask task) {
+        if (work < parallelThreshold) {
+            task.run(0, size);
+            return;
+        }
+        pool.invoke(new RangeAction(task, size, 0, rangeCount(size)));
+    }
+
+    // Stop the worker threads (the shared common pool is left alone)
+    public void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    private static int rangeCount(int size) {
+        return (size + RANGE_SIZE - 1) / RANGE_SIZE;
+    }
+
+    // Splits a run of ranges in half until only one range is left
+    private static class RangeAction extends RecursiveAction {
+        private final RangeTask task;
+        private final int size;
+        private final int firstRange;
+        private final int lastRange; // Exclusive
+
+        RangeAction(RangeTask task, int size, int firstRange, int lastRange) {
+            this.task = task;
+            this.size = size;
+            this.firstRange = firstRange;
+            this.lastRange = lastRange;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastRange - firstRange == 1) {
+                int from = firstRange * RANGE_SIZE;
+                task.run(from, Math.min(from + RANGE_SIZE, size));
+                return;
+            }
+            int middle = (firstRange + lastRange) >>> 1;
+            invokeAll(new RangeAction(task, size, firstRange, middle),
+                      new RangeAction(task, size, middle, lastRange));
+        }
+    }
+}
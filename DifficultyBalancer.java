@@ -0,0 +1,223 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+// Tool to pick the Easy/Normal/Hard settings by simulation instead of by feel
+// It sweeps seed price, corn value and the pest/flood/drought/tornado weights,
+// either over the whole grid or a random sample of it, and plays every point
+// with the greedy strategy. Points are played in rounds of more and more
+// games; after each round a point is dropped once its win rate is clearly far
+// from every difficulty's target, so most of the time goes to promising
+// points. Every point plays the same seeds, so differences between points
+// come from the settings rather than from luck. The best point for each
+// difficulty is written to difficulty.properties, which the game loads.
+class DifficultyBalancer {
+    // What each difficulty should feel like for a player who harvests, replants and waters every day
+    private static final double[] TARGET_WIN_RATE = {0.85, 0.50, 0.20};
+    private static final int[] TARGET_DAYS_TO_WIN = {180, 270, 330};
+    private static final int MAX_DAYS = MonteCarloRunner.DEFAULT_MAX_DAYS;
+    private static final int[] ROUND_GAMES = {128, 512, 2048}; // Games played by the end of each round
+    private static final double TOLERANCE = 0.10; // How far off a win rate can be and still be worth refining
+
+    // Values swept for each setting
+    private static final int[] SEED_PRICES = {5, 8, 10, 12, 15};
+    private static final int[] CORN_VALUES = {20, 25, 30, 35, 40, 50};
+    private static final int[] PEST_WEIGHTS = {0, 5, 10, 15, 20};
+    private static final int[] FLOOD_WEIGHTS = {0, 2, 4, 8};
+    private static final int[] DROUGHT_WEIGHTS = {0, 3, 5, 10};
+    private static final int[] TORNADO_WEIGHTS = {0, 1, 2};
+
+    private final EventTable baseTable;
+    private final ForkJoinPool pool;
+
+    // How one point of the sweep did
+    private static class Result {
+        final DifficultyProfile profile;
+        final GameSummary summary;
+        final boolean pruned;
+
+        Result(DifficultyProfile profile, GameSummary summary, boolean pruned) {
+            this.profile = profile;
+            this.summary = summary;
+            this.pruned = pruned;
+        }
+    }
+
+    public DifficultyBalancer(EventTable baseTable, ForkJoinPool pool) {
+        this.baseTable = baseTable;
+        this.pool = pool;
+    }
+
+    public static int gridSize() {
+        return SEED_PRICES.length * CORN_VALUES.length * PEST_WEIGHTS.length
+            * FLOOD_WEIGHTS.length * DROUGHT_WEIGHTS.length * TORNADO_WEIGHTS.length;
+    }
+
+    // Settings at one grid position (0 .. gridSize() - 1)
+    public DifficultyProfile point(int position) {
+        int seedPrice = SEED_PRICES[position % SEED_PRICES.length];
+        position /= SEED_PRICES.length;
+        int cornValue = CORN_VALUES[position % CORN_VALUES.length];
+        position /= CORN_VALUES.length;
+        int pests = PEST_WEIGHTS[position % PEST_WEIGHTS.length];
+        position /= PEST_WEIGHTS.length;
+        int floods = FLOOD_WEIGHTS[position % FLOOD_WEIGHTS.length];
+        position /= FLOOD_WEIGHTS.length;
+        int droughts = DROUGHT_WEIGHTS[position % DROUGHT_WEIGHTS.length];
+        position /= DROUGHT_WEIGHTS.length;
+        int tornadoes = TORNADO_WEIGHTS[position % TORNADO_WEIGHTS.length];
+
+        // Keep each group adding up to 100 so the weights read as percentages
+        Map<String, Integer> weights = new TreeMap<>();
+        weights.put("event.pests", pests);
+        weights.put("event.nothing", 100 - pests - baseTable.getWeight("event.robbery") - baseTable.getWeight("event.goodBugs"));
+        weights.put("disaster.drought", droughts);
+        weights.put("disaster.flood", floods);
+        weights.put("disaster.tornado", tornadoes);
+        weights.put("disaster.nothing", 100 - droughts - floods - tornadoes);
+
+        DifficultyProfile standard = DifficultyProfile.standard("Sweep");
+        int[] prices = new int[ItemType.values().length];
+        for (ItemType type : ItemType.values()) {
+            prices[type.ordinal()] = type == ItemType.SEED ? seedPrice : standard.getPrice(type);
+        }
+        return new DifficultyProfile("Sweep", standard.getStartingMoney(), cornValue, prices, weights);
+    }
+
+    // Play every given grid position and return the best profile for each difficulty
+    public DifficultyProfile[] sweep(int[] positions) throws InterruptedException, ExecutionException {
+        List<Callable<Result>> tasks = new ArrayList<>();
+        for (int position : positions) {
+            DifficultyProfile profile = point(position);
+            tasks.add(() -> evaluate(profile));
+        }
+
+        DifficultyProfile[] best = new DifficultyProfile[DifficultyProfile.NAMES.length];
+        GameSummary[] bestSummary = new GameSummary[best.length];
+        double[] bestScore = new double[best.length];
+        int pruned = 0;
+        for (Future<Result> future : pool.invokeAll(tasks)) {
+            Result result = future.get();
+            if (result.pruned) {
+                pruned++;
+                continue;
+            }
+            for (int d = 0; d < best.length; d++) {
+                double score = score(result.summary, d);
+                if (best[d] == null || score < bestScore[d]) {
+                    best[d] = result.profile;
+                    bestSummary[d] = result.summary;
+                    bestScore[d] = score;
+                }
+            }
+        }
+
+        System.out.println("Swept " + positions.length + " settings, dropped " + pruned + " early");
+        for (int d = 0; d < best.length; d++) {
+            String name = DifficultyProfile.NAMES[d];
+            if (best[d] == null) {
+                System.out.println(name + ": nothing came close, keeping standard settings");
+                best[d] = DifficultyProfile.standard(name);
+                continue;
+            }
+            best[d] = rename(best[d], name);
+            GameSummary summary = bestSummary[d];
+            System.out.printf("%s: win rate %.1f%% (target %.0f%%), median %d days to win (target %d)%n  %s%n",
+                name, summary.getWinRate() * 100, TARGET_WIN_RATE[d] * 100,
+                summary.getDaysToWinPercentile(0.5), TARGET_DAYS_TO_WIN[d], best[d].describe());
+        }
+        return best;
+    }
+
+    // Play one point round by round, giving up once it can't match any difficulty
+    private Result evaluate(DifficultyProfile profile) {
+        MonteCarloRunner runner = new MonteCarloRunner(pool, baseTable, profile);
+        GameSummary summary = new GameSummary(MAX_DAYS);
+        long played = 0;
+        for (int games : ROUND_GAMES) {
+            summary.merge(runner.playGames(GreedyStrategy::new, played, games, MAX_DAYS));
+            played = games;
+            if (isHopeless(summary)) {
+                return new Result(profile, summary, true);
+            }
+        }
+        return new Result(profile, summary, false);
+    }
+
+    // Win rate is more than TOLERANCE from every target, even allowing for noise
+    private static boolean isHopeless(GameSummary summary) {
+        double winRate = summary.getWinRate();
+        double error = 3 * Math.sqrt(winRate * (1 - winRate) / summary.getGames()) + 1.0 / summary.getGames();
+        for (double target : TARGET_WIN_RATE) {
+            if (Math.abs(winRate - target) - error < TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Lower is better: distance from the target win rate plus distance from the target game length
+    private static double score(GameSummary summary, int difficulty) {
+        int medianDays = summary.getDaysToWinPercentile(0.5);
+        double daysOff = medianDays < 0 ? 1 : Math.abs(medianDays - TARGET_DAYS_TO_WIN[difficulty]) / (double) MAX_DAYS;
+        return Math.abs(summary.getWinRate() - TARGET_WIN_RATE[difficulty]) + 0.5 * daysOff;
+    }
+
+    private static DifficultyProfile rename(DifficultyProfile profile, String name) {
+        int[] prices = new int[ItemType.values().length];
+        for (ItemType type : ItemType.values()) {
+            prices[type.ordinal()] = profile.getPrice(type);
+        }
+        return new DifficultyProfile(name, profile.getStartingMoney(), profile.getCornValue(), prices,
+            profile.getEventWeights());
+    }
+
+    // Usage: java -Djava.awt.headless=true DifficultyBalancer [grid | random <points>] [output file]
+    public static void main(String[] args) throws Exception {
+        boolean grid = args.length > 0 && args[0].equals("grid");
+        int next = grid ? 1 : (args.length > 0 && args[0].equals("random") ? 2 : 0);
+        int points = !grid && next == 2 ? Integer.parseInt(args[1]) : 300;
+        File output = new File(args.length > next ? args[next] : "difficulty.properties");
+
+        // Sample without repeats; the sample is the same every run
+        int[] positions;
+        if (grid || points >= gridSize()) {
+            positions = new int[gridSize()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = i;
+            }
+        } else {
+            positions = new int[points];
+            TileBitmap chosen = new TileBitmap(gridSize());
+            RandomGenerator random = new RandomStreams(0).stream("balancer");
+            for (int i = 0; i < points; i++) {
+                int position;
+                do {
+                    position = random.nextInt(gridSize());
+                } while (chosen.get(position));
+                chosen.set(position);
+                positions[i] = position;
+            }
+        }
+
+        long start = System.nanoTime();
+        DifficultyBalancer balancer = new DifficultyBalancer(EventTable.load(new File("events.properties")),
+            ForkJoinPool.commonPool());
+        DifficultyProfile[] profiles = balancer.sweep(positions);
+        System.out.printf("Sweep took %.0f s%n", (System.nanoTime() - start) / 1e9);
+
+        DifficultyProfile.saveAll(output, List.of(profiles),
+            "Difficulty profiles written by DifficultyBalancer (" + positions.length + " settings swept)\n"
+            + "Each difficulty was matched against a greedy player over " + MAX_DAYS + " days:\n"
+            + "Easy wins ~85% in ~180 days, Normal ~50% in ~270 days, Hard ~20% in ~330 days");
+        System.out.println("Wrote " + output);
+    }
+}
@@ -0,0 +1,181 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Class to hold the numbers that make a game easier or harder
+// A profile sets the starting money, what a harvested crop sells for, shop
+// prices, and any event weights it wants to change (keyed like the lines in
+// events.properties). Profiles are written by DifficultyBalancer into
+// difficulty.properties, e.g. "hard.price.SEED = 15" or
+// "hard.weight.event.pests = 20"; anything not listed keeps its normal value.
+class DifficultyProfile {
+    static final String[] NAMES = {"Easy", "Normal", "Hard"};
+    static final String DEFAULT_NAME = "Normal";
+
+    private final String name;
+    private final int startingMoney;
+    private final int cornValue;
+    private final int[] prices; // By ItemType ordinal
+    private final Map<String, Integer> eventWeights;
+
+    public DifficultyProfile(String name, int startingMoney, int cornValue, int[] prices,
+                             Map<String, Integer> eventWeights) {
+        if (prices.length != ItemType.values().length) {
+            throw new IllegalArgumentException("Need a price for every item");
+        }
+        this.name = name;
+        this.startingMoney = startingMoney;
+        this.cornValue = cornValue;
+        this.prices = prices.clone();
+        this.eventWeights = Collections.unmodifiableMap(new TreeMap<>(eventWeights));
+    }
+
+    // The game as originally balanced
+    public static DifficultyProfile standard(String name) {
+        int[] prices = new int[ItemType.values().length];
+        for (ItemType type : ItemType.values()) {
+            prices[type.ordinal()] = type.getPrice();
+        }
+        return new DifficultyProfile(name, FarmSimulation.INITIAL_MONEY, FarmSimulation.CORN_VALUE,
+            prices, Collections.emptyMap());
+    }
+
+    // Load every profile in NAMES from a file; missing profiles or values are standard
+    public static Map<String, DifficultyProfile> loadAll(File file) {
+        Properties properties = new Properties();
+        if (file.exists()) {
+            try (Reader reader = new FileReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                System.out.println("Error loading difficulty profiles: " + e.getMessage());
+            }
+        } else {
+            System.out.println("Difficulty profiles " + file + " not found, using standard difficulty");
+        }
+
+        Map<String, DifficultyProfile> profiles = new LinkedHashMap<>();
+        for (String name : NAMES) {
+            try {
+                profiles.put(name, fromProperties(name, properties));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error in difficulty " + name + ": " + e.getMessage() + ", using standard difficulty");
+                profiles.put(name, standard(name));
+            }
+        }
+        return profiles;
+    }
+
+    public static DifficultyProfile load(File file, String name) {
+        DifficultyProfile profile = loadAll(file).get(name);
+        return profile != null ? profile : standard(name);
+    }
+
+    private static DifficultyProfile fromProperties(String name, Properties properties) {
+        String prefix = name.toLowerCase() + ".";
+        DifficultyProfile standard = standard(name);
+        int startingMoney = intValue(properties, prefix + "startingMoney", standard.startingMoney);
+        int cornValue = intValue(properties, prefix + "cornValue", standard.cornValue);
+        int[] prices = new int[ItemType.values().length];
+        for (ItemType type : ItemType.values()) {
+            prices[type.ordinal()] = intValue(properties, prefix + "price." + type.name(), type.getPrice());
+        }
+        Map<String, Integer> eventWeights = new TreeMap<>();
+        String weightPrefix = prefix + "weight.";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(weightPrefix)) {
+                eventWeights.put(key.substring(weightPrefix.length()), intValue(properties, key, 0));
+            }
+        }
+        return new DifficultyProfile(name, startingMoney, cornValue, prices, eventWeights);
+    }
+
+    private static int intValue(Properties properties, String key, int standard) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return standard;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " should be a whole number");
+        }
+    }
+
+    // Write profiles in the format loadAll reads
+    public static void saveAll(File file, Iterable<DifficultyProfile> profiles, String comment) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            for (String line : comment.split("\n")) {
+                writer.write("# " + line + "\n");
+            }
+            for (DifficultyProfile profile : profiles) {
+                writer.write("\n");
+                profile.write(writer);
+            }
+        }
+    }
+
+    private void write(Writer writer) throws IOException {
+        String prefix = name.toLowerCase() + ".";
+        writer.write(prefix + "startingMoney = " + startingMoney + "\n");
+        writer.write(prefix + "cornValue = " + cornValue + "\n");
+        for (ItemType type : ItemType.values()) {
+            writer.write(prefix + "price." + type.name() + " = " + prices[type.ordinal()] + "\n");
+        }
+        for (Map.Entry<String, Integer> entry : eventWeights.entrySet()) {
+            writer.write(prefix + "weight." + entry.getKey() + " = " + entry.getValue() + "\n");
+        }
+    }
+
+    // The event table with this profile's weights applied
+    // (unchanged if the weights don't fit it, e.g. after events were renamed)
+    public EventTable adjust(EventTable eventTable) {
+        if (eventWeights.isEmpty()) {
+            return eventTable;
+        }
+        try {
+            return eventTable.withWeights(eventWeights);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Difficulty " + name + " doesn't fit the event table (" + e.getMessage() + "), using its weights as is");
+            return eventTable;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStartingMoney() {
+        return startingMoney;
+    }
+
+    public int getCornValue() {
+        return cornValue;
+    }
+
+    public int getPrice(ItemType type) {
+        return prices[type.ordinal()];
+    }
+
+    public Map<String, Integer> getEventWeights() {
+        return eventWeights;
+    }
+
+    // Short one-line description, for sweep reports
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        text.append("start $").append(startingMoney).append(", corn $").append(cornValue)
+            .append(", seed $").append(getPrice(ItemType.SEED));
+        for (Map.Entry<String, Integer> entry : eventWeights.entrySet()) {
+            text.append(", ").append(entry.getKey()).append(" ").append(entry.getValue());
+        }
+        return text.toString();
+    }
+}
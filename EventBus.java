@@ -0,0 +1,127 @@
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Class to deliver typed FarmEvents to whoever subscribed to their type
+// Finding the listeners is one map lookup on the event's class. Listeners
+// either run right away on the publishing thread, or on their own executor
+// through a bounded queue; when that queue is full the event is dropped for
+// that listener, so a slow listener (sound, logging) never holds up the night.
+class EventBus {
+    // One registered listener
+    private interface Subscriber {
+        void deliver(FarmEvent event);
+    }
+
+    private final ConcurrentHashMap<Class<?>, List<Subscriber>> subscribers;
+    private final LongAdder droppedCount;
+
+    public EventBus() {
+        subscribers = new ConcurrentHashMap<>();
+        droppedCount = new LongAdder();
+    }
+
+    // Listen for one event type (or FarmEvent.class for all of them) on the publishing thread
+    public <T extends FarmEvent> void subscribe(Class<T> type, Consumer<? super T> listener) {
+        add(type, event -> notify(listener, type.cast(event)));
+    }
+
+    // Listen for one event type on the given executor, queueing at most queueCapacity events
+    public <T extends FarmEvent> void subscribe(Class<T> type, Consumer<? super T> listener,
+                                                Executor executor, int queueCapacity) {
+        add(type, new QueuedSubscriber<>(type, listener, executor, queueCapacity));
+    }
+
+    public boolean hasSubscribers(Class<? extends FarmEvent> type) {
+        return subscribers.containsKey(type) || subscribers.containsKey(FarmEvent.class);
+    }
+
+    // Hand an event to every listener of its type and every catch-all listener
+    public void publish(FarmEvent event) {
+        deliver(subscribers.get(event.getClass()), event);
+        deliver(subscribers.get(FarmEvent.class), event);
+    }
+
+    // Events that queued listeners couldn't keep up with
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private void add(Class<?> type, Subscriber subscriber) {
+        subscribers.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    private static void deliver(List<Subscriber> list, FarmEvent event) {
+        if (list != null) {
+            for (Subscriber subscriber : list) {
+                subscriber.deliver(event);
+            }
+        }
+    }
+
+    // A failing listener shouldn't stop the others
+    private static <T> void notify(Consumer<? super T> listener, T event) {
+        try {
+            listener.accept(event);
+        } catch (RuntimeException e) {
+            System.out.println("Error in event listener: " + e);
+        }
+    }
+
+    // Listener that runs on its own executor, draining a bounded queue
+    private class QueuedSubscriber<T extends FarmEvent> implements Subscriber {
+        private final Class<T> type;
+        private final Consumer<? super T> listener;
+        private final Executor executor;
+        private final ArrayBlockingQueue<FarmEvent> queue;
+        private final AtomicBoolean scheduled;
+
+        QueuedSubscriber(Class<T> type, Consumer<? super T> listener, Executor executor, int queueCapacity) {
+            this.type = type;
+            this.listener = listener;
+            this.executor = executor;
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            scheduled = new AtomicBoolean(false);
+        }
+
+        public void deliver(FarmEvent event) {
+            if (!queue.offer(event)) {
+                droppedCount.increment();
+                return;
+            }
+            schedule();
+        }
+
+        // Start a drain on the executor unless one is already going
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Executor has shut down, nobody will ever read these
+                    droppedCount.add(queue.size());
+                    queue.clear();
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            FarmEvent event;
+            while ((event = queue.poll()) != null) {
+                EventBus.notify(listener, type.cast(event));
+            }
+            scheduled.set(false);
+            // An event may have arrived after the last poll but before we cleared the flag
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
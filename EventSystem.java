@@ -1,45 +1,104 @@
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
 
 // Class to manage random events at night
 class EventSystem {
-    private Random random;
+    // Timed effects tracked on the timer wheel
+    private static final int DROUGHT_END = 1;
+    private static final int DROUGHT_DAYS = 2;
     
-    // Weather probabilities
-    private int goodWeatherChance = 15;
-    private int badWeatherChance = 15;
-    private int neutralWeatherChance = 70;
+    private RandomGenerator random;
+    private DayTickEngine engine;
+    private TimerWheel timers;
+    private TimerWheel.Listener expiryListener;
+    private VictimSampler victims;
+    private EventBus eventBus;
+    private final NightReport report; // Reused every night
+    private FarmGrid nightGrid;       // Farm the current night is happening on
+    private IntConsumer killCrop;
     
-    // Event probabilities
-    private int pestInvasionChance = 10;
-    private int robberyChance = 3;
-    private int goodBugsChance = 7;
-    private int nothingEventChance = 80;
-    
-    // Natural disaster probabilities
-    private int droughtChance = 5;
-    private int floodChance = 4;
-    private int tornadoChance = 1;
-    private int nothingDisasterChance = 90;
+    // Weather, event and natural disaster probabilities
+    private EventTable eventTable;
     
     // Weather state
     private int currentTemperature;
     private boolean isDroughtActive;
-    private int droughtDaysRemaining;
+    private int droughtEndNight;
+    private int droughtTimer;
+    
+    public EventSystem(RandomGenerator random, DayTickEngine engine) {
+        this(random, engine, EventTable.defaults());
+    }
+    
+    public EventSystem(RandomGenerator random, DayTickEngine engine, EventTable eventTable) {
+        this(random, engine, eventTable, new EventBus());
+    }
     
-    public EventSystem() {
-        random = new Random();
+    // Every night event is also published on the bus as a typed FarmEvent
+    public EventSystem(RandomGenerator random, DayTickEngine engine, EventTable eventTable, EventBus eventBus) {
+        this.random = random;
+        this.engine = engine;
+        this.eventTable = eventTable;
+        this.eventBus = eventBus;
+        timers = new TimerWheel(0);
+        expiryListener = this::onEffectExpired;
+        victims = new VictimSampler(random);
+        report = new NightReport();
+        killCrop = i -> nightGrid.setStage(i, CropStage.DEAD);
         isDroughtActive = false;
-        droughtDaysRemaining = 0;
+        droughtEndNight = 0;
+        droughtTimer = -1;
         updateWeather();
     }
     
+    // Independent copy (weather, drought, pending timers) that rolls with another random stream
+    public EventSystem copy(RandomGenerator random, EventBus eventBus) {
+        return new EventSystem(this, random, eventBus);
+    }
+    
+    private EventSystem(EventSystem other, RandomGenerator random, EventBus eventBus) {
+        this.random = random;
+        this.engine = other.engine;
+        this.eventTable = other.eventTable;
+        this.eventBus = eventBus;
+        timers = new TimerWheel(other.timers);
+        expiryListener = this::onEffectExpired;
+        victims = new VictimSampler(random);
+        report = new NightReport();
+        killCrop = i -> nightGrid.setStage(i, CropStage.DEAD);
+        currentTemperature = other.currentTemperature;
+        isDroughtActive = other.isDroughtActive;
+        droughtEndNight = other.droughtEndNight;
+        droughtTimer = other.droughtTimer;
+    }
+    
+    // Write the weather, drought and pending timers, for a saved game
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(currentTemperature);
+        out.writeBoolean(isDroughtActive);
+        out.writeInt(droughtEndNight);
+        out.writeInt(droughtTimer);
+        timers.save(out);
+    }
+
+    // Replace that state with what save wrote
+    public void load(DataInput in) throws IOException {
+        currentTemperature = in.readInt();
+        isDroughtActive = in.readBoolean();
+        droughtEndNight = in.readInt();
+        droughtTimer = in.readInt();
+        timers.load(in);
+    }
+    
     private void updateWeather() {
-        int weatherRoll = random.nextInt(100);
-        if (weatherRoll < goodWeatherChance) {
+        NightEffect weather = eventTable.roll(EventTable.WEATHER, random);
+        if (weather == NightEffect.GOOD_WEATHER) {
             // Good weather: 24-30°C
             currentTemperature = 24 + random.nextInt(7);
-        } else if (weatherRoll < goodWeatherChance + badWeatherChance) {
+        } else if (weather == NightEffect.BAD_WEATHER) {
             // Bad weather: <20°C or >35°C
             currentTemperature = random.nextBoolean() ? 
                 random.nextInt(20) : 35 + random.nextInt(10);
@@ -50,109 +109,111 @@ class EventSystem {
         }
     }
     
-    public ArrayList<String> processNightEvents(ArrayList<CropTile> farmTiles, Inventory inventory) {
-        ArrayList<String> eventMessages = new ArrayList<>();
+    // Run tonight's events; the returned report is reused, so it's only valid until the next night
+    public NightReport processNightEvents(FarmGrid farmGrid, Inventory inventory) {
+        report.clear();
+        nightGrid = farmGrid;
         
         // Process weather effects
         if (currentTemperature >= 24 && currentTemperature <= 30) {
             // Good weather: reduce growth time by 2 days
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead()) {
-                    tile.accelerateGrowth(2);
-                }
-            }
-            eventMessages.add("Good weather today! Crops grew faster.");
+            farmGrid.accelerateAllLive(2);
+            report(NightReport.GOOD_WEATHER, 0);
         } else if (currentTemperature < 20 || currentTemperature > 35) {
             // Bad weather: increase growth time by 1 day
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead()) {
-                    tile.delayGrowth(1);
-                }
-            }
-            eventMessages.add("Bad weather today! Crops grew slower.");
+            farmGrid.delayAllLive(1);
+            report(NightReport.BAD_WEATHER, 0);
         }
         
-        // Process drought if active
+        // Expire any timed effects that run out tonight (e.g. the drought ending)
+        timers.advance(expiryListener);
         if (isDroughtActive) {
-            droughtDaysRemaining--;
-            if (droughtDaysRemaining <= 0) {
-                isDroughtActive = false;
-                eventMessages.add("The drought has ended!");
-            } else {
-                eventMessages.add("Drought continues! No water available for " + droughtDaysRemaining + " more days.");
-            }
+            report(NightReport.DROUGHT_CONTINUES, getDroughtDaysRemaining());
         }
         
         // Process events
-        int eventRoll = random.nextInt(100);
-        if (eventRoll < pestInvasionChance) {
-            // Pest invasion: destroys 1-2 corn plants
+        NightEffect event = eventTable.roll(EventTable.EVENT, random);
+        if (event == NightEffect.PEST_INVASION) {
+            // Pest invasion: destroys 1-2 unprotected corn plants anywhere on the farm
             int plantsToDestroy = 1 + random.nextInt(2);
-            int destroyed = 0;
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead() && !tile.isProtected() && destroyed < plantsToDestroy) {
-                    tile.setStage(CropStage.DEAD);
-                    destroyed++;
-                }
-            }
+            TileIndex tileIndex = farmGrid.getTileIndex();
+            FarmStats stats = farmGrid.getStats();
+            int destroyed = victims.sample(tileIndex.live(), tileIndex.protectedTiles(), true,
+                stats.getLiveCount() - stats.getProtectedCount(), plantsToDestroy, killCrop);
             if (destroyed > 0) {
-                eventMessages.add("Pest invasion! " + destroyed + " crops were destroyed.");
+                report(NightReport.PEST_INVASION, destroyed);
             }
-        } else if (eventRoll < pestInvasionChance + robberyChance) {
+        } else if (event == NightEffect.ROBBERY) {
             // Robbery: lose 10-50% of money/inventory
             int percentage = 10 + random.nextInt(41); // 10-50%
             int moneyLost = (int)(inventory.getTotalValue() * percentage / 100.0);
             inventory.removeRandomItems(percentage);
-            eventMessages.add("Robbery! Lost " + percentage + "% of your inventory and money.");
-        } else if (eventRoll < pestInvasionChance + robberyChance + goodBugsChance) {
+            report(NightReport.ROBBERY, percentage);
+        } else if (event == NightEffect.GOOD_BUGS) {
             // Good bugs: reduces growth time by 1 day
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead()) {
-                    tile.accelerateGrowth(1);
-                }
-            }
-            eventMessages.add("Good bugs visited! Crops grew faster.");
+            farmGrid.accelerateAllLive(1);
+            report(NightReport.GOOD_BUGS, 0);
         }
         
         // Process natural disasters
-        int disasterRoll = random.nextInt(100);
-        if (disasterRoll < droughtChance) {
-            // Drought: stops growth for 2 days
+        NightEffect disaster = eventTable.roll(EventTable.DISASTER, random);
+        if (disaster == NightEffect.DROUGHT) {
+            // Drought: stops growth for 2 days (a new drought restarts the clock)
+            if (isDroughtActive) {
+                timers.cancel(droughtTimer);
+            }
             isDroughtActive = true;
-            droughtDaysRemaining = 2;
-            eventMessages.add("Drought has started! No water available for 2 days.");
-        } else if (disasterRoll < droughtChance + floodChance) {
+            droughtEndNight = timers.getCurrentDay() + DROUGHT_DAYS;
+            droughtTimer = timers.schedule(droughtEndNight, DROUGHT_END, 0);
+            report(NightReport.DROUGHT_STARTED, DROUGHT_DAYS);
+        } else if (disaster == NightEffect.FLOOD) {
             // Flood: destroys 25% of planted crops
-            int totalCrops = 0;
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead()) {
-                    totalCrops++;
-                }
-            }
+            int totalCrops = farmGrid.getStats().getLiveCount();
             int cropsToDestroy = (int)(totalCrops * 0.25);
-            int destroyed = 0;
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead() && destroyed < cropsToDestroy) {
-                    tile.setStage(CropStage.DEAD);
-                    destroyed++;
-                }
-            }
+            int destroyed = victims.sample(farmGrid.getTileIndex().live(), null, false, totalCrops, cropsToDestroy, killCrop);
             if (destroyed > 0) {
-                eventMessages.add("Flood! " + destroyed + " crops were destroyed.");
+                report(NightReport.FLOOD, destroyed);
             }
-        } else if (disasterRoll < droughtChance + floodChance + tornadoChance) {
+        } else if (disaster == NightEffect.TORNADO) {
             // Tornado: lose everything except money
-            for (CropTile tile : farmTiles) {
-                tile.setStage(CropStage.EMPTY);
-            }
+            engine.forEachRange(farmGrid.size(), farmGrid.getAllocatedChunks() * DayTickEngine.RANGE_SIZE,
+                farmGrid::clearRange);
             inventory.clear();
-            eventMessages.add("Tornado! All crops and inventory were lost!");
+            report(NightReport.TORNADO, 0);
         }
         
         // Update weather for next day
         updateWeather();
         
-        return eventMessages;
+        nightGrid = null;
+        return report;
+    }
+    
+    // Called by the timer wheel when a timed effect runs out
+    private void onEffectExpired(int effect, int payload) {
+        switch (effect) {
+            case DROUGHT_END:
+                isDroughtActive = false;
+                droughtTimer = -1;
+                report(NightReport.DROUGHT_ENDED, 0);
+                break;
+        }
+    }
+    
+    // Add an event to tonight's report, and only build its FarmEvent if someone is listening
+    private void report(int code, int payload) {
+        report.add(code, payload);
+        if (eventBus.hasSubscribers(NightReport.eventType(code))) {
+            eventBus.publish(report.toEvent(report.size() - 1));
+        }
+    }
+    
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+    
+    public EventTable getEventTable() {
+        return eventTable;
     }
     
     public int getCurrentTemperature() {
@@ -164,6 +225,6 @@ class EventSystem {
     }
     
     public int getDroughtDaysRemaining() {
-        return droughtDaysRemaining;
+        return isDroughtActive ? droughtEndNight - timers.getCurrentDay() : 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+// Effects a night event can have
+enum NightEffect {
+    GOOD_WEATHER(EventTable.WEATHER),
+    BAD_WEATHER(EventTable.WEATHER),
+    NEUTRAL_WEATHER(EventTable.WEATHER),
+    PEST_INVASION(EventTable.EVENT),
+    ROBBERY(EventTable.EVENT),
+    GOOD_BUGS(EventTable.EVENT),
+    DROUGHT(EventTable.DISASTER),
+    FLOOD(EventTable.DISASTER),
+    TORNADO(EventTable.DISASTER),
+    NOTHING(-1); // Allowed in any group
+
+    private final int group;
+
+    NightEffect(int group) {
+        this.group = group;
+    }
+
+    public boolean fitsGroup(int group) {
+        return this.group < 0 || this.group == group;
+    }
+}
+
+// Class to hold the night event odds, loaded from events.properties
+// Each line is "group.id = weight, effect, label". Weights are relative
+// within a group, so new (e.g. regional) events can be added without
+// touching the others. Each group is compiled into an AliasSampler, so a
+// nightly roll costs the same however many events there are, and the
+// forecast dialog is written from the same table the rolls use.
+class EventTable {
+    static final int WEATHER = 0;
+    static final int EVENT = 1;
+    static final int DISASTER = 2;
+    private static final String[] GROUP_NAMES = {"weather", "event", "disaster"};
+    private static final String[] GROUP_TITLES = {"Weather", "Events", "Natural Disasters"};
+
+    // Used when events.properties is missing or broken; same as the shipped file
+    private static final String[] DEFAULT_LINES = {
+        "weather.good = 15, GOOD_WEATHER, Good Weather (24-30°C)",
+        "weather.bad = 15, BAD_WEATHER, Bad Weather (<20°C or >35°C)",
+        "weather.neutral = 70, NEUTRAL_WEATHER, Neutral Weather",
+        "event.pests = 10, PEST_INVASION, Pest Invasion",
+        "event.robbery = 3, ROBBERY, Robbery",
+        "event.goodBugs = 7, GOOD_BUGS, Good Bugs",
+        "event.nothing = 80, NOTHING, Nothing",
+        "disaster.drought = 5, DROUGHT, Drought",
+        "disaster.flood = 4, FLOOD, Flood",
+        "disaster.tornado = 1, TORNADO, Tornado",
+        "disaster.nothing = 90, NOTHING, Nothing",
+    };
+
+    private final String[][] keys; // "group.id" of every line
+    private final String[][] labels;
+    private final NightEffect[][] effects;
+    private final int[][] weights;
+    private final AliasSampler[] samplers;
+
+    private EventTable(String[][] keys, String[][] labels, NightEffect[][] effects, int[][] weights) {
+        this.keys = keys;
+        this.labels = labels;
+        this.effects = effects;
+        this.weights = weights;
+        samplers = new AliasSampler[GROUP_NAMES.length];
+        for (int g = 0; g < samplers.length; g++) {
+            samplers[g] = new AliasSampler(weights[g]);
+        }
+    }
+
+    // Load the table from a file, falling back to the built-in odds if that fails
+    public static EventTable load(File file) {
+        if (!file.exists()) {
+            System.out.println("Event table " + file + " not found, using built-in events");
+            return defaults();
+        }
+        try {
+            return parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error loading event table: " + e.getMessage() + ", using built-in events");
+            return defaults();
+        }
+    }
+
+    public static EventTable defaults() {
+        return parse(Arrays.asList(DEFAULT_LINES));
+    }
+
+    public static EventTable parse(List<String> lines) {
+        List<List<String>> groupKeys = new ArrayList<>();
+        List<List<String>> groupLabels = new ArrayList<>();
+        List<List<NightEffect>> groupEffects = new ArrayList<>();
+        List<List<Integer>> groupWeights = new ArrayList<>();
+        for (int g = 0; g < GROUP_NAMES.length; g++) {
+            groupKeys.add(new ArrayList<>());
+            groupLabels.add(new ArrayList<>());
+            groupEffects.add(new ArrayList<>());
+            groupWeights.add(new ArrayList<>());
+        }
+
+        int lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            int dot = line.indexOf('.');
+            String[] values = equals < 0 ? new String[0] : line.substring(equals + 1).split(",", 3);
+            if (dot < 0 || dot > equals || values.length != 3) {
+                throw new IllegalArgumentException("line " + lineNumber + " should be \"group.id = weight, effect, label\"");
+            }
+            int group = Arrays.asList(GROUP_NAMES).indexOf(line.substring(0, dot).trim());
+            if (group < 0) {
+                throw new IllegalArgumentException("line " + lineNumber + " has an unknown group");
+            }
+            NightEffect effect;
+            int weight;
+            try {
+                weight = Integer.parseInt(values[0].trim());
+                effect = NightEffect.valueOf(values[1].trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("line " + lineNumber + " has a bad weight or effect");
+            }
+            if (weight < 0 || !effect.fitsGroup(group)) {
+                throw new IllegalArgumentException("line " + lineNumber + " has a bad weight or effect");
+            }
+            groupKeys.get(group).add(line.substring(0, equals).trim());
+            groupLabels.get(group).add(values[2].trim());
+            groupEffects.get(group).add(effect);
+            groupWeights.get(group).add(weight);
+        }
+
+        String[][] keys = new String[GROUP_NAMES.length][];
+        String[][] labels = new String[GROUP_NAMES.length][];
+        NightEffect[][] effects = new NightEffect[GROUP_NAMES.length][];
+        int[][] weights = new int[GROUP_NAMES.length][];
+        for (int g = 0; g < GROUP_NAMES.length; g++) {
+            keys[g] = groupKeys.get(g).toArray(new String[0]);
+            labels[g] = groupLabels.get(g).toArray(new String[0]);
+            effects[g] = groupEffects.get(g).toArray(new NightEffect[0]);
+            weights[g] = groupWeights.get(g).stream().mapToInt(Integer::intValue).toArray();
+            if (Arrays.stream(weights[g]).sum() <= 0) {
+                throw new IllegalArgumentException("the " + GROUP_NAMES[g] + " group has no events");
+            }
+        }
+        return new EventTable(keys, labels, effects, weights);
+    }
+
+    // Weight of the line with the given "group.id" key
+    public int getWeight(String key) {
+        for (int g = 0; g < keys.length; g++) {
+            for (int e = 0; e < keys[g].length; e++) {
+                if (keys[g][e].equals(key)) {
+                    return weights[g][e];
+                }
+            }
+        }
+        throw new IllegalArgumentException("No event " + key);
+    }
+
+    // Copy of this table with some weights replaced, keyed by "group.id"
+    public EventTable withWeights(Map<String, Integer> newWeights) {
+        int[][] copy = new int[weights.length][];
+        for (int g = 0; g < weights.length; g++) {
+            copy[g] = weights[g].clone();
+        }
+        for (Map.Entry<String, Integer> entry : newWeights.entrySet()) {
+            boolean found = false;
+            for (int g = 0; g < keys.length; g++) {
+                for (int e = 0; e < keys[g].length; e++) {
+                    if (keys[g][e].equals(entry.getKey())) {
+                        copy[g][e] = entry.getValue();
+                        found = true;
+                    }
+                }
+            }
+            if (!found || entry.getValue() < 0) {
+                throw new IllegalArgumentException("Can't set " + entry.getKey() + " to " + entry.getValue());
+            }
+        }
+        return new EventTable(keys, labels, effects, copy);
+    }
+
+    // Hash of every line (key, effect and weight); tables with the same fingerprint roll the same
+    public long fingerprint() {
+        long hash = 0;
+        for (int g = 0; g < keys.length; g++) {
+            for (int e = 0; e < keys[g].length; e++) {
+                hash = RandomStreams.mix64(hash + keys[g][e].hashCode());
+                hash = RandomStreams.mix64(hash + effects[g][e].ordinal());
+                hash = RandomStreams.mix64(hash + weights[g][e]);
+            }
+        }
+        return hash;
+    }
+
+    // Roll tonight's effect for one group (WEATHER, EVENT or DISASTER)
+    public NightEffect roll(int group, RandomGenerator random) {
+        return effects[group][samplers[group].sample(random)];
+    }
+
+    // Text for the event forecast dialog
+    public String describe() {
+        StringBuilder message = new StringBuilder("Odds in the event table:\n");
+        for (int g = 0; g < GROUP_NAMES.length; g++) {
+            message.append("\n").append(GROUP_TITLES[g]).append(":\n");
+            int total = Arrays.stream(weights[g]).sum();
+            for (int e = 0; e < labels[g].length; e++) {
+                message.append("- ").append(labels[g][e]).append(": ")
+                    .append(formatPercent(weights[g][e] * 100.0 / total)).append("\n");
+            }
+        }
+        return message.toString();
+    }
+
+    private static String formatPercent(double percent) {
+        if (percent == Math.rint(percent)) {
+            return (int) percent + "%";
+        }
+        return String.format("%.1f%%", percent);
+    }
+}
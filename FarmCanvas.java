@@ -0,0 +1,398 @@
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.swing.*;
+
+// Component that draws the whole farm and lets the player click tiles to select them
+// It's one component however big the farm is: it paints only the tiles inside
+// the clip (the part of the viewport being repainted), finds the clicked tile
+// from the coordinates and repaints single tiles as they change. Put it in a
+// JScrollPane to scroll; Ctrl + mouse wheel or Ctrl +/- zooms, Ctrl 0 fits
+// the farm to the window again. Small farms are zoomed to fill the window.
+class FarmCanvas extends JComponent implements Scrollable {
+    static final int TILE = 64;               // Tile size in pixels at zoom 1
+    private static final int GAP = 2;
+    private static final int PITCH = TILE + GAP;
+    private static final int MARGIN = 10;
+    static final double MIN_ZOOM = 1 / 16.0;
+    static final double MAX_ZOOM = 4;
+    private static final double ZOOM_STEP = 1.25;
+    private static final double DETAIL_ZOOM = 0.375; // Below this tiles are plain squares (no plants or borders)
+
+    // Tile colors by CropStage ordinal: soil, seed, seedling, growing, mature, dead
+    static final Color[] STAGE_COLORS = {
+        new Color(200, 180, 150), new Color(120, 100, 80), new Color(150, 220, 150),
+        new Color(100, 180, 100), new Color(220, 220, 100), new Color(150, 100, 80),
+    };
+    private static final Color FARM_COLOR = new Color(180, 120, 70);
+    private static final Color WATERED_OVERLAY = new Color(100, 100, 255, 50);
+    private static final Color[] WATERED_COLORS = blend(STAGE_COLORS, WATERED_OVERLAY); // Stage colors under the overlay
+    private static final Color SELECTED_BORDER = new Color(255, 100, 100);
+    private static final Color PROTECTED_BORDER = new Color(100, 255, 100);
+    private static final Color SEEDLING_PLANT = new Color(0, 120, 0);
+    private static final Color PLANT = new Color(0, 100, 0);
+    private static final Color COB = new Color(240, 240, 100);
+    private static final Stroke PROTECTED_STROKE =
+        new BasicStroke(2.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
+
+    private static final CropStage[] STAGES = CropStage.values();
+
+    private final FarmGrid farmGrid;
+    private final int columns;
+    private final int rows;
+    private double zoom = 1;
+    private boolean fitting = true; // Zoom follows the window size until the player zooms
+
+    public FarmCanvas(FarmGrid farmGrid, int columns) {
+        this.farmGrid = farmGrid;
+        this.columns = columns;
+        this.rows = (farmGrid.size() + columns - 1) / columns;
+        setOpaque(true);
+        setBackground(FARM_COLOR);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = tileAt(e.getX(), e.getY());
+                if (index >= 0 && SwingUtilities.isLeftMouseButton(e)) {
+                    farmGrid.setSelected(index, !farmGrid.isSelected(index));
+                    repaintTile(index);
+                }
+            }
+        });
+        addMouseWheelListener(this::mouseWheelMoved);
+
+        bindKey("ctrl EQUALS", "zoomIn", () -> zoomBy(ZOOM_STEP, viewCenter()));
+        bindKey("ctrl PLUS", "zoomIn", () -> zoomBy(ZOOM_STEP, viewCenter()));
+        bindKey("ctrl ADD", "zoomIn", () -> zoomBy(ZOOM_STEP, viewCenter()));
+        bindKey("ctrl MINUS", "zoomOut", () -> zoomBy(1 / ZOOM_STEP, viewCenter()));
+        bindKey("ctrl SUBTRACT", "zoomOut", () -> zoomBy(1 / ZOOM_STEP, viewCenter()));
+        bindKey("ctrl 0", "fit", () -> {
+            fitting = true;
+            fitToViewport();
+        });
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    // Set the zoom (1 = 64-pixel tiles), keeping the given point of the view where it is
+    public void setZoom(double newZoom, Point anchor) {
+        newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+        if (newZoom == zoom) {
+            return;
+        }
+        JViewport viewport = getViewport();
+        double modelX = toModelX(anchor.x);
+        double modelY = toModelY(anchor.y);
+        Point viewPosition = viewport != null ? viewport.getViewPosition() : new Point();
+        zoom = newZoom;
+
+        // Resize right away so the viewport can be moved to the new coordinates
+        Dimension size = getPreferredSize();
+        if (viewport != null) {
+            size.width = Math.max(size.width, viewport.getWidth());
+            size.height = Math.max(size.height, viewport.getHeight());
+        }
+        setSize(size);
+        revalidate();
+        if (viewport != null) {
+            int x = (int) Math.round(originX() + modelX * zoom) - (anchor.x - viewPosition.x);
+            int y = (int) Math.round(originY() + modelY * zoom) - (anchor.y - viewPosition.y);
+            x = Math.max(0, Math.min(x, size.width - viewport.getWidth()));
+            y = Math.max(0, Math.min(y, size.height - viewport.getHeight()));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    // Index of the tile at a point of the component, or -1 for the gaps and margins
+    public int tileAt(int x, int y) {
+        double modelX = toModelX(x) - MARGIN;
+        double modelY = toModelY(y) - MARGIN;
+        if (modelX < 0 || modelY < 0) {
+            return -1;
+        }
+        int column = (int) (modelX / PITCH);
+        int row = (int) (modelY / PITCH);
+        if (column >= columns || row >= rows || modelX - column * PITCH >= TILE || modelY - row * PITCH >= TILE) {
+            return -1;
+        }
+        int index = row * columns + column;
+        return index < farmGrid.size() ? index : -1;
+    }
+
+    // Where a tile is drawn, in component coordinates
+    public Rectangle tileBounds(int index) {
+        int x = (int) Math.floor(originX() + (MARGIN + (index % columns) * PITCH) * zoom);
+        int y = (int) Math.floor(originY() + (MARGIN + (index / columns) * PITCH) * zoom);
+        int size = (int) Math.ceil(TILE * zoom) + 1;
+        return new Rectangle(x, y, size, size);
+    }
+
+    public void repaintTile(int index) {
+        Rectangle bounds = tileBounds(index);
+        repaint(bounds.x - 1, bounds.y - 1, bounds.width + 2, bounds.height + 2);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension((int) Math.ceil(modelWidth() * zoom), (int) Math.ceil(modelHeight() * zoom));
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        JViewport viewport = getViewport();
+        if (viewport != null) {
+            viewport.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    if (fitting) {
+                        fitToViewport();
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only the rows and columns that overlap the clip
+        int firstColumn = Math.max(0, (int) Math.floor((toModelX(clip.x) - MARGIN) / PITCH));
+        int lastColumn = Math.min(columns - 1, (int) Math.floor((toModelX(clip.x + clip.width) - MARGIN) / PITCH));
+        int firstRow = Math.max(0, (int) Math.floor((toModelY(clip.y) - MARGIN) / PITCH));
+        int lastRow = Math.min(rows - 1, (int) Math.floor((toModelY(clip.y + clip.height) - MARGIN) / PITCH));
+        if (firstColumn > lastColumn || firstRow > lastRow) {
+            return;
+        }
+
+        // Tiles are filled in pixels; plants and borders are drawn in unzoomed tile coordinates
+        double originX = originX();
+        double originY = originY();
+        Graphics2D model = (Graphics2D) g.create();
+        try {
+            model.translate(originX, originY);
+            model.scale(zoom, zoom);
+            boolean detail = zoom >= DETAIL_ZOOM;
+            Rectangle tile = new Rectangle(); // Reused for every tile
+            for (int row = firstRow; row <= lastRow; row++) {
+                int index = row * columns + firstColumn;
+                int modelY = MARGIN + row * PITCH;
+                int y = (int) Math.round(originY + modelY * zoom);
+                int height = (int) Math.round(originY + (modelY + TILE) * zoom) - y;
+                for (int column = firstColumn; column <= lastColumn && index < farmGrid.size(); column++, index++) {
+                    int modelX = MARGIN + column * PITCH;
+                    int x = (int) Math.round(originX + modelX * zoom);
+                    int width = (int) Math.round(originX + (modelX + TILE) * zoom) - x;
+                    tile.setBounds(x, y, Math.max(1, width), Math.max(1, height));
+                    paintTile(g, model, index, modelX, modelY, tile, detail);
+                }
+            }
+        } finally {
+            model.dispose();
+        }
+    }
+
+    // Zoomed far out a tile is one opaque square (with a red outline if it's selected)
+    private void paintTile(Graphics g, Graphics2D model, int index, int modelX, int modelY, Rectangle tile,
+                           boolean detail) {
+        int word = farmGrid.getStateWord(index);
+        CropStage stage = STAGES[word & FarmGrid.STAGE_MASK];
+        boolean watered = (word & FarmGrid.WATERED) != 0;
+        if (!detail) {
+            g.setColor(watered ? WATERED_COLORS[stage.ordinal()] : STAGE_COLORS[stage.ordinal()]);
+            g.fillRect(tile.x, tile.y, tile.width, tile.height);
+            if ((word & FarmGrid.SELECTED) != 0) {
+                g.setColor(SELECTED_BORDER);
+                g.drawRect(tile.x, tile.y, tile.width - 1, tile.height - 1);
+            }
+            return;
+        }
+
+        g.setColor(STAGE_COLORS[stage.ordinal()]);
+        g.fillRect(tile.x, tile.y, tile.width, tile.height);
+        if (stage != CropStage.EMPTY && stage != CropStage.DEAD) {
+            drawCrop(model, stage, modelX + TILE / 2, modelY + TILE);
+        }
+        if (watered) {
+            g.setColor(WATERED_OVERLAY);
+            g.fillRect(tile.x, tile.y, tile.width, tile.height);
+        }
+        if ((word & FarmGrid.SELECTED) != 0) {
+            model.setColor(SELECTED_BORDER);
+            model.drawRect(modelX + 1, modelY + 1, TILE - 3, TILE - 3);
+            model.drawRect(modelX + 2, modelY + 2, TILE - 5, TILE - 5);
+        }
+        if ((word & FarmGrid.PROTECTED) != 0) {
+            model.setColor(PROTECTED_BORDER);
+            Stroke oldStroke = model.getStroke();
+            model.setStroke(PROTECTED_STROKE);
+            model.drawRect(modelX + 3, modelY + 3, TILE - 7, TILE - 7);
+            model.setStroke(oldStroke);
+        }
+        g.setColor(Color.BLACK);
+        g.drawRect(tile.x, tile.y, tile.width - 1, tile.height - 1);
+    }
+
+    // The plant for each stage, drawn up from the bottom middle of the tile
+    private static void drawCrop(Graphics g, CropStage stage, int centerX, int bottom) {
+        switch (stage) {
+            case SEED:
+                g.setColor(Color.BLACK);
+                g.fillOval(centerX - 3, bottom - 10, 6, 6);
+                break;
+
+            case SEEDLING:
+                g.setColor(SEEDLING_PLANT);
+                g.fillRect(centerX - 1, bottom - 20, 2, 15);
+                g.fillOval(centerX - 5, bottom - 25, 10, 10);
+                break;
+
+            case GROWING:
+                g.setColor(PLANT);
+                g.fillRect(centerX - 2, bottom - 30, 4, 25);
+                g.fillOval(centerX - 10, bottom - 35, 8, 15);
+                g.fillOval(centerX + 2, bottom - 30, 8, 15);
+                g.fillOval(centerX - 8, bottom - 25, 8, 15);
+                break;
+
+            case MATURE:
+                g.setColor(PLANT);
+                g.fillRect(centerX - 2, bottom - 40, 4, 35);
+                g.fillOval(centerX - 15, bottom - 40, 12, 20);
+                g.fillOval(centerX + 3, bottom - 45, 12, 20);
+                g.fillOval(centerX - 12, bottom - 30, 10, 15);
+                g.setColor(COB);
+                g.fillOval(centerX - 3, bottom - 35, 8, 20);
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    // Scrollable: scroll a tile at a time, a screen at a time with the track
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return Math.max(1, (int) Math.round(PITCH * zoom));
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int visible = orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+        return Math.max(1, visible - getScrollableUnitIncrement(visibleRect, orientation, direction));
+    }
+
+    // Stretch to the viewport when the farm is smaller than it (the farm is then centered)
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        JViewport viewport = getViewport();
+        return viewport != null && viewport.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        JViewport viewport = getViewport();
+        return viewport != null && viewport.getHeight() > getPreferredSize().height;
+    }
+
+    private void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+            zoomBy(Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()), e.getPoint());
+        } else if (getParent() != null) {
+            // Having a wheel listener stops the event reaching the scroll pane, so pass it on
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+        }
+    }
+
+    private void zoomBy(double factor, Point anchor) {
+        fitting = false;
+        setZoom(zoom * factor, anchor);
+    }
+
+    // Zoom so the whole farm fits the viewport (within the zoom limits)
+    private void fitToViewport() {
+        JViewport viewport = getViewport();
+        if (viewport == null || viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+            return;
+        }
+        double fit = Math.min(viewport.getWidth() / modelWidth(), viewport.getHeight() / modelHeight());
+        setZoom(fit, new Point(0, 0));
+    }
+
+    private void bindKey(String keyStroke, String name, Runnable action) {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(keyStroke), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+
+    // Each color with a translucent overlay already blended in, for painting it in one opaque fill
+    private static Color[] blend(Color[] colors, Color overlay) {
+        double alpha = overlay.getAlpha() / 255.0;
+        Color[] blended = new Color[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            Color color = colors[i];
+            blended[i] = new Color(
+                (int) Math.round(color.getRed() + (overlay.getRed() - color.getRed()) * alpha),
+                (int) Math.round(color.getGreen() + (overlay.getGreen() - color.getGreen()) * alpha),
+                (int) Math.round(color.getBlue() + (overlay.getBlue() - color.getBlue()) * alpha));
+        }
+        return blended;
+    }
+
+    private Point viewCenter() {
+        Rectangle visible = getVisibleRect();
+        return new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+    }
+
+    private JViewport getViewport() {
+        return getParent() instanceof JViewport ? (JViewport) getParent() : null;
+    }
+
+    private double modelWidth() {
+        return 2 * MARGIN + columns * PITCH - GAP;
+    }
+
+    private double modelHeight() {
+        return 2 * MARGIN + rows * PITCH - GAP;
+    }
+
+    // Top left of the farm; it's centered when the component is bigger than the farm
+    private double originX() {
+        return Math.max(0, (getWidth() - modelWidth() * zoom) / 2);
+    }
+
+    private double originY() {
+        return Math.max(0, (getHeight() - modelHeight() * zoom) / 2);
+    }
+
+    private double toModelX(int x) {
+        return (x - originX()) / zoom;
+    }
+
+    private double toModelY(int y) {
+        return (y - originY()) / zoom;
+    }
+}
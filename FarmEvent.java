@@ -0,0 +1,61 @@
+// Things that can happen to the farm overnight, published on the EventBus
+// Listeners subscribe to the record types they care about, e.g. Flood.class,
+// or to FarmEvent.class to hear about everything.
+sealed interface FarmEvent {
+    // Text shown to the player in the night events dialog
+    String message();
+
+    record Weather(boolean good) implements FarmEvent {
+        public String message() {
+            return good ? "Good weather today! Crops grew faster." : "Bad weather today! Crops grew slower.";
+        }
+    }
+
+    record DroughtStarted(int days) implements FarmEvent {
+        public String message() {
+            return "Drought has started! No water available for " + days + " days.";
+        }
+    }
+
+    record DroughtContinues(int daysLeft) implements FarmEvent {
+        public String message() {
+            return "Drought continues! No water available for " + daysLeft + " more days.";
+        }
+    }
+
+    record DroughtEnded() implements FarmEvent {
+        public String message() {
+            return "The drought has ended!";
+        }
+    }
+
+    record PestInvasion(int destroyed) implements FarmEvent {
+        public String message() {
+            return "Pest invasion! " + destroyed + " crops were destroyed.";
+        }
+    }
+
+    record Robbery(int percentage) implements FarmEvent {
+        public String message() {
+            return "Robbery! Lost " + percentage + "% of your inventory and money.";
+        }
+    }
+
+    record GoodBugs() implements FarmEvent {
+        public String message() {
+            return "Good bugs visited! Crops grew faster.";
+        }
+    }
+
+    record Flood(int destroyed) implements FarmEvent {
+        public String message() {
+            return "Flood! " + destroyed + " crops were destroyed.";
+        }
+    }
+
+    record Tornado() implements FarmEvent {
+        public String message() {
+            return "Tornado! All crops and inventory were lost!";
+        }
+    }
+}
@@ -0,0 +1,450 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Class to manage the state of every farm tile
+// Tiles are kept packed in a ChunkedFarmStore (stage and flags bit-packed into one int)
+class FarmGrid {
+    // Layout of a tile's state word: crop stage in the low 3 bits, flags above it,
+    // and the crop's planting epoch (see ModifierTimeline) in the top 25 bits
+    static final int STAGE_MASK = 0x7;
+    static final int WATERED = 1 << 3;
+    static final int FERTILIZED = 1 << 4;
+    static final int PROTECTED = 1 << 5;
+    static final int SELECTED = 1 << 6;
+    static final int EPOCH_SHIFT = 7;
+
+    private static final CropStage[] STAGES = CropStage.values();
+    private static final int EMPTY = CropStage.EMPTY.ordinal();
+    private static final int DEAD = CropStage.DEAD.ordinal();
+
+    private final ChunkedFarmStore store;
+    private final TileIndex tileIndex;
+    private final FarmStats stats;
+    private final ModifierTimeline timeline;
+    private final int size;
+    private long growthSeed; // Seed for the per-tile survival rolls
+    private long growthTick; // Number of times the whole farm has grown
+    private GrowthKernel.Mode growthMode = GrowthKernel.DEFAULT_MODE;
+
+    public FarmGrid(int size) {
+        this(new ChunkedFarmStore(size));
+    }
+
+    // Run the farm on top of tiles that are already in a store (e.g. a loaded save)
+    public FarmGrid(ChunkedFarmStore store) {
+        this.store = store;
+        this.size = store.size();
+        tileIndex = new TileIndex(size);
+        tileIndex.rebuild(store);
+        stats = new FarmStats();
+        stats.rebuild(store);
+        timeline = new ModifierTimeline();
+        growthSeed = 0;
+        growthTick = 0;
+    }
+
+    // Independent in-memory copy of the whole farm, for what-if simulations
+    public FarmGrid copy() {
+        return new FarmGrid(this, store.copy());
+    }
+
+    private FarmGrid(FarmGrid other, ChunkedFarmStore store) {
+        this.store = store;
+        this.size = other.size;
+        tileIndex = new TileIndex(other.tileIndex);
+        stats = new FarmStats(other.stats);
+        timeline = new ModifierTimeline(other.timeline);
+        growthSeed = other.growthSeed;
+        growthTick = other.growthTick;
+        growthMode = other.growthMode;
+    }
+
+    // Put a copy of source back the way source is, for reusing one scratch
+    // copy across many what-if runs. Only the chunks written since the copy
+    // (or the last reset) are rewritten, so this costs what the run changed
+    // rather than the size of the farm. Source must not have changed since.
+    public void resetTo(FarmGrid source) {
+        for (int chunk = 0; chunk < store.chunkCount(); chunk++) {
+            if (store.isWritten(chunk)) {
+                store.resetChunk(chunk, source.store);
+                int from = chunk << ChunkedFarmStore.CHUNK_BITS;
+                tileIndex.copyRange(source.tileIndex, from, from + store.chunkLength(chunk));
+            }
+        }
+        stats.copyFrom(source.stats);
+        timeline.copyFrom(source.timeline);
+        growthSeed = source.growthSeed;
+        growthTick = source.growthTick;
+        growthMode = source.growthMode;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Get the bitmap indexes for bulk queries like "all mature tiles"
+    public TileIndex getTileIndex() {
+        return tileIndex;
+    }
+
+    // Get the running totals (stage counts, live crops, ...) for the farm
+    public FarmStats getStats() {
+        return stats;
+    }
+
+    // Get a lightweight view of a single tile
+    public CropTile tile(int index) {
+        return new CropTile(this, index);
+    }
+
+    public CropStage getStage(int index) {
+        return STAGES[store.getState(index) & STAGE_MASK];
+    }
+
+    public void setStage(int index, CropStage stage) {
+        writeState(index, (store.getState(index) & ~STAGE_MASK) | stage.ordinal());
+    }
+
+    public boolean isEmpty(int index) {
+        return (store.getState(index) & STAGE_MASK) == EMPTY;
+    }
+
+    public boolean isDead(int index) {
+        return (store.getState(index) & STAGE_MASK) == DEAD;
+    }
+
+    public boolean isMature(int index) {
+        return getStage(index) == CropStage.MATURE;
+    }
+
+    // A live crop is anything planted that hasn't died yet
+    public boolean isLive(int index) {
+        int stage = store.getState(index) & STAGE_MASK;
+        return stage != EMPTY && stage != DEAD;
+    }
+
+    public void plant(int index) {
+        if (isEmpty(index)) {
+            int word = store.getState(index) & ~(STAGE_MASK | (-1 << EPOCH_SHIFT));
+            writeState(index, word | CropStage.SEED.ordinal() | (timeline.plantEpoch() << EPOCH_SHIFT));
+            writeGrowthProgress(index, 0);
+        }
+    }
+
+    public void water(int index) {
+        setFlag(index, WATERED, true);
+    }
+
+    public void applyFertilizer(int index) {
+        setFlag(index, FERTILIZED, true);
+    }
+
+    public void harvest(int index) {
+        // Clear the stage and all crop flags, but keep the selection
+        writeState(index, (store.getState(index) & SELECTED) | EMPTY);
+        writeGrowthProgress(index, 0);
+    }
+
+    // Speed up every live crop on the farm (weather, good bugs, ...)
+    // This doesn't visit any tiles, the timeline applies it as crops grow
+    public void accelerateAllLive(int days) {
+        timeline.addToAll(days, 0);
+    }
+
+    // Slow down every live crop on the farm
+    public void delayAllLive(int days) {
+        timeline.addToAll(0, days);
+    }
+
+    // Speed up one crop only (effects that hit part of the farm)
+    public void accelerateGrowth(int index, int days) {
+        store.setGrowthAcceleration(index, saturate(store.getGrowthAcceleration(index) + days));
+    }
+
+    // Slow down one crop only
+    public void delayGrowth(int index, int days) {
+        store.setGrowthDelay(index, saturate(store.getGrowthDelay(index) + days));
+    }
+
+    public void grow(int index) {
+        int word = store.getState(index);
+        int stage = word & STAGE_MASK;
+        if (stage == EMPTY || stage == DEAD) {
+            return;
+        }
+
+        // If not watered, chance to die
+        if ((word & WATERED) == 0) {
+            if (RandomStreams.roll(growthSeed, growthTick, index, 100) < 40) { // 40% chance to die without water
+                writeState(index, (word & ~STAGE_MASK) | DEAD);
+                return;
+            }
+        }
+
+        // Calculate growth amount
+        int growthAmount = (word & FERTILIZED) != 0 ? 20 : 10; // Fertilizer doubles growth rate
+
+        // Apply growth acceleration/delay, from this tile's own counters or farm-wide effects
+        timeline.prepare();
+        int mode = timeline.modeOf(word >>> EPOCH_SHIFT);
+        int acceleration = store.getGrowthAcceleration(index);
+        if (acceleration > 0 || (mode & ModifierTimeline.ACCELERATED) != 0) {
+            growthAmount *= 2; // Double growth rate
+            if (acceleration > 0) {
+                store.setGrowthAcceleration(index, acceleration - 1);
+            }
+        }
+        int delay = store.getGrowthDelay(index);
+        if (delay > 0 || (mode & ModifierTimeline.DELAYED) != 0) {
+            growthAmount = 0; // No growth
+            if (delay > 0) {
+                store.setGrowthDelay(index, delay - 1);
+            }
+        }
+
+        // Add growth
+        int progress = Math.min(store.getGrowthProgress(index) + growthAmount, Short.MAX_VALUE);
+        writeGrowthProgress(index, progress);
+
+        // Update stage based on growth progress
+        if (progress >= 100) {
+            stage = CropStage.MATURE.ordinal();
+        } else if (progress >= 70) {
+            stage = CropStage.GROWING.ordinal();
+        } else if (progress >= 30) {
+            stage = CropStage.SEEDLING.ordinal();
+        }
+
+        // Reset watered status and fertilizer effect (one-time use) for next day
+        writeState(index, (word & ~(STAGE_MASK | WATERED | FERTILIZED)) | stage);
+    }
+
+    // Grow every tile, streaming through the chunks in order
+    public void growAll() {
+        timeline.prepare();
+        growRange(0, size);
+        timeline.advance();
+        growthTick++;
+    }
+
+    // Grow every tile, splitting the farm into ranges across the engine's threads
+    // when there are enough live crops to be worth it
+    public void growAll(DayTickEngine engine) {
+        timeline.prepare();
+        engine.forEachRange(size, stats.getLiveCount(), this::growRange);
+        timeline.advance();
+        growthTick++;
+    }
+
+    // Grow the tiles in [from, to) a chunk at a time, skipping chunks without
+    // live crops (nothing else changes overnight)
+    public void growRange(int from, int to) {
+        TileBitmap live = tileIndex.live();
+        for (int start = from; start < to; ) {
+            int chunk = start >>> ChunkedFarmStore.CHUNK_BITS;
+            int base = chunk << ChunkedFarmStore.CHUNK_BITS;
+            int end = Math.min(to, base + ChunkedFarmStore.CHUNK_SIZE);
+            int first = live.nextSetBit(start, end);
+            if (first >= 0) {
+                if (growthMode != GrowthKernel.Mode.OFF) {
+                    store.beforeWrite(first, end); // The kernel writes the chunk's arrays directly
+                    GrowthKernel.growRange(growthMode, store.chunk(chunk), base, tileIndex, stats, timeline,
+                        growthSeed, growthTick, first, end);
+                } else {
+                    for (int i = first; i >= 0; i = live.nextSetBit(i + 1, end)) {
+                        grow(i);
+                    }
+                }
+            }
+            start = end;
+        }
+    }
+
+    // Wipe every tile in [from, to) back to empty soil
+    public void clearRange(int from, int to) {
+        for (int start = from; start < to; ) {
+            int chunk = start >>> ChunkedFarmStore.CHUNK_BITS;
+            int end = Math.min(to, (chunk + 1) << ChunkedFarmStore.CHUNK_BITS);
+            if (store.chunk(chunk) != null) { // Missing chunks are empty soil already
+                for (int i = start; i < end; i++) {
+                    setStage(i, CropStage.EMPTY);
+                }
+            }
+            start = end;
+        }
+    }
+
+    // Pick how growAll runs (see GrowthKernel for the default)
+    void setGrowthMode(GrowthKernel.Mode growthMode) {
+        this.growthMode = growthMode;
+    }
+
+    public void setGrowthSeed(long growthSeed) {
+        this.growthSeed = growthSeed;
+    }
+
+    public long getGrowthTick() {
+        return growthTick;
+    }
+
+    public void setGrowthTick(long growthTick) {
+        this.growthTick = growthTick;
+    }
+
+    public int getGrowthProgress(int index) {
+        return store.getGrowthProgress(index);
+    }
+
+    // Raw packed state word (stage and flags), for saving and paging tiles
+    public int getStateWord(int index) {
+        return store.getState(index);
+    }
+
+    public int getGrowthDelay(int index) {
+        return store.getGrowthDelay(index);
+    }
+
+    public int getGrowthAcceleration(int index) {
+        return store.getGrowthAcceleration(index);
+    }
+
+    public boolean isWatered(int index) {
+        return (store.getState(index) & WATERED) != 0;
+    }
+
+    public boolean isFertilized(int index) {
+        return (store.getState(index) & FERTILIZED) != 0;
+    }
+
+    public boolean isProtected(int index) {
+        return (store.getState(index) & PROTECTED) != 0;
+    }
+
+    public void setProtected(int index, boolean isProtected) {
+        setFlag(index, PROTECTED, isProtected);
+    }
+
+    public boolean isSelected(int index) {
+        return (store.getState(index) & SELECTED) != 0;
+    }
+
+    public void setSelected(int index, boolean selected) {
+        setFlag(index, SELECTED, selected);
+    }
+
+    private void setFlag(int index, int flag, boolean on) {
+        int word = store.getState(index);
+        writeState(index, on ? word | flag : word & ~flag);
+    }
+
+    // Every state change goes through here so the indexes stay in sync
+    private void writeState(int index, int newState) {
+        int oldState = store.getState(index);
+        if (oldState != newState) {
+            store.setState(index, newState);
+            tileIndex.update(index, oldState, newState);
+            stats.update(oldState, newState);
+        }
+    }
+
+    private void writeGrowthProgress(int index, int progress) {
+        stats.addGrowthProgress(progress - store.getGrowthProgress(index));
+        store.setGrowthProgress(index, progress);
+    }
+
+    // Write every tile, the growth clock and the modifier timeline, for a saved game
+    // Tile selection isn't saved
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(growthSeed);
+        out.writeLong(growthTick);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(store.getState(i) & ~SELECTED);
+            out.writeShort(store.getGrowthProgress(i));
+            out.writeByte(store.getGrowthDelay(i));
+            out.writeByte(store.getGrowthAcceleration(i));
+        }
+        timeline.save(out);
+    }
+
+    // Read a farm written by save into a new in-memory grid
+    public static FarmGrid load(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Bad farm size " + size);
+        }
+        long growthSeed = in.readLong();
+        long growthTick = in.readLong();
+        ChunkedFarmStore store = new ChunkedFarmStore(size);
+        for (int i = 0; i < size; i++) {
+            store.setState(i, in.readInt());
+            store.setGrowthProgress(i, in.readShort());
+            store.setGrowthDelay(i, in.readByte());
+            store.setGrowthAcceleration(i, in.readByte());
+        }
+        FarmGrid grid = new FarmGrid(store);
+        grid.growthSeed = growthSeed;
+        grid.growthTick = growthTick;
+        grid.timeline.load(in);
+        return grid;
+    }
+
+    // Write just the growth clock and modifier timeline, for save formats
+    // that keep the tiles separately (see GameSnapshot)
+    public void saveClock(DataOutput out) throws IOException {
+        out.writeLong(growthSeed);
+        out.writeLong(growthTick);
+        timeline.save(out);
+    }
+
+    // Build a grid around tiles that were already loaded into a store,
+    // then read the growth clock and timeline written by saveClock
+    public static FarmGrid restore(ChunkedFarmStore store, DataInput clock) throws IOException {
+        FarmGrid grid = new FarmGrid(store);
+        grid.growthSeed = clock.readLong();
+        grid.growthTick = clock.readLong();
+        grid.timeline.load(clock);
+        return grid;
+    }
+
+    // Everything saved about a tile packed into one long (state without
+    // selection, growth progress, delay, acceleration); 0 is an untouched empty tile
+    public long packedTile(int index) {
+        return pack(store.getState(index), store.getGrowthProgress(index), store.getGrowthDelay(index),
+            store.getGrowthAcceleration(index));
+    }
+
+    static long pack(int state, int growthProgress, int growthDelay, int growthAcceleration) {
+        return ((long) (state & ~SELECTED) << 32)
+            | ((long) (growthProgress & 0xFFFF) << 16)
+            | ((growthDelay & 0xFF) << 8)
+            | (growthAcceleration & 0xFF);
+    }
+
+    // Freeze the tiles as they are now, for writing out on another thread
+    // Chunks are copied on write while it's open (see TileSnapshot)
+    public TileSnapshot snapshotTiles() {
+        return store.freeze();
+    }
+
+    // Chunks of the farm that currently take memory
+    public int getAllocatedChunks() {
+        return store.getAllocatedChunks();
+    }
+
+    // Hash of every tile (stage, flags, growth counters) and the growth clock
+    // Selection is left out, it's only the player pointing at tiles
+    public long checksum() {
+        long hash = RandomStreams.mix64(size) ^ growthTick;
+        for (int i = 0; i < size; i++) {
+            hash = RandomStreams.mix64(hash + packedTile(i));
+        }
+        return hash;
+    }
+
+    // Clamp day counters so they fit in a byte
+    private static int saturate(int days) {
+        return Math.max(0, Math.min(days, Byte.MAX_VALUE));
+    }
+}
@@ -0,0 +1,341 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Actions the player can take on a farm tile
+enum ActionType {
+    NONE,
+    PLANT,
+    WATER,
+    HARVEST,
+    FERTILIZE,
+    PROTECT
+}
+
+// Class to run the game itself: money, inventory, the farm and the day cycle
+// Nothing here touches AWT or Swing, so the same game can be driven by the
+// CornHarvestGame window, by a bot, or headless at thousands of days a second.
+class FarmSimulation {
+    static final int INITIAL_MONEY = 500;
+    static final int INITIAL_LAND_SIZE = 4; // 4x4 farm, unless the player picks another size
+    static final int MAX_LAND_SIZE = 4096;  // 16M tiles
+    static final int CORN_VALUE = 30; // Money for harvesting one mature crop (at normal difficulty)
+
+    private int money;
+    private int day;
+    private FarmGrid farmGrid;
+    private Inventory inventory;
+    private RandomStreams randomStreams;
+    private final SimRandom inventoryRandom;
+    private final SimRandom eventRandom;
+    private final DayTickEngine dayTickEngine;
+    private EventSystem eventSystem;
+    private final DifficultyProfile difficulty;
+    private GameRecorder[] recorders = new GameRecorder[0]; // Replay log, save journal, ...
+
+    public FarmSimulation(long gameSeed) {
+        this(gameSeed, new DayTickEngine(), EventTable.defaults(), new EventBus());
+    }
+
+    public FarmSimulation(long gameSeed, DayTickEngine dayTickEngine, EventTable eventTable, EventBus eventBus) {
+        this(gameSeed, dayTickEngine, eventTable, DifficultyProfile.standard(DifficultyProfile.DEFAULT_NAME), eventBus);
+    }
+
+    // Start a game the way the game window does: difficulty from difficulty.properties
+    // and night events from events.properties adjusted for it
+    public static FarmSimulation withSettings(long gameSeed, String difficultyName, DayTickEngine dayTickEngine,
+                                              EventBus eventBus) {
+        return withSettings(gameSeed, difficultyName, INITIAL_LAND_SIZE, dayTickEngine, eventBus);
+    }
+
+    // Same, on a landSize x landSize farm
+    public static FarmSimulation withSettings(long gameSeed, String difficultyName, int landSize,
+                                              DayTickEngine dayTickEngine, EventBus eventBus) {
+        DifficultyProfile profile = DifficultyProfile.load(new File("difficulty.properties"), difficultyName);
+        return new FarmSimulation(gameSeed, landSize, dayTickEngine,
+            profile.adjust(EventTable.load(new File("events.properties"))), profile, eventBus);
+    }
+
+    // Start a game whose randomness is fully determined by the seed
+    // The event table is used as given, so apply the difficulty to it first (DifficultyProfile.adjust)
+    public FarmSimulation(long gameSeed, DayTickEngine dayTickEngine, EventTable eventTable,
+                          DifficultyProfile difficulty, EventBus eventBus) {
+        this(gameSeed, INITIAL_LAND_SIZE, dayTickEngine, eventTable, difficulty, eventBus);
+    }
+
+    // Same, on a landSize x landSize farm
+    public FarmSimulation(long gameSeed, int landSize, DayTickEngine dayTickEngine, EventTable eventTable,
+                          DifficultyProfile difficulty, EventBus eventBus) {
+        if (landSize < 1 || landSize > MAX_LAND_SIZE) {
+            throw new IllegalArgumentException("Farm size " + landSize + " isn't between 1 and " + MAX_LAND_SIZE);
+        }
+        this.difficulty = difficulty;
+        money = difficulty.getStartingMoney();
+        day = 1;
+        randomStreams = new RandomStreams(gameSeed);
+        inventoryRandom = randomStreams.stream("inventory");
+        eventRandom = randomStreams.stream("events");
+        inventory = new Inventory(inventoryRandom);
+
+        // Initialize farm with empty tiles
+        farmGrid = new FarmGrid(landSize * landSize);
+        farmGrid.setGrowthSeed(randomStreams.seedFor("growth"));
+
+        // Add initial items to inventory
+        inventory.addItem(ItemType.SEED, 10);
+        inventory.addItem(ItemType.FERTILIZER, 3);
+        inventory.addItem(ItemType.BUG_KILLER, 2);
+
+        // Initialize event system, sharing the day tick engine with crop growth
+        this.dayTickEngine = dayTickEngine;
+        eventSystem = new EventSystem(eventRandom, dayTickEngine, eventTable, eventBus);
+    }
+
+    private FarmSimulation(FarmSimulation other) {
+        money = other.money;
+        day = other.day;
+        difficulty = other.difficulty;
+        dayTickEngine = other.dayTickEngine;
+        randomStreams = other.randomStreams;
+        inventoryRandom = new SimRandom(other.inventoryRandom.getState());
+        eventRandom = new SimRandom(other.eventRandom.getState());
+        farmGrid = other.farmGrid.copy();
+        inventory = other.inventory.copy(inventoryRandom);
+        eventSystem = other.eventSystem.copy(eventRandom, new EventBus());
+    }
+
+    // Independent copy of the whole game, random streams included, so it plays
+    // out exactly like this one would. Copies have no event listeners.
+    public FarmSimulation copy() {
+        return new FarmSimulation(this);
+    }
+
+    // Put a copy of source back the way source is, so one scratch copy can be
+    // reused for many what-if runs instead of copying the game each time (see
+    // FarmGrid.resetTo). Source must not have changed since it was copied.
+    public void resetTo(FarmSimulation source) {
+        money = source.money;
+        day = source.day;
+        randomStreams = source.randomStreams;
+        inventoryRandom.setState(source.inventoryRandom.getState());
+        eventRandom.setState(source.eventRandom.getState());
+        farmGrid.resetTo(source.farmGrid);
+        inventory = source.inventory.copy(inventoryRandom);
+        eventSystem = source.eventSystem.copy(eventRandom, eventSystem.getEventBus());
+    }
+
+    // Swap in fresh randomness from another seed, so the nights ahead play out
+    // differently (e.g. one of many what-if futures of a copied game)
+    public void reseed(long seed) {
+        randomStreams = new RandomStreams(seed);
+        inventoryRandom.setState(randomStreams.seedFor("inventory"));
+        eventRandom.setState(randomStreams.seedFor("events"));
+        farmGrid.setGrowthSeed(randomStreams.seedFor("growth"));
+    }
+
+    // Write the whole game: difficulty, seed, money, day, random streams, inventory, events and farm
+    public void save(DataOutput out) throws IOException {
+        saveState(out);
+        inventory.save(out);
+        eventSystem.save(out);
+        farmGrid.save(out);
+    }
+
+    // Read a game written by save; the difficulty and event odds come from the settings files
+    public static FarmSimulation load(DataInput in, DayTickEngine dayTickEngine, EventBus eventBus) throws IOException {
+        FarmSimulation simulation = loadState(in, dayTickEngine, eventBus);
+        simulation.inventory.load(in);
+        simulation.eventSystem.load(in);
+        simulation.farmGrid = FarmGrid.load(in);
+        return simulation;
+    }
+
+    // Write just the game's own state (difficulty, seed, money, day, random streams),
+    // for save formats that keep the inventory, events and farm separately
+    public void saveState(DataOutput out) throws IOException {
+        out.writeUTF(difficulty.getName());
+        out.writeLong(randomStreams.getGameSeed());
+        out.writeInt(money);
+        out.writeInt(day);
+        out.writeLong(inventoryRandom.getState());
+        out.writeLong(eventRandom.getState());
+    }
+
+    // Start a game from what saveState wrote; load the rest into getInventory(),
+    // getEventSystem() and setFarmGrid
+    public static FarmSimulation loadState(DataInput in, DayTickEngine dayTickEngine, EventBus eventBus)
+            throws IOException {
+        String difficultyName = in.readUTF();
+        FarmSimulation simulation = withSettings(in.readLong(), difficultyName, dayTickEngine, eventBus);
+        simulation.money = in.readInt();
+        simulation.day = in.readInt();
+        simulation.inventoryRandom.setState(in.readLong());
+        simulation.eventRandom.setState(in.readLong());
+        return simulation;
+    }
+
+    // Swap in a loaded farm (only while loading, before anyone holds on to the old one)
+    void setFarmGrid(FarmGrid farmGrid) {
+        this.farmGrid = farmGrid;
+    }
+
+    // Send every action, purchase and night from now on to a recorder
+    // Copies of the game are never recorded
+    public void addRecorder(GameRecorder recorder) {
+        recorders = Arrays.copyOf(recorders, recorders.length + 1);
+        recorders[recorders.length - 1] = recorder;
+    }
+
+    public void removeRecorder(GameRecorder recorder) {
+        recorders = Arrays.stream(recorders).filter(r -> r != recorder).toArray(GameRecorder[]::new);
+    }
+
+    // Do an action on one tile; returns false if it didn't apply (wrong tile, missing items)
+    public boolean applyAction(ActionType action, int index) {
+        boolean applied = doAction(action, index);
+        if (applied) {
+            for (GameRecorder recorder : recorders) {
+                recorder.action(action, index);
+            }
+        }
+        return applied;
+    }
+
+    private boolean doAction(ActionType action, int index) {
+        switch (action) {
+            case PLANT:
+                if (farmGrid.isEmpty(index) && inventory.useItem(ItemType.SEED, 1)) {
+                    farmGrid.plant(index);
+                    return true;
+                }
+                return false;
+
+            case WATER:
+                if (farmGrid.isLive(index)) {
+                    farmGrid.water(index);
+                    return true;
+                }
+                return false;
+
+            case HARVEST:
+                if (farmGrid.isMature(index)) {
+                    // Harvest mature corn for money
+                    money += difficulty.getCornValue();
+                    farmGrid.harvest(index);
+                    return true;
+                }
+                return false;
+
+            case FERTILIZE:
+                if (farmGrid.isLive(index) && inventory.useItem(ItemType.FERTILIZER, 1)) {
+                    farmGrid.applyFertilizer(index);
+                    return true;
+                }
+                return false;
+
+            case PROTECT:
+                if (farmGrid.isLive(index) && inventory.useItem(ItemType.BUG_KILLER, 1)) {
+                    farmGrid.setProtected(index, true);
+                    return true;
+                }
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    // Buy items from the shop; returns false (and buys nothing) if it costs too much
+    public boolean buy(ItemType type, int quantity) {
+        int cost = getPrice(type) * quantity;
+        if (quantity <= 0 || cost > money) {
+            return false;
+        }
+        inventory.addItem(type, quantity);
+        money -= cost;
+        for (GameRecorder recorder : recorders) {
+            recorder.buy(type, quantity);
+        }
+        return true;
+    }
+
+    // Sleep: run the night's events, grow the crops and start the next day
+    // The returned report is reused, so it's only valid until the next call
+    public NightReport advanceDay() {
+        NightReport report = eventSystem.processNightEvents(farmGrid, inventory);
+        farmGrid.growAll(dayTickEngine);
+        day++;
+        if (recorders.length > 0) {
+            long checksum = checksum();
+            for (GameRecorder recorder : recorders) {
+                recorder.sleep(checksum);
+            }
+        }
+        return report;
+    }
+
+    // Hash of the whole game state (money, day, inventory, random streams, drought, every tile)
+    // Two games with the same checksum play on identically; tile selection is left out
+    public long checksum() {
+        long hash = RandomStreams.mix64(money) ^ day;
+        for (ItemType type : ItemType.values()) {
+            hash = RandomStreams.mix64(hash + inventory.getItemCount(type));
+        }
+        hash = RandomStreams.mix64(hash ^ inventoryRandom.getState());
+        hash = RandomStreams.mix64(hash ^ eventRandom.getState());
+        hash = RandomStreams.mix64(hash + eventSystem.getDroughtDaysRemaining());
+        return RandomStreams.mix64(hash ^ farmGrid.checksum());
+    }
+
+    public boolean isWon() {
+        return GameStateChecker.checkWinCondition(money);
+    }
+
+    public boolean isLost() {
+        return GameStateChecker.checkLossCondition(money, farmGrid, getPrice(ItemType.SEED));
+    }
+
+    public boolean isGameOver() {
+        return isWon() || isLost();
+    }
+
+    // Shop price of an item at this difficulty
+    public int getPrice(ItemType type) {
+        return difficulty.getPrice(type);
+    }
+
+    public DifficultyProfile getDifficulty() {
+        return difficulty;
+    }
+
+    public int getMoney() {
+        return money;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    // Width of the farm, which is square (rounded up if a loaded farm isn't)
+    public int getLandSize() {
+        return (int) Math.ceil(Math.sqrt(farmGrid.size()));
+    }
+
+    public FarmGrid getFarmGrid() {
+        return farmGrid;
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public EventSystem getEventSystem() {
+        return eventSystem;
+    }
+
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Running totals over the farm, kept up to date on every tile change
+// Reading any of these is constant time no matter how big the farm is.
+// The counters are LongAdders because tiles in different DayTickEngine
+// ranges change at the same time during a parallel day tick.
+class FarmStats {
+    private final LongAdder[] stageCounts;
+    private final LongAdder liveCount;
+    private final LongAdder wateredCount;    // Live crops that are watered
+    private final LongAdder protectedCount;  // Live crops protected by bug killer
+    private final LongAdder totalGrowthProgress;
+
+    public FarmStats() {
+        stageCounts = new LongAdder[CropStage.values().length];
+        for (int s = 0; s < stageCounts.length; s++) {
+            stageCounts[s] = new LongAdder();
+        }
+        liveCount = new LongAdder();
+        wateredCount = new LongAdder();
+        protectedCount = new LongAdder();
+        totalGrowthProgress = new LongAdder();
+    }
+
+    // Independent copy of the current totals
+    public FarmStats(FarmStats other) {
+        this();
+        for (int s = 0; s < stageCounts.length; s++) {
+            stageCounts[s].add(other.stageCounts[s].sum());
+        }
+        liveCount.add(other.liveCount.sum());
+        wateredCount.add(other.wateredCount.sum());
+        protectedCount.add(other.protectedCount.sum());
+        totalGrowthProgress.add(other.totalGrowthProgress.sum());
+    }
+
+    // Make every total the same as other's
+    public void copyFrom(FarmStats other) {
+        for (int s = 0; s < stageCounts.length; s++) {
+            set(stageCounts[s], other.stageCounts[s]);
+        }
+        set(liveCount, other.liveCount);
+        set(wateredCount, other.wateredCount);
+        set(protectedCount, other.protectedCount);
+        set(totalGrowthProgress, other.totalGrowthProgress);
+    }
+
+    private static void set(LongAdder count, LongAdder other) {
+        count.reset();
+        count.add(other.sum());
+    }
+
+    // Record that a tile's state word changed from oldState to newState
+    public void update(int oldState, int newState) {
+        int oldStage = oldState & FarmGrid.STAGE_MASK;
+        int newStage = newState & FarmGrid.STAGE_MASK;
+        if (oldStage != newStage) {
+            stageCounts[oldStage].decrement();
+            stageCounts[newStage].increment();
+        }
+
+        boolean wasLive = isLiveStage(oldStage);
+        boolean isLive = isLiveStage(newStage);
+        if (wasLive != isLive) {
+            liveCount.add(isLive ? 1 : -1);
+        }
+        addFlagChange(wateredCount, wasLive, isLive, oldState, newState, FarmGrid.WATERED);
+        addFlagChange(protectedCount, wasLive, isLive, oldState, newState, FarmGrid.PROTECTED);
+    }
+
+    // Add changes that were counted over many tiles at once (see VectorGrowthKernel)
+    public void addCounts(int[] stageDeltas, int liveDelta, int wateredDelta, int protectedDelta) {
+        for (int s = 0; s < stageCounts.length; s++) {
+            addIfChanged(stageCounts[s], stageDeltas[s]);
+        }
+        addIfChanged(liveCount, liveDelta);
+        addIfChanged(wateredCount, wateredDelta);
+        addIfChanged(protectedCount, protectedDelta);
+    }
+
+    // Record that a tile's growth progress changed by delta
+    public void addGrowthProgress(int delta) {
+        if (delta != 0) {
+            totalGrowthProgress.add(delta);
+        }
+    }
+
+    // Recount everything from scratch, e.g. after opening a saved farm
+    public void rebuild(FarmStore store) {
+        for (LongAdder count : stageCounts) {
+            count.reset();
+        }
+        liveCount.reset();
+        wateredCount.reset();
+        protectedCount.reset();
+        totalGrowthProgress.reset();
+
+        // Count every tile as if it had changed from empty soil
+        int empty = CropStage.EMPTY.ordinal();
+        stageCounts[empty].add(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            update(empty, store.getState(i));
+            addGrowthProgress(store.getGrowthProgress(i));
+        }
+    }
+
+    public int getStageCount(CropStage stage) {
+        return stageCounts[stage.ordinal()].intValue();
+    }
+
+    public int getLiveCount() {
+        return liveCount.intValue();
+    }
+
+    public int getWateredCount() {
+        return wateredCount.intValue();
+    }
+
+    public int getProtectedCount() {
+        return protectedCount.intValue();
+    }
+
+    public long getTotalGrowthProgress() {
+        return totalGrowthProgress.sum();
+    }
+
+    // A flag only counts while the crop it's on is alive
+    private static void addFlagChange(LongAdder count, boolean wasLive, boolean isLive,
+                                      int oldState, int newState, int flag) {
+        boolean had = wasLive && (oldState & flag) != 0;
+        boolean has = isLive && (newState & flag) != 0;
+        if (had != has) {
+            count.add(has ? 1 : -1);
+        }
+    }
+
+    private static void addIfChanged(LongAdder count, int delta) {
+        if (delta != 0) {
+            count.add(delta);
+        }
+    }
+
+    private static boolean isLiveStage(int stage) {
+        return stage != CropStage.EMPTY.ordinal() && stage != CropStage.DEAD.ordinal();
+    }
+}
@@ -0,0 +1,25 @@
+// Interface for the raw storage behind a FarmGrid
+// Each tile is a packed state word (stage + flags), its growth progress and
+// its growth delay/acceleration day counters. FarmGrid does all of the game
+// logic on top of this, so CropTile, EventSystem and GameStateChecker never
+// touch the storage directly. ChunkedFarmStore, on the heap, is the only
+// backend (saves are GameSnapshot files, not a mapped store).
+interface FarmStore {
+    int size();
+
+    int getState(int index);
+
+    void setState(int index, int state);
+
+    int getGrowthProgress(int index);
+
+    void setGrowthProgress(int index, int progress);
+
+    int getGrowthDelay(int index);
+
+    void setGrowthDelay(int index, int days);
+
+    int getGrowthAcceleration(int index);
+
+    void setGrowthAcceleration(int index, int days);
+}
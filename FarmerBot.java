@@ -0,0 +1,309 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// AI farmer that plans each day with Monte Carlo tree search
+// A day's move is a plan: always harvest, plant and water like the greedy
+// strategy, and optionally fertilize, protect and restock supplies. To judge
+// a move the bot resets its copy of the game (FarmSimulation.resetTo, which
+// only rewrites what the last rollout changed), gives it other random nights
+// (FarmSimulation.reseed), plays the move and a few more days through a
+// search tree, then plays greedy to the horizon and scores the result. The
+// tree is open-loop (nodes are move sequences, not game states), and several
+// independent trees run on a ForkJoinPool with their visit counts added up.
+class FarmerBot implements Strategy {
+    // Parts of a day's plan
+    static final int FERTILIZE = 1;  // Fertilize every live crop that isn't yet
+    static final int PROTECT = 2;    // Put bug killer on every unprotected crop
+    static final int RESTOCK = 4;    // Buy fertilizer / bug killer when out of it
+    static final int[] MOVES = buildMoves();
+
+    static final int DEFAULT_ITERATIONS = 2000;
+    static final int DEFAULT_HORIZON = 10;
+    private static final double EXPLORATION = 1.4;
+    private static final int FUTURES = 64; // Nights ahead are drawn from this many seeds per tree
+    private static final int FUTURE_HARVESTS = 1; // Dead tiles never come back, so a live one is also worth its next crop
+
+    private final int iterations;   // Rollouts per decision, across all trees
+    private final int horizon;      // Days looked ahead
+    private final int trees;
+    private final ForkJoinPool pool;
+    private long nextSeed;          // Seeds for the simulated futures
+    private long rollouts;
+
+    public FarmerBot() {
+        this(DEFAULT_ITERATIONS, DEFAULT_HORIZON, ForkJoinPool.getCommonPoolParallelism(), ForkJoinPool.commonPool(), 0);
+    }
+
+    public FarmerBot(int iterations, int horizon, int trees, ForkJoinPool pool, long seed) {
+        this.iterations = iterations;
+        this.horizon = horizon;
+        this.trees = Math.max(1, trees);
+        this.pool = pool;
+        this.nextSeed = seed;
+    }
+
+    public void playDay(FarmSimulation simulation) {
+        applyMove(simulation, chooseMove(simulation));
+    }
+
+    // Search from the current state and return the best move (one of MOVES)
+    public int chooseMove(FarmSimulation simulation) {
+        FarmSimulation root = simulation.copy();
+        List<SearchTask> tasks = new ArrayList<>();
+        for (int t = 0; t < trees; t++) {
+            int share = iterations / trees + (t < iterations % trees ? 1 : 0);
+            tasks.add(new SearchTask(root, share, nextSeed));
+            nextSeed += FUTURES;
+        }
+
+        for (SearchTask task : tasks) {
+            pool.execute(task);
+        }
+        long[] visits = new long[MOVES.length];
+        for (SearchTask task : tasks) {
+            Node tree = task.join();
+            for (int m = 0; m < MOVES.length; m++) {
+                if (tree.children[m] != null) {
+                    visits[m] += tree.children[m].visits;
+                }
+            }
+            rollouts += task.iterations;
+        }
+
+        int best = 0;
+        for (int m = 1; m < MOVES.length; m++) {
+            if (visits[m] > visits[best]) {
+                best = m;
+            }
+        }
+        return MOVES[best];
+    }
+
+    // Total rollouts played so far
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    // Carry out one day's plan, the way a player would
+    static void applyMove(FarmSimulation simulation, int move) {
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        Inventory inventory = simulation.getInventory();
+
+        for (int i = tileIndex.nextMature(0); i >= 0; i = tileIndex.nextMature(i + 1)) {
+            simulation.applyAction(ActionType.HARVEST, i);
+        }
+        TileBitmap empty = tileIndex.stage(CropStage.EMPTY);
+        for (int i = empty.nextSetBit(0); i >= 0; i = empty.nextSetBit(i + 1)) {
+            if (!inventory.hasItem(ItemType.SEED) && !simulation.buy(ItemType.SEED, 1)) {
+                break;
+            }
+            simulation.applyAction(ActionType.PLANT, i);
+        }
+        for (int i = tileIndex.nextUnwatered(0); i >= 0; i = tileIndex.nextUnwatered(i + 1)) {
+            simulation.applyAction(ActionType.WATER, i);
+        }
+        if ((move & FERTILIZE) != 0) {
+            TileBitmap live = tileIndex.live();
+            for (int i = live.nextSetBit(0, tileIndex.fertilized(), true); i >= 0;
+                     i = live.nextSetBit(i + 1, tileIndex.fertilized(), true)) {
+                if (!supply(simulation, ItemType.FERTILIZER, move)) {
+                    break;
+                }
+                simulation.applyAction(ActionType.FERTILIZE, i);
+            }
+        }
+        if ((move & PROTECT) != 0) {
+            for (int i = tileIndex.nextUnprotected(0); i >= 0; i = tileIndex.nextUnprotected(i + 1)) {
+                if (!supply(simulation, ItemType.BUG_KILLER, move)) {
+                    break;
+                }
+                simulation.applyAction(ActionType.PROTECT, i);
+            }
+        }
+    }
+
+    // Player-facing description of a move, for the in-game hint
+    static String describeMove(int move) {
+        StringBuilder text = new StringBuilder("Harvest what's ripe, plant every empty tile, water everything");
+        if ((move & FERTILIZE) != 0) {
+            text.append((move & RESTOCK) != 0 ? ", fertilize every crop (buy more if you can spare it)" : ", use your fertilizer");
+        }
+        if ((move & PROTECT) != 0) {
+            text.append((move & RESTOCK) != 0 ? ", protect every crop (buy bug killer if you can spare it)" : ", use your bug killer");
+        }
+        return text.append(".").toString();
+    }
+
+    // Use one from the inventory, or buy one if restocking, always keeping
+    // enough money back to replant every crop the farm has now
+    private static boolean supply(FarmSimulation simulation, ItemType type, int move) {
+        if (simulation.getInventory().hasItem(type)) {
+            return true;
+        }
+        int reserve = simulation.getPrice(ItemType.SEED) * simulation.getFarmGrid().getStats().getLiveCount();
+        return (move & RESTOCK) != 0 && simulation.getMoney() - simulation.getPrice(type) >= reserve
+            && simulation.buy(type, 1);
+    }
+
+    // Every combination of plan parts; restocking only matters with fertilize or protect
+    private static int[] buildMoves() {
+        List<Integer> moves = new ArrayList<>();
+        for (int move = 0; move < 8; move++) {
+            if ((move & RESTOCK) == 0 || (move & (FERTILIZE | PROTECT)) != 0) {
+                moves.add(move);
+            }
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // One node of an open-loop search tree (a sequence of moves from the root)
+    private static class Node {
+        final Node[] children = new Node[MOVES.length];
+        int tried;      // Children are expanded in order, so these are children[0 .. tried-1]
+        long visits;
+        double totalValue;
+    }
+
+    // Grow one search tree from the root with its own run of seeds
+    private class SearchTask extends RecursiveTask<Node> {
+        private final FarmSimulation root;
+        private final int iterations;
+        private final long firstSeed;
+        private double minValue = Double.MAX_VALUE;
+        private double maxValue = -Double.MAX_VALUE;
+
+        SearchTask(FarmSimulation root, int iterations, long firstSeed) {
+            this.root = root;
+            this.iterations = iterations;
+            this.firstSeed = firstSeed;
+        }
+
+        @Override
+        protected Node compute() {
+            Node tree = new Node();
+            Node[] path = new Node[horizon + 1];
+            GreedyStrategy rolloutPolicy = new GreedyStrategy();
+            FarmSimulation simulation = root.copy(); // This tree's scratch game
+            for (int n = 0; n < iterations; n++) {
+                if (n > 0) {
+                    simulation.resetTo(root);
+                }
+                // Cycling through a fixed set of futures means every move is
+                // judged against the same weather, so luck mostly cancels out
+                simulation.reseed(firstSeed + n % FUTURES);
+
+                // Walk down the tree, adding one new node
+                Node node = tree;
+                int depth = 0;
+                path[depth] = node;
+                while (depth < horizon && !simulation.isGameOver()) {
+                    int m;
+                    boolean expanded = false;
+                    if (node.tried < MOVES.length) {
+                        m = node.tried++;
+                        node.children[m] = new Node();
+                        expanded = true;
+                    } else {
+                        m = select(node);
+                    }
+                    applyMove(simulation, MOVES[m]);
+                    simulation.advanceDay();
+                    node = node.children[m];
+                    path[++depth] = node;
+                    if (expanded) {
+                        break;
+                    }
+                }
+
+                // Play the rest of the horizon greedily
+                for (int d = depth; d < horizon && !simulation.isGameOver(); d++) {
+                    rolloutPolicy.playDay(simulation);
+                    simulation.advanceDay();
+                }
+
+                double value = evaluate(simulation);
+                minValue = Math.min(minValue, value);
+                maxValue = Math.max(maxValue, value);
+                for (int d = 0; d <= depth; d++) {
+                    path[d].visits++;
+                    path[d].totalValue += value;
+                }
+            }
+            return tree;
+        }
+
+        // UCB1 with values scaled to [0, 1] by the range seen so far
+        private int select(Node node) {
+            double range = Math.max(1e-9, maxValue - minValue);
+            double logVisits = Math.log(node.visits);
+            int best = 0;
+            double bestScore = -Double.MAX_VALUE;
+            for (int m = 0; m < MOVES.length; m++) {
+                Node child = node.children[m];
+                double mean = (child.totalValue / child.visits - minValue) / range;
+                double score = mean + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (score > bestScore) {
+                    best = m;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+    }
+
+    // How good a (simulated) position is: money plus what the crops are worth
+    // (supplies count for nothing, the shop doesn't buy them back)
+    private static double evaluate(FarmSimulation simulation) {
+        if (simulation.isWon()) {
+            return simulation.getMoney() + 10000 - simulation.getDay() * 10;
+        }
+        if (simulation.isLost()) {
+            return simulation.getMoney() - 10000;
+        }
+        // A growing crop is worth what its seed cost plus its share of the harvest so far,
+        // and keeping the tile alive is worth another harvest after that
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        int cornValue = simulation.getDifficulty().getCornValue();
+        int seedPrice = simulation.getPrice(ItemType.SEED);
+        double value = simulation.getMoney();
+        for (int i = tileIndex.nextLive(0); i >= 0; i = tileIndex.nextLive(i + 1)) {
+            value += seedPrice + Math.min(farmGrid.getGrowthProgress(i), 100) / 100.0 * (cornValue - seedPrice);
+            value += FUTURE_HARVESTS * (cornValue - seedPrice);
+        }
+        return value;
+    }
+
+    // Usage: java -Djava.awt.headless=true FarmerBot [games] [iterations] [horizon] [maxDays]
+    // Plays the bot and the greedy strategy on the same seeds and compares them
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        int horizon = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_HORIZON;
+        int maxDays = args.length > 3 ? Integer.parseInt(args[3]) : MonteCarloRunner.DEFAULT_MAX_DAYS;
+
+        MonteCarloRunner runner = new MonteCarloRunner();
+        GameSummary greedy = runner.playGames(GreedyStrategy::new, 0, games, maxDays);
+
+        GameSummary bot = new GameSummary(maxDays);
+        FarmerBot farmer = new FarmerBot(iterations, horizon, ForkJoinPool.getCommonPoolParallelism(),
+            ForkJoinPool.commonPool(), 1L << 40);
+        long start = System.nanoTime();
+        for (long seed = 0; seed < games; seed++) {
+            FarmSimulation simulation = new FarmSimulation(seed);
+            MonteCarloRunner.playGame(simulation, farmer, maxDays);
+            bot.record(simulation);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Greedy:");
+        System.out.print(greedy.describe());
+        System.out.println("Farmer bot (" + iterations + " rollouts of " + horizon + " days per decision):");
+        System.out.print(bot.describe());
+        System.out.printf("%d rollouts in %.1f s (%.0f rollouts/s)%n", farmer.getRollouts(), seconds,
+            farmer.getRollouts() / seconds);
+    }
+}
@@ -0,0 +1,85 @@
+import java.awt.*;
+import java.util.List;
+import javax.swing.*;
+
+// Event forecast dialog: what tonight could do to this farm
+// Nights are simulated in batches by a SwingWorker on a snapshot of the game
+// and the text is refreshed after every batch, so the forecast sharpens while
+// the dialog is open. The event table's own odds are shown underneath.
+// Closing the dialog cancels the work; the EDT only ever takes the snapshot
+// and shows results.
+class ForecastDialog extends JDialog {
+    private static final int BATCH_NIGHTS = 250;
+    private static final int MAX_NIGHTS = 20000;
+
+    private final JTextArea forecastText;
+    private final String tableOdds; // What the simulated chances are drawn from
+    private final JProgressBar progressBar;
+    private final SwingWorker<NightForecast, NightForecast> worker;
+
+    public ForecastDialog(JFrame parent, FarmSimulation simulation) {
+        super(parent, "Event Forecast", true);
+        setSize(420, 420);
+        setLocationRelativeTo(parent);
+        setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+        tableOdds = simulation.getEventSystem().getEventTable().describe();
+        forecastText = new JTextArea("Simulating tonight...");
+        forecastText.setEditable(false);
+        forecastText.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        progressBar = new JProgressBar(0, MAX_NIGHTS);
+        progressBar.setStringPainted(true);
+        JButton closeButton = new JButton("Go to Sleep");
+        closeButton.addActionListener(e -> dispose());
+
+        JPanel bottomPanel = new JPanel(new BorderLayout(10, 0));
+        bottomPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+        bottomPanel.add(progressBar, BorderLayout.CENTER);
+        bottomPanel.add(closeButton, BorderLayout.EAST);
+        add(new JScrollPane(forecastText), BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        worker = createWorker(simulation.copy(),
+            simulation.getRandomStreams().seedFor("forecast") + simulation.getDay() * (long) MAX_NIGHTS);
+    }
+
+    // Start forecasting and show the dialog (blocks like any modal dialog until closed)
+    public void showForecast() {
+        worker.execute();
+        setVisible(true);
+    }
+
+    @Override
+    public void dispose() {
+        worker.cancel(false);
+        super.dispose();
+    }
+
+    private SwingWorker<NightForecast, NightForecast> createWorker(FarmSimulation snapshot, long firstSeed) {
+        return new SwingWorker<NightForecast, NightForecast>() {
+            @Override
+            protected NightForecast doInBackground() {
+                NightForecast total = new NightForecast(snapshot);
+                FarmSimulation night = snapshot.copy(); // Reset to the snapshot for every night
+                while (total.getNights() < MAX_NIGHTS && !isCancelled()) {
+                    total.simulate(snapshot, night, firstSeed + total.getNights(), BATCH_NIGHTS);
+
+                    // Publish a copy, the worker keeps adding to total
+                    NightForecast published = new NightForecast(snapshot);
+                    published.merge(total);
+                    publish(published);
+                }
+                return total;
+            }
+
+            @Override
+            protected void process(List<NightForecast> forecasts) {
+                // Only the newest forecast matters
+                NightForecast latest = forecasts.get(forecasts.size() - 1);
+                forecastText.setText(latest.describe() + "\n" + tableOdds);
+                forecastText.setCaretPosition(0);
+                progressBar.setValue((int) latest.getNights());
+            }
+        };
+    }
+}
@@ -1,29 +1,22 @@
-import java.util.ArrayList;
 import javax.swing.*;
 
 // Game actions controller to handle tile actions
 class GameActionsController {
     private CornHarvestGame game;
-    private ArrayList<FarmTilePanel> tilePanels;
+    private FarmSimulation simulation;
+    private FarmGrid farmGrid;
+    private FarmCanvas farmCanvas; // Null when there's nothing to repaint
     private ActionType currentAction;
     
-    enum ActionType {
-        NONE,
-        PLANT,
-        WATER,
-        HARVEST,
-        FERTILIZE,
-        PROTECT
-    }
-    
-    public GameActionsController(CornHarvestGame game) {
+    public GameActionsController(CornHarvestGame game, FarmSimulation simulation) {
         this.game = game;
-        this.tilePanels = new ArrayList<>();
+        this.simulation = simulation;
+        this.farmGrid = simulation.getFarmGrid();
         this.currentAction = ActionType.NONE;
     }
     
-    public void addTilePanel(FarmTilePanel panel) {
-        tilePanels.add(panel);
+    public void setFarmCanvas(FarmCanvas farmCanvas) {
+        this.farmCanvas = farmCanvas;
     }
     
     public void setAction(ActionType action) {
@@ -35,63 +28,13 @@ class GameActionsController {
     }
     
     // Execute the current action on selected tiles
-    public int executeAction(Inventory inventory) {
-        int actionCount = 0;
-        int moneyEarned = 0;
-        
-        for (FarmTilePanel panel : tilePanels) {
-            if (panel.isSelected()) {
-                CropTile tile = panel.getTile();
-                
-                switch (currentAction) {
-                    case PLANT:
-                        if (tile.isEmpty() && inventory.useItem(ItemType.SEED, 1)) {
-                            tile.plant();
-                            actionCount++;
-                        }
-                        break;
-                        
-                    case WATER:
-                        if (!tile.isEmpty() && !tile.isDead()) {
-                            tile.water();
-                            actionCount++;
-                        }
-                        break;
-                        
-                    case HARVEST:
-                        if (tile.isMature()) {
-                            // Harvest mature corn for money
-                            int cornValue = 30; // Base value for corn
-                            moneyEarned += cornValue;
-                            tile.harvest();
-                            actionCount++;
-                        }
-                        break;
-                        
-                    case FERTILIZE:
-                        if (!tile.isEmpty() && !tile.isDead() && inventory.useItem(ItemType.FERTILIZER, 1)) {
-                            tile.applyFertilizer();
-                            actionCount++;
-                        }
-                        break;
-                        
-                    case PROTECT:
-                        if (!tile.isEmpty() && !tile.isDead() && inventory.useItem(ItemType.BUG_KILLER, 1)) {
-                            tile.setProtected(true);
-                            actionCount++;
-                        }
-                        break;
-                }
-                
-                // Update the tile visual
-                panel.update();
-                
-                // Deselect the tile after action
-                panel.setSelected(false);
-            }
-        }
+    // Returns the money earned (from harvesting)
+    public int executeAction() {
+        int moneyBefore = simulation.getMoney();
+        int actionCount = applyToSelected();
         
         // Return the action result
+        int moneyEarned = simulation.getMoney() - moneyBefore;
         if (actionCount > 0) {
             String message = "";
             switch (currentAction) {
@@ -125,9 +68,57 @@ class GameActionsController {
         }
     }
     
+    // Apply the current action to every selected tile and deselect it
+    // Returns how many tiles it applied to (everything executeAction does but the message)
+    int applyToSelected() {
+        int actionCount = 0;
+        
+        // Only visit the selected tiles
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        for (int i = tileIndex.nextSelected(0); i >= 0; i = tileIndex.nextSelected(i + 1)) {
+            if (simulation.applyAction(currentAction, i)) {
+                actionCount++;
+            }
+            
+            // Deselect the tile after action and update its visual
+            setSelected(i, false);
+        }
+        return actionCount;
+    }
+    
     public void deselectAll() {
-        for (FarmTilePanel panel : tilePanels) {
-            panel.setSelected(false);
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        for (int i = tileIndex.nextSelected(0); i >= 0; i = tileIndex.nextSelected(i + 1)) {
+            setSelected(i, false);
+        }
+    }
+    
+    // Select every crop that is ready to harvest
+    public int selectHarvestable() {
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        int count = 0;
+        for (int i = tileIndex.nextMature(0); i >= 0; i = tileIndex.nextMature(i + 1)) {
+            setSelected(i, true);
+            count++;
+        }
+        return count;
+    }
+    
+    // Select every live crop that hasn't been watered yet today
+    public int selectNeedsWater() {
+        TileIndex tileIndex = farmGrid.getTileIndex();
+        int count = 0;
+        for (int i = tileIndex.nextUnwatered(0); i >= 0; i = tileIndex.nextUnwatered(i + 1)) {
+            setSelected(i, true);
+            count++;
+        }
+        return count;
+    }
+    
+    private void setSelected(int index, boolean selected) {
+        farmGrid.setSelected(index, selected);
+        if (farmCanvas != null) {
+            farmCanvas.repaintTile(index);
         }
     }
 }
\ No newline at end of file
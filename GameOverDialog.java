@@ -62,7 +62,7 @@ class GameOverDialog extends JDialog {
         playAgainButton.addActionListener(e -> {
             dispose();
             parentFrame.dispose();
-            SwingUtilities.invokeLater(() -> new CornHarvestGame());
+            SwingUtilities.invokeLater(() -> new CornHarvestGame(StartMenu.getDifficulty(), StartMenu.getLandSize()));
         });
         
         exitButton.addActionListener(e -> {
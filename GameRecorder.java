@@ -0,0 +1,10 @@
+// Something that follows a game as it's played, e.g. a replay log or the save journal
+// FarmSimulation calls these after each change that applied, in order.
+interface GameRecorder {
+    void action(ActionType action, int tile);
+
+    void buy(ItemType type, int quantity);
+
+    // The night has passed; checksum is FarmSimulation.checksum() for the morning after
+    void sleep(long checksum);
+}
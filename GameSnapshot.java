@@ -0,0 +1,330 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Class to write and read a full snapshot of a game
+// Version 2 (what gets written):
+//   int magic "CHSV", int version 2, long generation, int section count,
+//   then a table with one entry per section: int id, long offset, int length, int CRC32,
+//   then the sections themselves:
+//     STATE      difficulty, seed, money, day, random streams (FarmSimulation.saveState)
+//     INVENTORY  item counts (Inventory.save)
+//     EVENTS     temperature, drought and timers (EventSystem.save)
+//     FARM       growth clock and modifier timeline (FarmGrid.saveClock)
+//     TILES      int tile count, then runs of identical tiles: varint run length,
+//                varint packed tile (FarmGrid.packedTile, 0 for an empty tile)
+// Untouched ground is one long run, so a mostly empty farm takes a few bytes
+// however big it is. Each section has its own checksum, and a reader skips
+// section ids it doesn't know, so sections can be added later.
+//
+// Reading maps the file and works straight off the mapped buffer: checksums
+// are computed on it in place and the tile runs are decoded directly into the
+// store's arrays, skipping empty runs (new arrays are already empty).
+//
+// Version 1 (still read, and rewritten as version 2 on the next compaction):
+//   int magic, int version 1, long generation,
+//   the game as written by FarmSimulation.save, then the int CRC32 of that game data
+//
+// A snapshot can be captured on the EDT in well under a millisecond (the
+// tiles are copy-on-write, see TileSnapshot) and written out on another thread.
+// It's written to a temporary file, synced and then renamed over
+// the old one, so there is always one complete snapshot on disk.
+class GameSnapshot {
+    static final int MAGIC = 0x43485356; // "CHSV"
+    static final int VERSION = 2;
+
+    static final int STATE = 1;
+    static final int INVENTORY = 2;
+    static final int EVENTS = 3;
+    static final int FARM = 4;
+    static final int TILES = 5;
+    private static final int[] SECTIONS = {STATE, INVENTORY, EVENTS, FARM, TILES};
+    private static final int HEADER_BYTES = 20;
+    private static final int ENTRY_BYTES = 20;
+
+    private final FarmSimulation simulation;
+    private final long generation;
+
+    private GameSnapshot(FarmSimulation simulation, long generation) {
+        this.simulation = simulation;
+        this.generation = generation;
+    }
+
+    public FarmSimulation getSimulation() {
+        return simulation;
+    }
+
+    // Which snapshot this is; the save journal only replays records of the same generation
+    public long getGeneration() {
+        return generation;
+    }
+
+    // Take everything a snapshot needs at this moment, cheaply enough to do on the EDT:
+    // the small parts are serialized right away and the tiles are frozen copy-on-write
+    public static Capture capture(FarmSimulation simulation) throws IOException {
+        Capture capture = new Capture();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int id : SECTIONS) {
+            if (id != TILES) {
+                writeSection(id, out, simulation);
+                capture.sections[id] = bytes.toByteArray();
+                bytes.reset();
+            }
+        }
+        capture.tiles = simulation.getFarmGrid().snapshotTiles();
+        return capture;
+    }
+
+    public static void write(File file, FarmSimulation simulation, long generation) throws IOException {
+        write(file, capture(simulation), generation);
+    }
+
+    // Write a capture out (on any thread); its tiles are released either way
+    public static void write(File file, Capture capture, long generation) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + SECTIONS.length * ENTRY_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(SECTIONS.length);
+
+            // Sections go after the table, which is filled in as they're written
+            channel.position(header.capacity());
+            CRC32 crc = new CRC32();
+            for (int id : SECTIONS) {
+                long offset = channel.position();
+                crc.reset();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+                if (id == TILES) {
+                    writeTiles(out, capture.tiles);
+                } else {
+                    out.write(capture.sections[id]);
+                }
+                out.flush(); // Not closed, that would close the channel
+                long length = channel.position() - offset;
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot section " + id + " is too big");
+                }
+                header.putInt(id).putLong(offset).putInt((int) length).putInt((int) crc.getValue());
+            }
+
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        } finally {
+            capture.tiles.release();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static GameSnapshot read(File file, DayTickEngine dayTickEngine, EventBus eventBus) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too big to be a saved game");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException(file + " is not a saved game");
+        }
+        int version = buffer.getInt();
+        if (version == 1) {
+            return readVersion1(file, buffer, dayTickEngine, eventBus);
+        }
+        if (version != VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+
+        long generation = buffer.getLong();
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / ENTRY_BYTES) {
+            throw new IOException(file + " is corrupt (bad section table)");
+        }
+        ByteBuffer[] sections = new ByteBuffer[TILES + 1];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            long offset = buffer.getLong();
+            int length = buffer.getInt();
+            int expected = buffer.getInt();
+            if (id <= 0 || id >= sections.length) {
+                continue; // From a newer version, not needed here
+            }
+            if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+                throw new IOException(file + " is corrupt (section " + id + " is out of bounds)");
+            }
+            ByteBuffer section = buffer.duplicate().position((int) offset).limit((int) offset + length).slice();
+            crc.reset();
+            crc.update(section.duplicate());
+            if ((int) crc.getValue() != expected) {
+                throw new IOException(file + " is corrupt (section " + id + " checksum mismatch)");
+            }
+            sections[id] = section;
+        }
+        for (int id : SECTIONS) {
+            if (sections[id] == null) {
+                throw new IOException(file + " is missing section " + id);
+            }
+        }
+
+        FarmSimulation simulation = FarmSimulation.loadState(input(sections[STATE]), dayTickEngine, eventBus);
+        simulation.getInventory().load(input(sections[INVENTORY]));
+        simulation.getEventSystem().load(input(sections[EVENTS]));
+        ChunkedFarmStore store = readTiles(file, sections[TILES]);
+        simulation.setFarmGrid(FarmGrid.restore(store, input(sections[FARM])));
+        return new GameSnapshot(simulation, generation);
+    }
+
+    private static void writeSection(int id, DataOutputStream out, FarmSimulation simulation) throws IOException {
+        switch (id) {
+            case STATE:
+                simulation.saveState(out);
+                break;
+            case INVENTORY:
+                simulation.getInventory().save(out);
+                break;
+            case EVENTS:
+                simulation.getEventSystem().save(out);
+                break;
+            case FARM:
+                simulation.getFarmGrid().saveClock(out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown section " + id);
+        }
+    }
+
+    // Run-length encode the tiles, a chunk at a time
+    private static void writeTiles(DataOutputStream out, TileSnapshot tiles) throws IOException {
+        out.writeInt(tiles.size());
+        long runTile = 0;
+        long runLength = 0;
+        for (int chunk = 0; chunk < tiles.chunkCount(); chunk++) {
+            long[] packed = tiles.take(chunk);
+            int length = tiles.chunkLength(chunk);
+            for (int i = 0; i < length; i++) {
+                if (packed[i] != runTile && runLength > 0) {
+                    ReplayLog.writeVarLong(out, runLength);
+                    ReplayLog.writeVarLong(out, runTile);
+                    runLength = 0;
+                }
+                runTile = packed[i];
+                runLength++;
+            }
+        }
+        if (runLength > 0) {
+            ReplayLog.writeVarLong(out, runLength);
+            ReplayLog.writeVarLong(out, runTile);
+        }
+    }
+
+    // Decode the tile runs from the mapped file straight into a new store's chunks
+    // Runs of untouched ground leave their chunks unmade
+    private static ChunkedFarmStore readTiles(File file, ByteBuffer in) throws IOException {
+        try {
+            int size = in.getInt();
+            if (size < 0) {
+                throw new IOException(file + " has a bad farm size " + size);
+            }
+            ChunkedFarmStore store = new ChunkedFarmStore(size);
+            int start = 0;
+            while (start < size) {
+                long run = readVarLong(in);
+                long tile = readVarLong(in);
+                if (run <= 0 || run > size - start) {
+                    throw new IOException(file + " is corrupt (bad tile run at tile " + start + ")");
+                }
+                int end = start + (int) run;
+                if (tile != 0) {
+                    store.fillTiles(start, end, tile);
+                }
+                start = end;
+            }
+            return store;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is corrupt (tiles cut short)");
+        }
+    }
+
+    // Same encoding as ReplayLog.readVarLong, on a buffer
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is too long");
+    }
+
+    // Version 1 is one checksummed stream in FarmSimulation.save order
+    private static GameSnapshot readVersion1(File file, ByteBuffer buffer, DayTickEngine dayTickEngine,
+            EventBus eventBus) throws IOException {
+        DataInputStream in = input(buffer);
+        long generation = in.readLong();
+        CRC32 crc = new CRC32();
+        FarmSimulation simulation = FarmSimulation.load(
+            new DataInputStream(new CheckedInputStream(in, crc)), dayTickEngine, eventBus);
+        if (in.readInt() != (int) crc.getValue()) {
+            throw new IOException(file + " is corrupt (checksum mismatch)");
+        }
+        return new GameSnapshot(simulation, generation);
+    }
+
+    // A game frozen at one moment, ready to be written by write(File, Capture, long)
+    static class Capture {
+        private final byte[][] sections = new byte[TILES][];
+        private TileSnapshot tiles;
+    }
+
+    private static DataInputStream input(ByteBuffer buffer) {
+        return new DataInputStream(new BufferInputStream(buffer));
+    }
+
+    // Stream over a buffer, for the small sections read with the DataInput loaders
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return length == 0 ? 0 : -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 // Game win/loss conditions checker
 class GameStateChecker {
     private static final int WIN_MONEY_THRESHOLD = 5000;
@@ -9,22 +7,20 @@ class GameStateChecker {
         return money >= WIN_MONEY_THRESHOLD;
     }
     
-    public static boolean checkLossCondition(int money, ArrayList<CropTile> farmTiles) {
+    public static boolean checkLossCondition(int money, FarmGrid farmGrid) {
+        return checkLossCondition(money, farmGrid, ItemType.SEED.getPrice());
+    }
+    
+    // Same, with the seed price of the difficulty being played
+    public static boolean checkLossCondition(int money, FarmGrid farmGrid, int seedPrice) {
         // Check for bankruptcy
         if (money <= BANKRUPTCY_THRESHOLD) {
             return true;
         }
         
         // Check if all crops are dead and no money to buy seeds
-        if (money < ItemType.SEED.getPrice()) {
-            boolean allEmpty = true;
-            for (CropTile tile : farmTiles) {
-                if (!tile.isEmpty() && !tile.isDead()) {
-                    allEmpty = false;
-                    break;
-                }
-            }
-            return allEmpty;
+        if (money < seedPrice) {
+            return farmGrid.getStats().getLiveCount() == 0;
         }
         
         return false;
@@ -0,0 +1,156 @@
+import java.util.Arrays;
+
+// Class to add up the results of many games without keeping each one
+// Everything is counts and sums, so summaries from different threads (or
+// machines) can be merged in any order and give the same totals. Days and
+// final money go into fixed histograms, which is enough for percentiles.
+class GameSummary {
+    static final int MONEY_BIN = 250;  // Width of each final-money bin
+    static final int MONEY_BINS = 41;  // $0 to $10,000, the last bin also holds anything above
+
+    private final int maxDays;
+    private long games;
+    private long wins;
+    private long losses;
+    private long timeouts; // Still going after maxDays
+    private final long[] daysToWin;   // Wins by the day they happened
+    private final long[] daysToLose;  // Losses by the day they happened
+    private final long[] finalMoney;  // Every game by final money bin
+    private long totalFinalMoney;
+
+    public GameSummary(int maxDays) {
+        this.maxDays = maxDays;
+        daysToWin = new long[maxDays + 2];
+        daysToLose = new long[maxDays + 2];
+        finalMoney = new long[MONEY_BINS];
+    }
+
+    // Add one finished (or timed out) game
+    public void record(FarmSimulation simulation) {
+        games++;
+        int day = Math.min(simulation.getDay(), maxDays + 1);
+        if (simulation.isWon()) {
+            wins++;
+            daysToWin[day]++;
+        } else if (simulation.isLost()) {
+            losses++;
+            daysToLose[day]++;
+        } else {
+            timeouts++;
+        }
+        int money = simulation.getMoney();
+        totalFinalMoney += money;
+        finalMoney[Math.max(0, Math.min(money / MONEY_BIN, MONEY_BINS - 1))]++;
+    }
+
+    // Add another summary's games to this one
+    public void merge(GameSummary other) {
+        if (other.maxDays != maxDays) {
+            throw new IllegalArgumentException("Can't merge summaries with different day limits");
+        }
+        games += other.games;
+        wins += other.wins;
+        losses += other.losses;
+        timeouts += other.timeouts;
+        totalFinalMoney += other.totalFinalMoney;
+        for (int d = 0; d < daysToWin.length; d++) {
+            daysToWin[d] += other.daysToWin[d];
+            daysToLose[d] += other.daysToLose[d];
+        }
+        for (int b = 0; b < MONEY_BINS; b++) {
+            finalMoney[b] += other.finalMoney[b];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public double getLossRate() {
+        return games == 0 ? 0 : (double) losses / games;
+    }
+
+    public double getTimeoutRate() {
+        return games == 0 ? 0 : (double) timeouts / games;
+    }
+
+    public double getMeanDaysToWin() {
+        return mean(daysToWin, wins);
+    }
+
+    public double getMeanDaysToLose() {
+        return mean(daysToLose, losses);
+    }
+
+    // Day by which the given fraction (0 to 1) of the winning games had won, or -1 with no wins
+    public int getDaysToWinPercentile(double fraction) {
+        return percentile(daysToWin, wins, fraction);
+    }
+
+    public int getDaysToLosePercentile(double fraction) {
+        return percentile(daysToLose, losses, fraction);
+    }
+
+    public double getMeanFinalMoney() {
+        return games == 0 ? 0 : (double) totalFinalMoney / games;
+    }
+
+    public long[] getFinalMoneyHistogram() {
+        return Arrays.copyOf(finalMoney, MONEY_BINS);
+    }
+
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Games: %d%n", games));
+        text.append(String.format("Won: %.2f%%  Lost: %.2f%%  Still playing after %d days: %.2f%%%n",
+            getWinRate() * 100, getLossRate() * 100, maxDays, getTimeoutRate() * 100));
+        if (wins > 0) {
+            text.append(String.format("Days to win: mean %.1f, p10 %d, p50 %d, p90 %d, p99 %d%n",
+                getMeanDaysToWin(), getDaysToWinPercentile(0.10), getDaysToWinPercentile(0.50),
+                getDaysToWinPercentile(0.90), getDaysToWinPercentile(0.99)));
+        }
+        if (losses > 0) {
+            text.append(String.format("Days to lose: mean %.1f, p50 %d%n",
+                getMeanDaysToLose(), getDaysToLosePercentile(0.50)));
+        }
+        text.append(String.format("Final money: mean $%.0f%n", getMeanFinalMoney()));
+        for (int b = 0; b < MONEY_BINS; b++) {
+            if (finalMoney[b] > 0) {
+                String range = b == MONEY_BINS - 1 ? "$" + b * MONEY_BIN + "+"
+                    : "$" + b * MONEY_BIN + "-" + ((b + 1) * MONEY_BIN - 1);
+                text.append(String.format("  %-12s %d%n", range, finalMoney[b]));
+            }
+        }
+        return text.toString();
+    }
+
+    private static double mean(long[] histogram, long count) {
+        if (count == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int d = 0; d < histogram.length; d++) {
+            sum += d * histogram[d];
+        }
+        return (double) sum / count;
+    }
+
+    private static int percentile(long[] histogram, long count, double fraction) {
+        if (count == 0) {
+            return -1;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int d = 0; d < histogram.length; d++) {
+            seen += histogram[d];
+            if (seen >= target) {
+                return d;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
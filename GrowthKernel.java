@@ -0,0 +1,106 @@
+// Branch-reduced growth pass over one chunk's heap tile arrays
+// Does exactly what FarmGrid.grow does, but reads each array once per tile
+// and resolves the fertilizer/acceleration/delay/stage choices as selects
+// rather than nested branches. The VECTOR mode runs the same arithmetic a
+// whole vector of tiles at a time (see VectorGrowthKernel) and uses this
+// scalar loop for the leftover tiles. The vector kernel is used whenever
+// the jdk.incubator.vector module is there; without it the kernels are
+// opt-in (-Dcornharvest.growthKernel=true runs the scalar loop), and
+// -Dcornharvest.growthKernel=false turns them off. Otherwise growth takes
+// the plain per-tile path in FarmGrid.
+class GrowthKernel {
+    enum Mode { OFF, SCALAR, VECTOR }
+
+    static final boolean VECTOR_AVAILABLE = vectorAvailable();
+    static final Mode DEFAULT_MODE = defaultMode();
+
+    private static final int STAGE_MASK = FarmGrid.STAGE_MASK;
+    private static final int WATERED = FarmGrid.WATERED;
+    private static final int FERTILIZED = FarmGrid.FERTILIZED;
+    private static final int SEEDLING = CropStage.SEEDLING.ordinal();
+    private static final int GROWING = CropStage.GROWING.ordinal();
+    private static final int MATURE = CropStage.MATURE.ordinal();
+    private static final int DEAD = CropStage.DEAD.ordinal();
+
+    private GrowthKernel() {
+    }
+
+    // Grow tiles [from, to), which all sit in the chunk starting at tile base
+    public static void growRange(Mode mode, ChunkedFarmStore.Chunk chunk, int base, TileIndex tileIndex,
+                                 FarmStats stats, ModifierTimeline timeline, long seed, long tick, int from, int to) {
+        if (mode == Mode.VECTOR && VECTOR_AVAILABLE) {
+            VectorGrowthKernel.growRange(chunk, base, tileIndex, stats, timeline, seed, tick, from, to);
+        } else {
+            growScalar(chunk, base, tileIndex, stats, timeline, seed, tick, from, to);
+        }
+    }
+
+    static void growScalar(ChunkedFarmStore.Chunk chunk, int base, TileIndex tileIndex, FarmStats stats,
+                           ModifierTimeline timeline, long seed, long tick, int from, int to) {
+        int[] state = chunk.state;
+        short[] growthProgress = chunk.growthProgress;
+        byte[] growthDelay = chunk.growthDelay;
+        byte[] growthAcceleration = chunk.growthAcceleration;
+
+        // Only live crops grow, so only the live tiles are visited
+        TileBitmap live = tileIndex.live();
+        for (int i = live.nextSetBit(from, to); i >= 0; i = live.nextSetBit(i + 1, to)) {
+            int t = i - base; // Position in the chunk's arrays
+            int word = state[t];
+            int stage = word & STAGE_MASK;
+
+            boolean dies = (word & WATERED) == 0
+                && RandomStreams.roll(seed, tick, i, 100) < 40; // 40% chance to die without water
+            boolean grows = !dies;
+
+            // Fertilizer doubles growth, acceleration doubles it again, delay stops it
+            int mode = timeline.modeOf(word >>> FarmGrid.EPOCH_SHIFT);
+            int acceleration = growthAcceleration[t];
+            int delay = growthDelay[t];
+            int growthAmount = 10 << ((word & FERTILIZED) >>> 4);
+            growthAmount = acceleration > 0 || (mode & ModifierTimeline.ACCELERATED) != 0 ? growthAmount << 1 : growthAmount;
+            growthAmount = delay > 0 || (mode & ModifierTimeline.DELAYED) != 0 ? 0 : growthAmount;
+
+            // Counters only tick down on tiles that actually grew
+            growthAcceleration[t] = (byte) (grows && acceleration > 0 ? acceleration - 1 : acceleration);
+            growthDelay[t] = (byte) (grows && delay > 0 ? delay - 1 : delay);
+
+            int oldProgress = growthProgress[t];
+            int progress = Math.min(oldProgress + growthAmount, Short.MAX_VALUE);
+            growthProgress[t] = (short) (grows ? progress : oldProgress);
+            stats.addGrowthProgress(grows ? progress - oldProgress : 0);
+
+            int newStage = progress >= 100 ? MATURE
+                : progress >= 70 ? GROWING
+                : progress >= 30 ? SEEDLING
+                : stage;
+            int grown = (word & ~(STAGE_MASK | WATERED | FERTILIZED)) | newStage;
+            int dead = (word & ~STAGE_MASK) | DEAD;
+            int newWord = grows ? grown : dead;
+            state[t] = newWord;
+            tileIndex.update(i, word, newWord);
+            stats.update(word, newWord);
+        }
+    }
+
+    private static Mode defaultMode() {
+        String setting = System.getProperty("cornharvest.growthKernel", "");
+        if (setting.equals("false")) {
+            return Mode.OFF;
+        }
+        if (VECTOR_AVAILABLE) {
+            return Mode.VECTOR;
+        }
+        return setting.equals("true") ? Mode.SCALAR : Mode.OFF;
+    }
+
+    // The vector kernel needs the incubating module (--add-modules jdk.incubator.vector)
+    // and vectors of at least 8 ints; anything else falls back to the scalar loop
+    private static boolean vectorAvailable() {
+        try {
+            return VectorGrowthKernel.SUPPORTED;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -1,6 +1,8 @@
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 // Enum for different item types in the game
 enum ItemType {
@@ -38,36 +40,62 @@ enum CropStage {
 }
 
 // Class to manage player's inventory
+// Counts are kept in a small array indexed by ItemType, so copying an
+// inventory for a simulated game is just an array clone.
 class Inventory {
-    private HashMap<ItemType, Integer> items;
-    private Random random;
+    private static final ItemType[] TYPES = ItemType.values();
     
-    public Inventory() {
-        items = new HashMap<>();
-        random = new Random();
-        
-        // Initialize all items to 0
-        for (ItemType type : ItemType.values()) {
-            items.put(type, 0);
-        }
+    private int[] items;
+    private RandomGenerator random;
+    
+    public Inventory(RandomGenerator random) {
+        // All items start at 0
+        items = new int[TYPES.length];
+        this.random = random;
+    }
+    
+    // Independent copy with the same counts
+    public Inventory copy(RandomGenerator random) {
+        Inventory copy = new Inventory(random);
+        copy.items = items.clone();
+        return copy;
     }
     
+    // Write the item counts, for a saved game
+    public void save(DataOutput out) throws IOException {
+        out.writeByte(items.length);
+        for (int count : items) {
+            out.writeInt(count);
+        }
+    }
+
+    // Read back counts written by save (items added since then start at 0)
+    public void load(DataInput in) throws IOException {
+        Arrays.fill(items, 0);
+        int types = in.readUnsignedByte();
+        for (int t = 0; t < types; t++) {
+            int count = in.readInt();
+            if (t < items.length) {
+                items[t] = count;
+            }
+        }
+    }
+
     public void addItem(ItemType type, int count) {
-        int currentCount = items.getOrDefault(type, 0);
-        items.put(type, currentCount + count);
+        items[type.ordinal()] += count;
     }
     
     public boolean useItem(ItemType type, int count) {
-        int currentCount = items.getOrDefault(type, 0);
+        int currentCount = items[type.ordinal()];
         if (currentCount >= count) {
-            items.put(type, currentCount - count);
+            items[type.ordinal()] = currentCount - count;
             return true;
         }
         return false;
     }
     
     public int getItemCount(ItemType type) {
-        return items.getOrDefault(type, 0);
+        return items[type.ordinal()];
     }
     
     public boolean hasItem(ItemType type) {
@@ -76,28 +104,25 @@ class Inventory {
     
     public int getTotalValue() {
         int total = 0;
-        for (ItemType type : items.keySet()) {
-            total += items.get(type) * type.getPrice();
+        for (ItemType type : TYPES) {
+            total += items[type.ordinal()] * type.getPrice();
         }
         return total;
     }
     
     public void removeRandomItems(int percentage) {
-        ArrayList<ItemType> itemTypes = new ArrayList<>(items.keySet());
-        for (ItemType type : itemTypes) {
-            int currentCount = items.get(type);
+        for (int t = 0; t < items.length; t++) {
+            int currentCount = items[t];
             if (currentCount > 0) {
                 int itemsToRemove = (int)(currentCount * percentage / 100.0);
                 if (itemsToRemove > 0) {
-                    items.put(type, currentCount - itemsToRemove);
+                    items[t] = currentCount - itemsToRemove;
                 }
             }
         }
     }
     
     public void clear() {
-        for (ItemType type : items.keySet()) {
-            items.put(type, 0);
-        }
+        Arrays.fill(items, 0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Class to track farm-wide growth modifiers (weather, good bugs) without touching tiles
+// Instead of adding days to every live tile, crops are grouped into epochs by
+// when they were planted. A farm-wide effect adds days to each epoch, which
+// is what every live tile in it would have received. Epochs that end up with
+// the same days left behave the same from then on, so they're merged, and the
+// number of epochs stays tiny no matter how big the farm is.
+class ModifierTimeline {
+    static final int ACCELERATED = 1;
+    static final int DELAYED = 2;
+
+    // Epochs in planting order: the first epoch id each covers and its days left
+    private int[] epochStart;
+    private int[] accelerationDays;
+    private int[] delayDays;
+    private int epochCount;
+    private int nextEpochId;
+
+    // Modifier mode for each epoch id, rebuilt whenever the epochs change
+    private byte[] modeById;
+    private boolean modesDirty;
+
+    public ModifierTimeline() {
+        epochStart = new int[8];
+        accelerationDays = new int[8];
+        delayDays = new int[8];
+        epochCount = 1; // Epoch 0 covers everything planted before any effect
+        nextEpochId = 1;
+        modeById = new byte[0];
+        modesDirty = true;
+    }
+
+    // Independent copy of every epoch
+    public ModifierTimeline(ModifierTimeline other) {
+        epochStart = other.epochStart.clone();
+        accelerationDays = other.accelerationDays.clone();
+        delayDays = other.delayDays.clone();
+        epochCount = other.epochCount;
+        nextEpochId = other.nextEpochId;
+        modeById = other.modeById.clone();
+        modesDirty = other.modesDirty;
+    }
+
+    // Make every epoch the same as other's
+    public void copyFrom(ModifierTimeline other) {
+        epochStart = other.epochStart.clone();
+        accelerationDays = other.accelerationDays.clone();
+        delayDays = other.delayDays.clone();
+        epochCount = other.epochCount;
+        nextEpochId = other.nextEpochId;
+        modeById = other.modeById.clone();
+        modesDirty = other.modesDirty;
+    }
+
+    // Write every epoch, for a saved game
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(nextEpochId);
+        out.writeInt(epochCount);
+        for (int e = 0; e < epochCount; e++) {
+            out.writeInt(epochStart[e]);
+            out.writeInt(accelerationDays[e]);
+            out.writeInt(delayDays[e]);
+        }
+    }
+
+    // Replace every epoch with ones written by save
+    public void load(DataInput in) throws IOException {
+        nextEpochId = in.readInt();
+        epochCount = in.readInt();
+        if (epochCount < 1 || epochCount > nextEpochId) {
+            throw new IOException("Bad modifier timeline (" + epochCount + " epochs)");
+        }
+        epochStart = new int[Math.max(8, epochCount)];
+        accelerationDays = new int[epochStart.length];
+        delayDays = new int[epochStart.length];
+        for (int e = 0; e < epochCount; e++) {
+            epochStart[e] = in.readInt();
+            accelerationDays[e] = in.readInt();
+            delayDays[e] = in.readInt();
+        }
+        modeById = new byte[0];
+        modesDirty = true;
+    }
+
+    // Get the epoch id to give a crop that's being planted right now
+    public int plantEpoch() {
+        int last = epochCount - 1;
+        if (accelerationDays[last] == 0 && delayDays[last] == 0) {
+            // The newest epoch has nothing pending, so it's the same as starting fresh
+            return nextEpochId - 1;
+        }
+        if (epochCount == epochStart.length) {
+            epochStart = Arrays.copyOf(epochStart, epochCount * 2);
+            accelerationDays = Arrays.copyOf(accelerationDays, epochCount * 2);
+            delayDays = Arrays.copyOf(delayDays, epochCount * 2);
+        }
+        epochStart[epochCount] = nextEpochId;
+        accelerationDays[epochCount] = 0;
+        delayDays[epochCount] = 0;
+        epochCount++;
+        modesDirty = true;
+        return nextEpochId++;
+    }
+
+    // Apply a farm-wide effect to every crop planted so far
+    public void addToAll(int acceleration, int delay) {
+        for (int e = 0; e < epochCount; e++) {
+            accelerationDays[e] += acceleration;
+            delayDays[e] += delay;
+        }
+        modesDirty = true;
+    }
+
+    // Work out each epoch's modifiers for the coming growth tick
+    // Called once before growing, so growth threads only ever read modeById
+    public void prepare() {
+        if (!modesDirty) {
+            return;
+        }
+        if (modeById.length < nextEpochId) {
+            modeById = new byte[Math.max(nextEpochId, modeById.length * 2)];
+        }
+        for (int e = 0; e < epochCount; e++) {
+            int end = e + 1 < epochCount ? epochStart[e + 1] : nextEpochId;
+            byte mode = (byte) ((accelerationDays[e] > 0 ? ACCELERATED : 0) | (delayDays[e] > 0 ? DELAYED : 0));
+            Arrays.fill(modeById, epochStart[e], end, mode);
+        }
+        modesDirty = false;
+    }
+
+    // Modifiers in effect for crops of the given epoch (call prepare first)
+    public int modeOf(int epochId) {
+        // Ids from an older timeline (e.g. a reopened farm file) count as the newest epoch
+        return epochId < nextEpochId ? modeById[epochId] : modeById[nextEpochId - 1];
+    }
+
+    // One growth tick has passed: use up a day of every pending effect
+    public void advance() {
+        for (int e = 0; e < epochCount; e++) {
+            accelerationDays[e] = Math.max(0, accelerationDays[e] - 1);
+            delayDays[e] = Math.max(0, delayDays[e] - 1);
+        }
+        mergeEqualEpochs();
+        modesDirty = true;
+    }
+
+    public int getEpochCount() {
+        return epochCount;
+    }
+
+    // Neighbouring epochs with the same days left will never differ again
+    private void mergeEqualEpochs() {
+        int kept = 1;
+        for (int e = 1; e < epochCount; e++) {
+            if (accelerationDays[e] == accelerationDays[kept - 1] && delayDays[e] == delayDays[kept - 1]) {
+                continue; // Its ids now fall under the previous epoch
+            }
+            epochStart[kept] = epochStart[e];
+            accelerationDays[kept] = accelerationDays[e];
+            delayDays[kept] = delayDays[e];
+            kept++;
+        }
+        epochCount = kept;
+    }
+}
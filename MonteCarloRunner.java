@@ -0,0 +1,107 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+// Class to play huge numbers of seeded games with a strategy, across all cores
+// Game g uses seed firstSeed + g, so a batch can be repeated exactly. The seed
+// range is split into tasks on a work-stealing pool; every task adds its games
+// to its own GameSummary and the summaries are merged on the way back up, so
+// no per-game results are ever kept and the totals don't depend on threading.
+class MonteCarloRunner {
+    static final int GAMES_PER_TASK = 256;
+    static final int DEFAULT_MAX_DAYS = 365;
+
+    private final ForkJoinPool pool;
+    private final EventTable eventTable;
+    private final DifficultyProfile difficulty;
+    private final DayTickEngine dayTickEngine; // Farms are small, so this always runs inline
+
+    public MonteCarloRunner() {
+        this(ForkJoinPool.commonPool(), EventTable.defaults());
+    }
+
+    public MonteCarloRunner(ForkJoinPool pool, EventTable eventTable) {
+        this(pool, eventTable, DifficultyProfile.standard(DifficultyProfile.DEFAULT_NAME));
+    }
+
+    // Play every game at the given difficulty
+    public MonteCarloRunner(ForkJoinPool pool, EventTable eventTable, DifficultyProfile difficulty) {
+        this.pool = pool;
+        this.eventTable = difficulty.adjust(eventTable);
+        this.difficulty = difficulty;
+        dayTickEngine = new DayTickEngine();
+    }
+
+    // Play games seeded firstSeed .. firstSeed + games - 1, each with a fresh strategy
+    // from the supplier, stopping every game after maxDays
+    public GameSummary run(Supplier<Strategy> strategies, long firstSeed, long games, int maxDays) {
+        return pool.invoke(new BatchTask(strategies, firstSeed, firstSeed + games, maxDays));
+    }
+
+    // Play a range of games on the calling thread
+    public GameSummary playGames(Supplier<Strategy> strategies, long fromSeed, long toSeed, int maxDays) {
+        GameSummary summary = new GameSummary(maxDays);
+        for (long seed = fromSeed; seed < toSeed; seed++) {
+            FarmSimulation simulation = new FarmSimulation(seed, dayTickEngine, eventTable, difficulty, new EventBus());
+            playGame(simulation, strategies.get(), maxDays);
+            summary.record(simulation);
+        }
+        return summary;
+    }
+
+    // Play one game until it's won, lost or maxDays have gone by
+    public static void playGame(FarmSimulation simulation, Strategy strategy, int maxDays) {
+        while (!simulation.isGameOver() && simulation.getDay() <= maxDays) {
+            strategy.playDay(simulation);
+            if (simulation.isGameOver()) {
+                break;
+            }
+            simulation.advanceDay();
+        }
+    }
+
+    // Split the seed range in half until it's small enough to play directly
+    private class BatchTask extends RecursiveTask<GameSummary> {
+        private final Supplier<Strategy> strategies;
+        private final long fromSeed;
+        private final long toSeed;
+        private final int maxDays;
+
+        BatchTask(Supplier<Strategy> strategies, long fromSeed, long toSeed, int maxDays) {
+            this.strategies = strategies;
+            this.fromSeed = fromSeed;
+            this.toSeed = toSeed;
+            this.maxDays = maxDays;
+        }
+
+        @Override
+        protected GameSummary compute() {
+            if (toSeed - fromSeed <= GAMES_PER_TASK) {
+                return playGames(strategies, fromSeed, toSeed, maxDays);
+            }
+            long mid = fromSeed + (toSeed - fromSeed) / 2;
+            BatchTask left = new BatchTask(strategies, fromSeed, mid, maxDays);
+            left.fork();
+            GameSummary summary = new BatchTask(strategies, mid, toSeed, maxDays).compute();
+            summary.merge(left.join());
+            return summary;
+        }
+    }
+
+    // Usage: java -Djava.awt.headless=true MonteCarloRunner [games] [strategy] [maxDays] [firstSeed]
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        String strategy = args.length > 1 ? args[1] : "greedy";
+        int maxDays = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_DAYS;
+        long firstSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Strategy.named(strategy); // Fail fast on a bad name
+
+        long start = System.nanoTime();
+        GameSummary summary = new MonteCarloRunner().run(() -> Strategy.named(strategy), firstSeed, games, maxDays);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Strategy: " + strategy);
+        System.out.print(summary.describe());
+        System.out.printf("Played in %.1f s (%.0f games/s)%n", seconds, games / seconds);
+    }
+}
@@ -0,0 +1,160 @@
+// Class to add up many simulated versions of tonight for the current farm
+// Each simulated night resets a working copy of the game to the snapshot
+// (FarmSimulation.resetTo), gives it its own random seed and sleeps once.
+// Like GameSummary everything is counts and sums, so batches can be merged
+// and the forecast sharpens as more nights come in.
+class NightForecast {
+    // Names for NightReport.GOOD_WEATHER .. TORNADO
+    private static final String[] EVENT_NAMES = {
+        "Good weather", "Bad weather", "Drought starts", "Drought goes on", "Drought ends",
+        "Pest invasion", "Robbery", "Good bugs", "Flood", "Tornado",
+    };
+    private static final int EVENT_CODES = EVENT_NAMES.length;
+    // Shares of the live crops that crop losses are grouped by in describe (upper ends)
+    private static final double[] LOSS_SHARES = {0.10, 0.25, 0.50, 1.0};
+
+    private final int liveCrops;     // Live crops going into the night
+    private final int cornValue;
+    private long nights;
+    private final long[] cropsLost;  // Nights by how many crops died
+    private long totalCropsLost;
+    private long totalHarvestValue;  // Corn ready to harvest in the morning
+    private long droughtNights;      // Nights after which the drought is still on
+    private final long[] eventNights = new long[EVENT_CODES]; // Nights each event happened on
+
+    public NightForecast(FarmSimulation simulation) {
+        liveCrops = simulation.getFarmGrid().getStats().getLiveCount();
+        cornValue = simulation.getDifficulty().getCornValue();
+        cropsLost = new long[liveCrops + 1];
+    }
+
+    // Simulate nights seeds firstSeed .. firstSeed + count - 1 from a snapshot of the game
+    // The snapshot itself is never changed, the nights run on a copy of it
+    public void simulate(FarmSimulation snapshot, long firstSeed, int count) {
+        simulate(snapshot, snapshot.copy(), firstSeed, count);
+    }
+
+    // Same, on a working copy of the snapshot that's kept between calls (e.g.
+    // one per worker); it's put back to the snapshot before every night
+    public void simulate(FarmSimulation snapshot, FarmSimulation night, long firstSeed, int count) {
+        for (int n = 0; n < count; n++) {
+            night.resetTo(snapshot);
+            night.reseed(firstSeed + n);
+            NightReport report = night.advanceDay();
+            record(night, report);
+        }
+    }
+
+    // Add one simulated night, given the game the morning after
+    public void record(FarmSimulation morning, NightReport report) {
+        FarmStats stats = morning.getFarmGrid().getStats();
+        int lost = Math.max(0, Math.min(liveCrops - stats.getLiveCount(), liveCrops));
+        nights++;
+        cropsLost[lost]++;
+        totalCropsLost += lost;
+        totalHarvestValue += (long) stats.getStageCount(CropStage.MATURE) * cornValue;
+        if (morning.getEventSystem().isDroughtActive()) {
+            droughtNights++;
+        }
+        for (int code = 0; code < EVENT_CODES; code++) {
+            if (report.contains(code)) {
+                eventNights[code]++;
+            }
+        }
+    }
+
+    // Add another forecast's nights to this one (both must start from the same farm)
+    public void merge(NightForecast other) {
+        if (other.liveCrops != liveCrops) {
+            throw new IllegalArgumentException("Can't merge forecasts of different farms");
+        }
+        nights += other.nights;
+        for (int i = 0; i <= liveCrops; i++) {
+            cropsLost[i] += other.cropsLost[i];
+        }
+        totalCropsLost += other.totalCropsLost;
+        totalHarvestValue += other.totalHarvestValue;
+        droughtNights += other.droughtNights;
+        for (int code = 0; code < EVENT_CODES; code++) {
+            eventNights[code] += other.eventNights[code];
+        }
+    }
+
+    public long getNights() {
+        return nights;
+    }
+
+    public double getMeanCropsLost() {
+        return nights == 0 ? 0 : (double) totalCropsLost / nights;
+    }
+
+    // Chance (0 to 1) of losing at least the given number of crops tonight
+    public double getLossChance(int atLeast) {
+        if (nights == 0 || atLeast > liveCrops) {
+            return 0;
+        }
+        long count = 0;
+        for (int i = Math.max(0, atLeast); i <= liveCrops; i++) {
+            count += cropsLost[i];
+        }
+        return (double) count / nights;
+    }
+
+    // Most crops lost in the given fraction (0 to 1) of nights
+    public int getCropsLostPercentile(double fraction) {
+        long target = Math.max(1, (long) Math.ceil(fraction * nights));
+        long seen = 0;
+        for (int i = 0; i <= liveCrops; i++) {
+            seen += cropsLost[i];
+            if (seen >= target) {
+                return i;
+            }
+        }
+        return liveCrops;
+    }
+
+    public double getExpectedHarvestValue() {
+        return nights == 0 ? 0 : (double) totalHarvestValue / nights;
+    }
+
+    public double getDroughtChance() {
+        return nights == 0 ? 0 : (double) droughtNights / nights;
+    }
+
+    public double getEventChance(int code) {
+        return nights == 0 ? 0 : (double) eventNights[code] / nights;
+    }
+
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Forecast from %,d simulated nights%n%n", nights));
+        text.append(String.format("Live crops tonight: %d%n", liveCrops));
+        if (liveCrops > 0) {
+            text.append(String.format("Crops lost: %.2f on average%n", getMeanCropsLost()));
+            text.append(String.format("  No more than %d on half the nights, %d on 9 in 10, %d on 99 in 100%n",
+                getCropsLostPercentile(0.50), getCropsLostPercentile(0.90), getCropsLostPercentile(0.99)));
+            text.append(String.format("  %-32s %5.1f%%%n", "None lost:", (1 - getLossChance(1)) * 100));
+            int from = 1;
+            for (double share : LOSS_SHARES) {
+                int to = Math.max(from - 1, (int) (share * liveCrops));
+                if (to >= from) {
+                    String range = from == to ? String.valueOf(from) : from + "-" + to;
+                    text.append(String.format("  %-32s %5.1f%%%n",
+                        range + " lost (up to " + Math.round(share * 100) + "%):",
+                        (getLossChance(from) - getLossChance(to + 1)) * 100));
+                    from = to + 1;
+                }
+            }
+        }
+        text.append(String.format("Expected harvest in the morning: $%.0f%n", getExpectedHarvestValue()));
+        text.append(String.format("Chance of drought tomorrow: %.1f%%%n%n", getDroughtChance() * 100));
+
+        text.append("Chance of each event tonight:\n");
+        for (int code = 0; code < EVENT_CODES; code++) {
+            if (eventNights[code] > 0) {
+                text.append(String.format("  %5.1f%%  %s%n", getEventChance(code) * 100, EVENT_NAMES[code]));
+            }
+        }
+        return text.toString();
+    }
+}
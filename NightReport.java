@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Reusable record of what happened during one night
+// Events are stored as a code plus one number (days, crops destroyed, ...)
+// in int arrays that are reused night after night, so running thousands of
+// nights allocates next to nothing. Message text (and the matching FarmEvent
+// record) is only built when someone asks for it, e.g. the night dialog.
+class NightReport {
+    static final int GOOD_WEATHER = 0;
+    static final int BAD_WEATHER = 1;
+    static final int DROUGHT_STARTED = 2;      // payload: days it will last
+    static final int DROUGHT_CONTINUES = 3;    // payload: days left
+    static final int DROUGHT_ENDED = 4;
+    static final int PEST_INVASION = 5;        // payload: crops destroyed
+    static final int ROBBERY = 6;              // payload: percentage lost
+    static final int GOOD_BUGS = 7;
+    static final int FLOOD = 8;                // payload: crops destroyed
+    static final int TORNADO = 9;
+
+    // FarmEvent record type for each code
+    private static final Class<?>[] EVENT_TYPES = {
+        FarmEvent.Weather.class, FarmEvent.Weather.class, FarmEvent.DroughtStarted.class,
+        FarmEvent.DroughtContinues.class, FarmEvent.DroughtEnded.class, FarmEvent.PestInvasion.class,
+        FarmEvent.Robbery.class, FarmEvent.GoodBugs.class, FarmEvent.Flood.class, FarmEvent.Tornado.class,
+    };
+
+    private int[] codes;
+    private int[] payloads;
+    private int count;
+
+    public NightReport() {
+        codes = new int[8];
+        payloads = new int[8];
+        count = 0;
+    }
+
+    // Forget the previous night, keeping the arrays
+    public void clear() {
+        count = 0;
+    }
+
+    public void add(int code, int payload) {
+        if (count == codes.length) {
+            codes = Arrays.copyOf(codes, count * 2);
+            payloads = Arrays.copyOf(payloads, count * 2);
+        }
+        codes[count] = code;
+        payloads[count] = payload;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getCode(int i) {
+        return codes[i];
+    }
+
+    public int getPayload(int i) {
+        return payloads[i];
+    }
+
+    // Whether anything with the given code happened tonight
+    public boolean contains(int code) {
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Build the typed event for entry i
+    public FarmEvent toEvent(int i) {
+        int payload = payloads[i];
+        switch (codes[i]) {
+            case GOOD_WEATHER: return new FarmEvent.Weather(true);
+            case BAD_WEATHER: return new FarmEvent.Weather(false);
+            case DROUGHT_STARTED: return new FarmEvent.DroughtStarted(payload);
+            case DROUGHT_CONTINUES: return new FarmEvent.DroughtContinues(payload);
+            case DROUGHT_ENDED: return new FarmEvent.DroughtEnded();
+            case PEST_INVASION: return new FarmEvent.PestInvasion(payload);
+            case ROBBERY: return new FarmEvent.Robbery(payload);
+            case GOOD_BUGS: return new FarmEvent.GoodBugs();
+            case FLOOD: return new FarmEvent.Flood(payload);
+            case TORNADO: return new FarmEvent.Tornado();
+            default: throw new IllegalStateException("Unknown night event code " + codes[i]);
+        }
+    }
+
+    // Player-facing text for entry i
+    public String getMessage(int i) {
+        return toEvent(i).message();
+    }
+
+    // Player-facing text for every event tonight, in the order they happened
+    public ArrayList<String> getMessages() {
+        ArrayList<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(getMessage(i));
+        }
+        return messages;
+    }
+
+    // FarmEvent record type that a code turns into
+    @SuppressWarnings("unchecked")
+    static Class<? extends FarmEvent> eventType(int code) {
+        return (Class<? extends FarmEvent>) EVENT_TYPES[code];
+    }
+}
@@ -0,0 +1,47 @@
+// Class to hand out reproducible random streams from a single game seed
+// Every subsystem gets its own independent stream, so adding a roll in one
+// place doesn't shift the rolls anywhere else. Per-tile rolls are computed
+// from (seed, tick, tile) directly, so they need no shared state at all and
+// give the same answers in any order or on any thread.
+class RandomStreams {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long TILE_GAMMA = 0xD1B54A32D192ED03L;
+
+    private final long gameSeed;
+
+    public RandomStreams(long gameSeed) {
+        this.gameSeed = gameSeed;
+    }
+
+    public long getGameSeed() {
+        return gameSeed;
+    }
+
+    // Get the stream for a subsystem, e.g. "events" or "inventory"
+    public SimRandom stream(String subsystem) {
+        return new SimRandom(seedFor(subsystem));
+    }
+
+    // Get a separate stream for one part of a subsystem, e.g. a tile range
+    public SimRandom stream(String subsystem, long key) {
+        return new SimRandom(mix64(seedFor(subsystem) + key * GOLDEN_GAMMA));
+    }
+
+    // Get a seed for stateless per-tile rolls (see roll below)
+    public long seedFor(String subsystem) {
+        return mix64(gameSeed ^ mix64(subsystem.hashCode() * GOLDEN_GAMMA));
+    }
+
+    // Roll a number in [0, bound) for one tile on one tick
+    public static int roll(long seed, long tick, int index, int bound) {
+        long bits = mix64(seed + tick * GOLDEN_GAMMA + index * TILE_GAMMA);
+        return (int) (((bits >>> 32) * bound) >>> 32);
+    }
+
+    // SplitMix64 finalizer: scrambles all 64 bits of the input
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
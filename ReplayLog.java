@@ -0,0 +1,88 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Class holding the replay log format shared by ReplayRecorder and ReplayPlayer
+// A game is fully determined by its seed, its settings and what the player
+// did, so that's all a replay stores:
+//
+//   header   int magic "CHRP", byte version, long game seed, UTF difficulty name,
+//            long settings hash (event table and difficulty, see settingsHash),
+//            byte start: NEW_GAME followed by the int farm width, or SAVED_GAME
+//            followed by the whole game as FarmSimulation.save wrote it when a
+//            continued game started recording
+//            (version 1 logs have no start byte and are always new games, and
+//            version 2 logs have no farm width; both are on the standard 4x4 farm)
+//   records  one tag byte each, kind in the low 3 bits:
+//            1-5  ActionType ordinal (PLANT .. PROTECT). The tile is stored as a
+//                 zigzag delta from the previous action's tile: in the top 5
+//                 bits as delta + 1 when it's between -15 and 15, otherwise the
+//                 top bits are 0 and a varint follows. Acting on a row of tiles
+//                 costs one byte per tile.
+//            0    control, with the top 5 bits saying which:
+//                 END, SLEEP (then the long checksum of the game after the night),
+//                 BUY (then the item ordinal byte and a varint quantity)
+//
+// Only actions that applied are recorded. Tile selection isn't game state, so
+// the log holds the tile each action landed on rather than the clicks.
+class ReplayLog {
+    static final int MAGIC = 0x43485250; // "CHRP"
+    static final int VERSION = 3;
+
+    static final int NEW_GAME = 0;
+    static final int SAVED_GAME = 1;
+
+    static final int CONTROL = 0;
+    static final int END = 0;
+    static final int SLEEP = 1;
+    static final int BUY = 2;
+
+    static final int KIND_BITS = 3;
+    static final int KIND_MASK = (1 << KIND_BITS) - 1;
+    static final int MAX_INLINE_DELTA = (1 << (8 - KIND_BITS)) - 2; // Zigzag deltas up to 30 fit in the tag
+
+    private ReplayLog() {
+    }
+
+    // Hash of the settings a game was started with: a replay only plays back
+    // the same way with the same event table and difficulty
+    static long settingsHash(FarmSimulation simulation) {
+        DifficultyProfile difficulty = simulation.getDifficulty();
+        long hash = simulation.getEventSystem().getEventTable().fingerprint();
+        hash = RandomStreams.mix64(hash + difficulty.getStartingMoney());
+        hash = RandomStreams.mix64(hash + difficulty.getCornValue());
+        for (ItemType type : ItemType.values()) {
+            hash = RandomStreams.mix64(hash + difficulty.getPrice(type));
+        }
+        return hash;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is too long");
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Class to play a replay log back on a fresh FarmSimulation
+// The game is started from the logged seed and difficulty (or loaded from the
+// header, for a game that was continued from a save), then every logged
+// action and purchase is applied in order. After each night the game's
+// checksum is compared with the logged one, so a replay that drifts from the
+// original (different settings, a change to the rules) stops on the first
+// day that differs instead of quietly playing a different game.
+class ReplayPlayer implements Closeable {
+    private static final ActionType[] ACTIONS = ActionType.values();
+    private static final ItemType[] ITEMS = ItemType.values();
+
+    private final DataInputStream in;
+    private final long gameSeed;
+    private final String difficultyName;
+    private final boolean sameSettings;
+    private final FarmSimulation simulation;
+    private int lastTile;
+    private boolean finished;
+
+    public ReplayPlayer(InputStream stream, DayTickEngine dayTickEngine) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != ReplayLog.MAGIC) {
+            throw new IOException("Not a replay log");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > ReplayLog.VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        gameSeed = in.readLong();
+        difficultyName = in.readUTF();
+        long settingsHash = in.readLong();
+        int start = version == 1 ? ReplayLog.NEW_GAME : in.readUnsignedByte();
+        if (start == ReplayLog.NEW_GAME) {
+            int landSize = version >= 3 ? in.readInt() : FarmSimulation.INITIAL_LAND_SIZE;
+            if (landSize < 1 || landSize > FarmSimulation.MAX_LAND_SIZE) {
+                throw new IOException("Corrupt replay: farm size " + landSize);
+            }
+            simulation = FarmSimulation.withSettings(gameSeed, difficultyName, landSize, dayTickEngine,
+                new EventBus());
+        } else if (start == ReplayLog.SAVED_GAME) {
+            simulation = FarmSimulation.load(in, dayTickEngine, new EventBus());
+        } else {
+            throw new IOException("Corrupt replay: unknown start " + start);
+        }
+        sameSettings = settingsHash == ReplayLog.settingsHash(simulation);
+        lastTile = 0;
+    }
+
+    public ReplayPlayer(File file) throws IOException {
+        this(new FileInputStream(file), new DayTickEngine());
+    }
+
+    public FarmSimulation getSimulation() {
+        return simulation;
+    }
+
+    public long getGameSeed() {
+        return gameSeed;
+    }
+
+    public String getDifficultyName() {
+        return difficultyName;
+    }
+
+    // Whether events.properties and difficulty.properties still match the recording
+    // (if not, the replay will most likely diverge)
+    public boolean hasSameSettings() {
+        return sameSettings;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Play the logged day up to and including its night
+    // Returns false once the log has ended; throws IllegalStateException if the game diverges
+    public boolean playDay() throws IOException {
+        while (!finished) {
+            int tag;
+            try {
+                tag = in.readUnsignedByte();
+            } catch (EOFException e) {
+                // The recording was cut short (e.g. the game crashed), play what we have
+                finished = true;
+                break;
+            }
+            int kind = tag & ReplayLog.KIND_MASK;
+            int extra = tag >>> ReplayLog.KIND_BITS;
+            if (kind != ReplayLog.CONTROL) {
+                long delta = extra != 0 ? extra - 1 : ReplayLog.readVarLong(in);
+                int tile = (int) (lastTile + ReplayLog.unzigzag(delta));
+                if (kind >= ACTIONS.length) {
+                    throw new IOException("Corrupt replay: unknown action " + kind);
+                }
+                ActionType action = ACTIONS[kind];
+                if (tile < 0 || tile >= simulation.getFarmGrid().size() || !simulation.applyAction(action, tile)) {
+                    throw new IllegalStateException("Replay diverged on day " + simulation.getDay() + ": "
+                        + action + " on tile " + tile + " no longer applies");
+                }
+                lastTile = tile;
+            } else if (extra == ReplayLog.BUY) {
+                int item = in.readUnsignedByte();
+                if (item >= ITEMS.length) {
+                    throw new IOException("Corrupt replay: unknown item " + item);
+                }
+                ItemType type = ITEMS[item];
+                int quantity = (int) ReplayLog.readVarLong(in);
+                if (!simulation.buy(type, quantity)) {
+                    throw new IllegalStateException("Replay diverged on day " + simulation.getDay() + ": can't afford "
+                        + quantity + " " + type.getDisplayName());
+                }
+            } else if (extra == ReplayLog.SLEEP) {
+                long expected = in.readLong();
+                simulation.advanceDay();
+                if (simulation.checksum() != expected) {
+                    throw new IllegalStateException("Replay diverged during the night before day " + simulation.getDay());
+                }
+                return true;
+            } else if (extra == ReplayLog.END) {
+                finished = true;
+            } else {
+                throw new IOException("Unknown replay record " + tag);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Usage: java -Djava.awt.headless=true ReplayPlayer <replay file>
+    // Plays the whole log as fast as possible and checks every day
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java ReplayPlayer <replay file>");
+            return;
+        }
+        try (ReplayPlayer player = new ReplayPlayer(new File(args[0]))) {
+            if (!player.hasSameSettings()) {
+                System.out.println("Warning: the event or difficulty settings changed since this was recorded");
+            }
+            long start = System.nanoTime();
+            int days = 0;
+            try {
+                while (player.playDay()) {
+                    days++;
+                }
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            FarmSimulation simulation = player.getSimulation();
+            System.out.printf("Replayed %d days (seed %d, %s) in %.3f s%n", days, player.getGameSeed(),
+                player.getDifficultyName(), seconds);
+            System.out.printf("Day %d, money $%d, %s%n", simulation.getDay(), simulation.getMoney(),
+                simulation.isWon() ? "won" : simulation.isLost() ? "lost" : "still playing");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Class to record a game as a replay log (see ReplayLog for the format)
+// Hook it up with FarmSimulation.addRecorder and the simulation reports every
+// action, purchase and night. Writes are buffered and flushed after each
+// night, so a crash loses at most the current day. A failed write is reported
+// once and stops the recording; it never stops the game. A game continued
+// from a save is recorded from where it was loaded, with that starting state
+// in the header.
+class ReplayRecorder implements GameRecorder, Closeable {
+    private final DataOutputStream out;
+    private final String name;
+    private int lastTile;
+    private boolean failed;
+    private boolean closed;
+
+    public ReplayRecorder(OutputStream stream, String name, FarmSimulation simulation, String difficultyName)
+            throws IOException {
+        this(stream, name, simulation, difficultyName, false);
+    }
+
+    // fromSave: the game was loaded rather than started from its seed, so store where it starts
+    public ReplayRecorder(OutputStream stream, String name, FarmSimulation simulation, String difficultyName,
+                          boolean fromSave) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream));
+        this.name = name;
+        out.writeInt(ReplayLog.MAGIC);
+        out.writeByte(ReplayLog.VERSION);
+        out.writeLong(simulation.getRandomStreams().getGameSeed());
+        out.writeUTF(difficultyName);
+        out.writeLong(ReplayLog.settingsHash(simulation));
+        if (fromSave) {
+            out.writeByte(ReplayLog.SAVED_GAME);
+            simulation.save(out);
+        } else {
+            out.writeByte(ReplayLog.NEW_GAME);
+            out.writeInt(simulation.getLandSize());
+        }
+        lastTile = 0;
+    }
+
+    // Start recording a new game into its own file in the given folder
+    public static ReplayRecorder start(File folder, FarmSimulation simulation, String difficultyName)
+            throws IOException {
+        return start(folder, simulation, difficultyName, false);
+    }
+
+    // Start recording a game into its own file, from its current state if it was loaded from a save
+    public static ReplayRecorder start(File folder, FarmSimulation simulation, String difficultyName,
+                                       boolean fromSave) throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Can't create " + folder);
+        }
+        File file = new File(folder, "game-" + Long.toHexString(simulation.getRandomStreams().getGameSeed())
+            + "-" + System.currentTimeMillis() + ".replay");
+        ReplayRecorder recorder = new ReplayRecorder(new FileOutputStream(file), file.getPath(), simulation,
+            difficultyName, fromSave);
+        simulation.addRecorder(recorder);
+        return recorder;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void action(ActionType action, int tile) {
+        if (failed || closed) {
+            return;
+        }
+        try {
+            long delta = ReplayLog.zigzag((long) tile - lastTile);
+            if (delta <= ReplayLog.MAX_INLINE_DELTA) {
+                out.writeByte(action.ordinal() | (int) (delta + 1) << ReplayLog.KIND_BITS);
+            } else {
+                out.writeByte(action.ordinal());
+                ReplayLog.writeVarLong(out, delta);
+            }
+            lastTile = tile;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void buy(ItemType type, int quantity) {
+        if (failed || closed) {
+            return;
+        }
+        try {
+            out.writeByte(ReplayLog.CONTROL | ReplayLog.BUY << ReplayLog.KIND_BITS);
+            out.writeByte(type.ordinal());
+            ReplayLog.writeVarLong(out, quantity);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void sleep(long checksum) {
+        if (failed || closed) {
+            return;
+        }
+        try {
+            out.writeByte(ReplayLog.CONTROL | ReplayLog.SLEEP << ReplayLog.KIND_BITS);
+            out.writeLong(checksum);
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public int size() {
+        return out.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!failed) {
+                out.writeByte(ReplayLog.CONTROL | ReplayLog.END << ReplayLog.KIND_BITS);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void fail(IOException e) {
+        failed = true;
+        System.out.println("Replay recording to " + name + " stopped: " + e.getMessage());
+    }
+}
@@ -0,0 +1,135 @@
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.*;
+
+// Window to watch a replay log play back at an adjustable speed
+// A Swing timer plays one logged day per tick on the EDT and repaints the
+// farm; the slider sets how many days a second that is.
+class ReplayViewer extends JFrame {
+    // Same colors as the game, by CropStage ordinal
+    private static final Color[] STAGE_COLORS = FarmCanvas.STAGE_COLORS;
+
+    private final ReplayPlayer player;
+    private final Timer timer;
+    private final JLabel statusLabel;
+    private final JPanel farmView;
+
+    public ReplayViewer(ReplayPlayer player) {
+        this.player = player;
+        setTitle("Replay - seed " + player.getGameSeed() + " (" + player.getDifficultyName() + ")");
+        setSize(600, 650);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        farmView = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                paintFarm(g, getWidth(), getHeight());
+            }
+        };
+        farmView.setBackground(new Color(180, 120, 70));
+
+        statusLabel = new JLabel();
+        JSlider speedSlider = new JSlider(1, 60, 4);
+        JButton pauseButton = new JButton("Pause");
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Days/second:"));
+        controls.add(speedSlider);
+        controls.add(pauseButton);
+
+        add(statusLabel, BorderLayout.NORTH);
+        add(farmView, BorderLayout.CENTER);
+        add(controls, BorderLayout.SOUTH);
+
+        timer = new Timer(1000 / speedSlider.getValue(), e -> step());
+        speedSlider.addChangeListener(e -> timer.setDelay(1000 / speedSlider.getValue()));
+        pauseButton.addActionListener(e -> {
+            if (timer.isRunning()) {
+                timer.stop();
+                pauseButton.setText("Play");
+            } else if (!player.isFinished()) {
+                timer.start();
+                pauseButton.setText("Pause");
+            }
+        });
+
+        updateStatus();
+        if (!player.hasSameSettings()) {
+            JOptionPane.showMessageDialog(this,
+                "The event or difficulty settings changed since this game was recorded.\nThe replay will probably diverge.",
+                "Replay", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    public void start() {
+        setVisible(true);
+        timer.start();
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        try {
+            player.close();
+        } catch (IOException e) {
+            System.out.println("Error closing replay: " + e.getMessage());
+        }
+        super.dispose();
+    }
+
+    private void step() {
+        try {
+            if (!player.playDay()) {
+                timer.stop();
+                statusLabel.setText(statusLabel.getText() + " - end of replay");
+                return;
+            }
+        } catch (IllegalStateException | IOException e) {
+            timer.stop();
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Replay", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        updateStatus();
+        farmView.repaint();
+    }
+
+    private void updateStatus() {
+        FarmSimulation simulation = player.getSimulation();
+        statusLabel.setText("Day " + simulation.getDay() + "   Money: $" + simulation.getMoney()
+            + "   Live crops: " + simulation.getFarmGrid().getStats().getLiveCount());
+    }
+
+    // Draw the farm as a square grid of colored tiles, watered ones outlined in blue
+    private void paintFarm(Graphics g, int width, int height) {
+        FarmGrid farmGrid = player.getSimulation().getFarmGrid();
+        int columns = player.getSimulation().getLandSize();
+        int tileSize = Math.max(1, Math.min(width, height) / columns);
+        for (int i = 0; i < farmGrid.size(); i++) {
+            int x = (i % columns) * tileSize;
+            int y = (i / columns) * tileSize;
+            g.setColor(STAGE_COLORS[farmGrid.getStage(i).ordinal()]);
+            g.fillRect(x + 1, y + 1, tileSize - 2, tileSize - 2);
+            if (farmGrid.isWatered(i) && tileSize > 4) {
+                g.setColor(Color.BLUE);
+                g.drawRect(x + 1, y + 1, tileSize - 3, tileSize - 3);
+            }
+        }
+    }
+
+    // Usage: java ReplayViewer <replay file>
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java ReplayViewer <replay file>");
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            try {
+                new ReplayViewer(new ReplayPlayer(new File(args[0]))).start();
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(null, "Can't open replay: " + e.getMessage());
+            }
+        });
+    }
+}
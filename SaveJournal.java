@@ -0,0 +1,469 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+// Class to save a game as it's played: a snapshot plus a write-ahead journal
+// Instead of rewriting the whole farm, every action, purchase and night is
+// appended to the journal as a small checksummed frame (a handful of bytes).
+// The journal is buffered, flushed after each player command and synced to
+// disk at the end of each day. Every few days (or once the journal gets big)
+// it's compacted: a fresh snapshot is written and the journal starts over.
+//
+// Nothing slow happens on the EDT. The end-of-day sync and the snapshot are
+// done on a background "autosave" thread: at the end of the day the game is
+// captured copy-on-write (GameSnapshot.capture, well under a millisecond
+// whatever the farm size), the journal so far is set aside as the previous
+// journal and a new one is started, and play carries on while the snapshot
+// is written. If the last snapshot is still being written when the next one
+// is due, compaction just waits for a later day rather than blocking.
+//
+// Files in the save folder:
+//   farm.snapshot      see GameSnapshot
+//   farm.journal       int magic "CHWJ", byte version 1, long snapshot generation,
+//                      then frames: varint length, payload, int CRC32 of the payload
+//                      payload: tag byte 1-5 ActionType ordinal then varint tile,
+//                               BUY then item ordinal byte and varint quantity,
+//                               SLEEP then the long checksum of the morning after
+//   farm.journal.prev  the journal up to a snapshot that's still being written
+//
+// Recovery loads the snapshot and replays the journal on top. A torn or
+// corrupt frame at the end (a crash mid-write) ends the replay and is cut
+// off. If the snapshot being written never made it, the previous journal
+// matches the snapshot on disk, and it's replayed before the current one
+// (which then belongs to the next generation); the two are folded into a new
+// snapshot straight away. A journal from an older generation is left over
+// from a crash during compaction; its records are already in the snapshot,
+// so it's ignored.
+class SaveJournal implements GameRecorder, Closeable {
+    static final String SNAPSHOT_FILE = "farm.snapshot";
+    static final String JOURNAL_FILE = "farm.journal";
+    static final String PREVIOUS_JOURNAL_FILE = "farm.journal.prev";
+    static final int MAGIC = 0x4348574A; // "CHWJ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 13;
+
+    private static final int SLEEP = 0;
+    private static final int BUY = 6;
+    private static final ActionType[] ACTIONS = ActionType.values();
+    private static final ItemType[] ITEMS = ItemType.values();
+
+    static final int COMPACT_DAYS = 10;            // Compact at least this often
+    static final long COMPACT_BYTES = 1 << 20;    // or once the journal is this big
+
+    private final File folder;
+    private final FarmSimulation simulation;
+    private long generation;
+    private FileChannel journalChannel;
+    private DataOutputStream journal;
+    private long journalBytes;
+    private int daysSinceSnapshot;
+    private boolean failed;
+
+    // Background syncs and snapshot writes, in order
+    private final ExecutorService writer;
+    private Future<?> snapshotWrite;             // Last background snapshot, null if none
+    private volatile boolean snapshotFailed;     // A background snapshot failed, stop taking more
+
+    // Reused for each frame's payload
+    private final FrameBuffer payloadBytes = new FrameBuffer();
+    private final DataOutputStream payload = new DataOutputStream(payloadBytes);
+    private final CRC32 crc = new CRC32();
+
+    private SaveJournal(File folder, FarmSimulation simulation, long generation) {
+        this.folder = folder;
+        this.simulation = simulation;
+        this.generation = generation;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Whether the folder holds a saved game
+    public static boolean exists(File folder) {
+        return new File(folder, SNAPSHOT_FILE).isFile();
+    }
+
+    // Start saving a new game, replacing any save already in the folder
+    public static SaveJournal create(File folder, FarmSimulation simulation) throws IOException {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Can't create " + folder);
+        }
+        SaveJournal saveJournal = new SaveJournal(folder, simulation, 1);
+        // Journals of an older game must not be replayed onto this one
+        Files.deleteIfExists(saveJournal.previousJournalFile().toPath());
+        Files.deleteIfExists(saveJournal.journalFile().toPath());
+        GameSnapshot.write(saveJournal.snapshotFile(), simulation, 1);
+        saveJournal.startJournal();
+        simulation.addRecorder(saveJournal);
+        return saveJournal;
+    }
+
+    // Load the saved game: the snapshot, then everything journaled since
+    public static SaveJournal recover(File folder, DayTickEngine dayTickEngine, EventBus eventBus) throws IOException {
+        GameSnapshot snapshot = GameSnapshot.read(new File(folder, SNAPSHOT_FILE), dayTickEngine, eventBus);
+        SaveJournal saveJournal = new SaveJournal(folder, snapshot.getSimulation(), snapshot.getGeneration());
+        long generation = saveJournal.generation;
+
+        // A previous journal of this generation means the next snapshot never made it
+        File previousFile = saveJournal.previousJournalFile();
+        boolean replayedPrevious = previousFile.isFile() && saveJournal.replay(previousFile, generation) >= 0;
+        if (replayedPrevious) {
+            generation++;
+        } else {
+            Files.deleteIfExists(previousFile.toPath());
+        }
+
+        File journalFile = saveJournal.journalFile();
+        long goodBytes = journalFile.isFile() ? saveJournal.replay(journalFile, generation) : -1;
+        if (replayedPrevious) {
+            // Fold both journals into a new snapshot now
+            saveJournal.generation = generation;
+            saveJournal.compact();
+        } else if (goodBytes < 0) {
+            // No usable journal for this snapshot, start a fresh one
+            saveJournal.startJournal();
+        } else {
+            // Cut off anything after the last good frame and carry on appending
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(goodBytes);
+            }
+            saveJournal.openJournal(goodBytes);
+        }
+        saveJournal.simulation.addRecorder(saveJournal);
+        return saveJournal;
+    }
+
+    public FarmSimulation getSimulation() {
+        return simulation;
+    }
+
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void action(ActionType action, int tile) {
+        try {
+            payload.writeByte(action.ordinal());
+            ReplayLog.writeVarLong(payload, tile);
+            writeFrame();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void buy(ItemType type, int quantity) {
+        try {
+            payload.writeByte(BUY);
+            payload.writeByte(type.ordinal());
+            ReplayLog.writeVarLong(payload, quantity);
+            writeFrame();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // End of day: journal the night, make it durable and compact if it's time
+    // (both in the background)
+    public void sleep(long checksum) {
+        try {
+            payload.writeByte(SLEEP);
+            payload.writeLong(checksum);
+            writeFrame();
+            if (journal == null) {
+                return;
+            }
+            journal.flush();
+            FileChannel channel = journalChannel;
+            writer.execute(() -> syncQuietly(channel));
+            daysSinceSnapshot++;
+            if ((daysSinceSnapshot >= COMPACT_DAYS || journalBytes >= COMPACT_BYTES)
+                    && !isWritingSnapshot() && !snapshotFailed) {
+                compactInBackground();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Whether a background snapshot is still being written
+    public boolean isWritingSnapshot() {
+        return snapshotWrite != null && !snapshotWrite.isDone();
+    }
+
+    // Hand buffered frames to the OS, so they survive the game crashing (call after each player command)
+    public void flush() {
+        try {
+            if (journal != null) {
+                journal.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Write everything out and force it to disk
+    public void sync() throws IOException {
+        if (journal != null) {
+            journal.flush();
+            journalChannel.force(false);
+        }
+    }
+
+    // Fold the journal into a new snapshot and start an empty journal, right now
+    public void compact() throws IOException {
+        waitForSnapshot();
+        long next = generation + 1;
+        GameSnapshot.write(snapshotFile(), simulation, next);
+        // From here the snapshot has everything; a crash now leaves an old-generation journal that recovery skips
+        generation = next;
+        if (journal != null) {
+            journal.close();
+        }
+        startJournal();
+        Files.deleteIfExists(previousJournalFile().toPath());
+    }
+
+    // Capture the game now and write the snapshot on the autosave thread
+    // The journal so far stays on disk, as the previous journal, until the snapshot is safely there
+    private void compactInBackground() throws IOException {
+        long next = generation + 1;
+        GameSnapshot.Capture capture = GameSnapshot.capture(simulation);
+        FileChannel previous = journalChannel;
+        Files.move(journalFile().toPath(), previousJournalFile().toPath(), StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+        startJournal();
+        snapshotWrite = writer.submit(() -> {
+            try {
+                try {
+                    previous.force(false);
+                } finally {
+                    previous.close();
+                }
+                GameSnapshot.write(snapshotFile(), capture, next);
+                Files.deleteIfExists(previousJournalFile().toPath());
+            } catch (IOException e) {
+                // Both journals are still there, so nothing is lost; just stop taking snapshots
+                snapshotFailed = true;
+                System.out.println("Autosave snapshot failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void waitForSnapshot() throws IOException {
+        if (snapshotWrite == null) {
+            return;
+        }
+        try {
+            snapshotWrite.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving");
+        } catch (ExecutionException e) {
+            throw new IOException("Autosave failed", e.getCause());
+        }
+    }
+
+    private static void syncQuietly(FileChannel channel) {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            // Closed by a later compaction, which syncs it itself
+        }
+    }
+
+    // Stop saving and remove the save (e.g. once the game is over)
+    public void delete() throws IOException {
+        simulation.removeRecorder(this);
+        close();
+        Files.deleteIfExists(journalFile().toPath());
+        Files.deleteIfExists(previousJournalFile().toPath());
+        Files.deleteIfExists(snapshotFile().toPath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            waitForSnapshot();
+        } finally {
+            writer.shutdown();
+            if (journal != null) {
+                try {
+                    sync();
+                } finally {
+                    journal.close();
+                    journal = null;
+                }
+            }
+        }
+    }
+
+    private File snapshotFile() {
+        return new File(folder, SNAPSHOT_FILE);
+    }
+
+    private File journalFile() {
+        return new File(folder, JOURNAL_FILE);
+    }
+
+    private File previousJournalFile() {
+        return new File(folder, PREVIOUS_JOURNAL_FILE);
+    }
+
+    // Start an empty journal for the current generation
+    // It isn't synced here; the header goes to disk with the first night. A
+    // journal lost before then holds nothing the snapshot or previous journal lacks.
+    private void startJournal() throws IOException {
+        journalChannel = FileChannel.open(journalFile().toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        journal = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel)));
+        journal.writeInt(MAGIC);
+        journal.writeByte(VERSION);
+        journal.writeLong(generation);
+        journal.flush();
+        journalBytes = HEADER_BYTES;
+        daysSinceSnapshot = 0;
+    }
+
+    private void openJournal(long length) throws IOException {
+        journalChannel = FileChannel.open(journalFile().toPath(), StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        journal = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel)));
+        journalBytes = length;
+    }
+
+    private void writeFrame() throws IOException {
+        if (journal == null) {
+            payloadBytes.reset();
+            return;
+        }
+        crc.reset();
+        crc.update(payloadBytes.bytes(), 0, payloadBytes.size());
+        ReplayLog.writeVarLong(journal, payloadBytes.size());
+        payloadBytes.writeTo(journal);
+        journal.writeInt((int) crc.getValue());
+        journalBytes += varLongSize(payloadBytes.size()) + payloadBytes.size() + 4;
+        payloadBytes.reset();
+    }
+
+    // Replay a journal of the given generation onto the snapshot's game
+    // Returns the length of the good part of the file, or -1 if it belongs to another generation
+    private long replay(File file, long expectedGeneration) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION || in.readLong() != expectedGeneration) {
+                return -1;
+            }
+        } catch (EOFException e) {
+            return -1;
+        }
+
+        long good = HEADER_BYTES;
+        int days = 0;
+        while (true) {
+            byte[] frame;
+            try {
+                int length = (int) ReplayLog.readVarLong(in);
+                if (length <= 0 || length > in.available()) {
+                    break;
+                }
+                frame = new byte[length];
+                in.readFully(frame);
+                crc.reset();
+                crc.update(frame, 0, length);
+                if (in.readInt() != (int) crc.getValue()) {
+                    break;
+                }
+            } catch (IOException e) {
+                break; // Torn frame at the end
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(frame)));
+            good = data.length - in.available();
+            if (frame[0] == SLEEP) {
+                days++;
+            }
+        }
+        daysSinceSnapshot = days;
+        return good;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == SLEEP) {
+            long expected = in.readLong();
+            simulation.advanceDay();
+            if (simulation.checksum() != expected) {
+                throw new IOException("Saved game doesn't replay the same way (day " + simulation.getDay() + ")");
+            }
+        } else if (tag == BUY) {
+            ItemType type = ITEMS[in.readUnsignedByte()];
+            int quantity = (int) ReplayLog.readVarLong(in);
+            if (!simulation.buy(type, quantity)) {
+                throw new IOException("Saved purchase of " + type.getDisplayName() + " no longer applies");
+            }
+        } else if (tag > 0 && tag < ACTIONS.length) {
+            int tile = (int) ReplayLog.readVarLong(in);
+            if (tile >= simulation.getFarmGrid().size() || !simulation.applyAction(ACTIONS[tag], tile)) {
+                throw new IOException("Saved " + ACTIONS[tag] + " on tile " + tile + " no longer applies");
+            }
+        } else {
+            throw new IOException("Unknown journal record " + tag);
+        }
+    }
+
+    private void fail(IOException e) {
+        payloadBytes.reset();
+        if (!failed) {
+            failed = true;
+            System.out.println("Saving stopped: " + e.getMessage());
+        }
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Already reported
+        }
+    }
+
+    // Byte buffer whose array can be read without copying it
+    private static class FrameBuffer extends ByteArrayOutputStream {
+        FrameBuffer() {
+            super(32);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    private static int varLongSize(long value) {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+}
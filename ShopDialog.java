@@ -4,16 +4,18 @@ import javax.swing.*;
 
 // Shop dialog for purchasing items
 class ShopDialog extends JDialog {
+    private FarmSimulation simulation;
     private int playerMoney;
     private Inventory inventory;
     private HashMap<ItemType, JSpinner> quantitySpinners;
     private JLabel totalCostLabel;
     private int totalCost;
     
-    public ShopDialog(JFrame parent, int playerMoney, Inventory inventory) {
+    public ShopDialog(JFrame parent, FarmSimulation simulation) {
         super(parent, "Farm Shop", true);
-        this.playerMoney = playerMoney;
-        this.inventory = inventory;
+        this.simulation = simulation;
+        this.playerMoney = simulation.getMoney();
+        this.inventory = simulation.getInventory();
         this.quantitySpinners = new HashMap<>();
         this.totalCost = 0;
         
@@ -47,7 +49,7 @@ class ShopDialog extends JDialog {
             itemPanel.add(new JLabel(itemType.getDisplayName()));
             
             // Item price
-            itemPanel.add(new JLabel("$" + itemType.getPrice()));
+            itemPanel.add(new JLabel("$" + simulation.getPrice(itemType)));
             
             // Current quantity
             itemPanel.add(new JLabel(String.valueOf(inventory.getItemCount(itemType))));
@@ -96,7 +98,7 @@ class ShopDialog extends JDialog {
         for (ItemType itemType : ItemType.values()) {
             JSpinner spinner = quantitySpinners.get(itemType);
             int quantity = (Integer) spinner.getValue();
-            totalCost += quantity * itemType.getPrice();
+            totalCost += quantity * simulation.getPrice(itemType);
         }
         
         totalCostLabel.setText("Total Cost: $" + totalCost);
@@ -119,12 +121,10 @@ class ShopDialog extends JDialog {
             int quantity = (Integer) spinner.getValue();
             
             if (quantity > 0) {
-                inventory.addItem(itemType, quantity);
+                simulation.buy(itemType, quantity);
             }
         }
-        
-        // Deduct money
-        playerMoney -= totalCost;
+        playerMoney = simulation.getMoney();
         
         JOptionPane.showMessageDialog(this, "Purchase successful! You spent $" + totalCost);
         dispose();
@@ -0,0 +1,28 @@
+import java.util.random.RandomGenerator;
+
+// Small seeded random number generator used by the simulation
+// It's the SplitMix64 algorithm (the same one behind SplittableRandom), but
+// the whole state is a single long, so it can be saved, copied and restored.
+class SimRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SimRandom(long seed) {
+        state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return RandomStreams.mix64(state);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
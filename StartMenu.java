@@ -6,6 +6,12 @@ import javax.swing.*;
 
 // Start menu class
 class StartMenu extends JFrame {
+    private static String difficulty = DifficultyProfile.DEFAULT_NAME; // Kept between games
+    private static int landSize = FarmSimulation.INITIAL_LAND_SIZE;    // Farm width, kept between games
+    
+    // Farm widths offered in the settings; the big ones are for zooming around a huge farm
+    private static final int[] LAND_SIZES = {4, 8, 16, 64, 256, 1024};
+    
     private Image backgroundImage;
     
     public StartMenu() {
@@ -81,28 +87,33 @@ class StartMenu extends JFrame {
         buttonPanel.setOpaque(false);
         buttonPanel.setLayout(new BoxLayout(buttonPanel, BoxLayout.Y_AXIS));
         
+        JButton continueButton = new JButton("Continue");
         JButton playButton = new JButton("Play Game");
         JButton settingsButton = new JButton("Settings");
         JButton exitButton = new JButton("Exit");
         
         // Style buttons
         Dimension buttonSize = new Dimension(150, 40);
+        continueButton.setMaximumSize(buttonSize);
         playButton.setMaximumSize(buttonSize);
         settingsButton.setMaximumSize(buttonSize);
         exitButton.setMaximumSize(buttonSize);
         
+        continueButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         playButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         settingsButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         exitButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         
+        continueButton.setFont(new Font("Arial", Font.BOLD, 14));
         playButton.setFont(new Font("Arial", Font.BOLD, 14));
         settingsButton.setFont(new Font("Arial", Font.PLAIN, 14));
         exitButton.setFont(new Font("Arial", Font.PLAIN, 14));
         
         // Add action listeners
+        continueButton.addActionListener(e -> continueGame());
         playButton.addActionListener(e -> {
             dispose();
-            SwingUtilities.invokeLater(() -> new CornHarvestGame());
+            SwingUtilities.invokeLater(() -> new CornHarvestGame(difficulty, landSize));
         });
         
         settingsButton.addActionListener(e -> showSettings());
@@ -111,6 +122,10 @@ class StartMenu extends JFrame {
         
         // Add buttons to panel
         buttonPanel.add(Box.createVerticalGlue());
+        if (SaveJournal.exists(new File(CornHarvestGame.SAVE_FOLDER))) {
+            buttonPanel.add(continueButton);
+            buttonPanel.add(Box.createRigidArea(new Dimension(0, 15)));
+        }
         buttonPanel.add(playButton);
         buttonPanel.add(Box.createRigidArea(new Dimension(0, 15)));
         buttonPanel.add(settingsButton);
@@ -128,14 +143,38 @@ class StartMenu extends JFrame {
         setVisible(true);
     }
     
+    // Load the saved game and carry on where it was left
+    private void continueGame() {
+        SaveJournal saveJournal;
+        try {
+            saveJournal = SaveJournal.recover(new File(CornHarvestGame.SAVE_FOLDER), new DayTickEngine(), new EventBus());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "The saved game couldn't be loaded:\n" + e.getMessage(),
+                "Continue", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        difficulty = saveJournal.getSimulation().getDifficulty().getName();
+        landSize = saveJournal.getSimulation().getLandSize();
+        dispose();
+        SwingUtilities.invokeLater(() -> new CornHarvestGame(saveJournal));
+    }
+    
     private void showSettings() {
         JPanel settingsPanel = new JPanel();
         settingsPanel.setLayout(new BoxLayout(settingsPanel, BoxLayout.Y_AXIS));
         
         JLabel difficultyLabel = new JLabel("Difficulty:");
-        String[] difficulties = {"Easy", "Normal", "Hard"};
-        JComboBox<String> difficultyComboBox = new JComboBox<>(difficulties);
-        difficultyComboBox.setSelectedIndex(1); // Default to Normal
+        JComboBox<String> difficultyComboBox = new JComboBox<>(DifficultyProfile.NAMES);
+        difficultyComboBox.setSelectedItem(difficulty);
+        
+        JLabel landSizeLabel = new JLabel("Farm Size:");
+        JComboBox<String> landSizeComboBox = new JComboBox<>();
+        for (int size : LAND_SIZES) {
+            landSizeComboBox.addItem(size + " x " + size);
+            if (size == landSize) {
+                landSizeComboBox.setSelectedIndex(landSizeComboBox.getItemCount() - 1);
+            }
+        }
         
         JLabel soundLabel = new JLabel("Sound Effects:");
         JCheckBox soundCheckBox = new JCheckBox("Enabled");
@@ -149,6 +188,9 @@ class StartMenu extends JFrame {
         settingsPanel.add(difficultyLabel);
         settingsPanel.add(difficultyComboBox);
         settingsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+        settingsPanel.add(landSizeLabel);
+        settingsPanel.add(landSizeComboBox);
+        settingsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
         settingsPanel.add(soundLabel);
         settingsPanel.add(soundCheckBox);
         settingsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
@@ -156,5 +198,19 @@ class StartMenu extends JFrame {
         settingsPanel.add(musicCheckBox);
         
         JOptionPane.showMessageDialog(this, settingsPanel, "Game Settings", JOptionPane.PLAIN_MESSAGE);
+        difficulty = (String) difficultyComboBox.getSelectedItem();
+        if (landSizeComboBox.getSelectedIndex() >= 0) {
+            landSize = LAND_SIZES[landSizeComboBox.getSelectedIndex()];
+        }
+    }
+    
+    // Difficulty picked in the settings, used for new games
+    public static String getDifficulty() {
+        return difficulty;
+    }
+    
+    // Farm width picked in the settings, used for new games
+    public static int getLandSize() {
+        return landSize;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+// A way of playing the game, used by bots and batch runs instead of a player
+// playDay is called once every morning and should only change the game
+// through FarmSimulation's applyAction and buy, like a player would.
+interface Strategy {
+    void playDay(FarmSimulation simulation);
+
+    // Look up a built-in strategy by name ("greedy", "careful" or "mcts")
+    static Strategy named(String name) {
+        switch (name) {
+            case "greedy": return new GreedyStrategy();
+            case "careful": return new CarefulStrategy();
+            case "mcts": return new FarmerBot();
+            default: throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+}
+
+// Harvest everything ripe, plant every empty tile and water every crop
+class GreedyStrategy implements Strategy {
+    public void playDay(FarmSimulation simulation) {
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        TileIndex tileIndex = farmGrid.getTileIndex();
+
+        for (int i = tileIndex.nextMature(0); i >= 0; i = tileIndex.nextMature(i + 1)) {
+            simulation.applyAction(ActionType.HARVEST, i);
+        }
+
+        TileBitmap empty = tileIndex.stage(CropStage.EMPTY);
+        for (int i = empty.nextSetBit(0); i >= 0; i = empty.nextSetBit(i + 1)) {
+            if (!simulation.getInventory().hasItem(ItemType.SEED) && !simulation.buy(ItemType.SEED, 1)) {
+                break;
+            }
+            simulation.applyAction(ActionType.PLANT, i);
+        }
+
+        for (int i = tileIndex.nextUnwatered(0); i >= 0; i = tileIndex.nextUnwatered(i + 1)) {
+            simulation.applyAction(ActionType.WATER, i);
+        }
+    }
+}
+
+// Like greedy, but also uses up any bug killer and fertilizer in the inventory
+// (they cost about as much as a crop sells for, so it never buys more)
+class CarefulStrategy extends GreedyStrategy {
+    public void playDay(FarmSimulation simulation) {
+        super.playDay(simulation);
+        Inventory inventory = simulation.getInventory();
+        TileIndex tileIndex = simulation.getFarmGrid().getTileIndex();
+
+        for (int i = tileIndex.nextUnprotected(0); i >= 0 && inventory.hasItem(ItemType.BUG_KILLER);
+                 i = tileIndex.nextUnprotected(i + 1)) {
+            simulation.applyAction(ActionType.PROTECT, i);
+        }
+
+        TileBitmap live = tileIndex.live();
+        for (int i = live.nextSetBit(0, tileIndex.fertilized(), true); i >= 0 && inventory.hasItem(ItemType.FERTILIZER);
+                 i = live.nextSetBit(i + 1, tileIndex.fertilized(), true)) {
+            simulation.applyAction(ActionType.FERTILIZE, i);
+        }
+    }
+}
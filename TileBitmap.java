@@ -0,0 +1,220 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Fixed-size bitmap with one bit per farm tile
+// A second, smaller bitmap marks which 64-bit words are non-zero, so finding
+// the next set bit skips over empty parts of the farm 4096 tiles at a time.
+// Unlike java.util.BitSet nothing is resized on write, so threads working on
+// separate DayTickEngine ranges (4096 tiles each) never touch the same word.
+class TileBitmap {
+    private final int size;
+    private final long[] words;
+    private final long[] summary; // Bit w is set when words[w] != 0
+
+    public TileBitmap(int size) {
+        this.size = size;
+        words = new long[(size + 63) >>> 6];
+        summary = new long[(words.length + 63) >>> 6];
+    }
+
+    // Independent copy with the same bits set
+    public TileBitmap(TileBitmap other) {
+        size = other.size;
+        words = other.words.clone();
+        summary = other.summary.clone();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void set(int index) {
+        int w = index >>> 6;
+        words[w] |= 1L << index;
+        summary[w >>> 6] |= 1L << w;
+    }
+
+    public void clear(int index) {
+        int w = index >>> 6;
+        long word = words[w] & ~(1L << index);
+        words[w] = word;
+        if (word == 0) {
+            summary[w >>> 6] &= ~(1L << w);
+        }
+    }
+
+    public void set(int index, boolean on) {
+        if (on) {
+            set(index);
+        } else {
+            clear(index);
+        }
+    }
+
+    // Bits of count tiles from index as the low bits of a long, for bulk passes
+    // over a run of tiles (the run has to sit inside one 64-bit word)
+    public long getRun(int index, int count) {
+        return (words[index >>> 6] >>> index) & runMask(count);
+    }
+
+    // Overwrite count bits from index with the low bits of bits (same rules as getRun)
+    public void setRun(int index, int count, long bits) {
+        int w = index >>> 6;
+        long run = runMask(count) << index;
+        long word = (words[w] & ~run) | ((bits << index) & run);
+        words[w] = word;
+        if (word != 0) {
+            summary[w >>> 6] |= 1L << w;
+        } else {
+            summary[w >>> 6] &= ~(1L << w);
+        }
+    }
+
+    private static long runMask(int count) {
+        return count == 64 ? -1L : (1L << count) - 1;
+    }
+
+    // Make [from, to) the same as in other (a bitmap of the same size); the
+    // range has to start on a word, and end on one or at the end of the bitmap
+    public void copyRange(TileBitmap other, int from, int to) {
+        for (int w = from >>> 6; w < (to + 63) >>> 6; w++) {
+            long word = other.words[w];
+            words[w] = word;
+            if (word != 0) {
+                summary[w >>> 6] |= 1L << w;
+            } else {
+                summary[w >>> 6] &= ~(1L << w);
+            }
+        }
+    }
+
+    public void clearAll() {
+        Arrays.fill(words, 0);
+        Arrays.fill(summary, 0);
+    }
+
+    // Find the first set bit at or after from, or -1 if there are none
+    public int nextSetBit(int from) {
+        return nextSetBit(from, null, false);
+    }
+
+    // Find the first tile at or after from that is set here and is also set
+    // (or, with exclude, not set) in the other bitmap
+    public int nextSetBit(int from, TileBitmap other, boolean exclude) {
+        if (from < 0 || from >= size) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = combine(w, other, exclude) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            w = nextNonZeroWord(w + 1);
+            if (w < 0) {
+                return -1;
+            }
+            word = combine(w, other, exclude);
+        }
+    }
+
+    // Visit, in order, the tiles set here (and also set, or with exclude not
+    // set, in the other bitmap) whose position among those tiles is marked in
+    // ranks. Each rank is cleared once used. Whole words are skipped by bit
+    // count, so this is one pass over the words rather than the tiles.
+    public void forEachRanked(TileBitmap ranks, TileBitmap other, boolean exclude, IntConsumer action) {
+        int rank = ranks.nextSetBit(0);
+        int seen = 0; // Matching tiles in the words before w
+        int w = nextNonZeroWord(0);
+        while (rank >= 0 && w >= 0) {
+            long word = combine(w, other, exclude);
+            int count = Long.bitCount(word);
+            while (rank >= 0 && rank < seen + count) {
+                // Drop the lower matching tiles to get to the one with this rank
+                long bits = word;
+                for (int skip = rank - seen; skip > 0; skip--) {
+                    bits &= bits - 1;
+                }
+                ranks.clear(rank);
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                rank = ranks.nextSetBit(rank + 1);
+            }
+            seen += count;
+            w = nextNonZeroWord(w + 1);
+        }
+    }
+
+    // Find the first set bit in [from, to), or -1 if there are none, reading
+    // only that range's words and their summary bits (so threads working on
+    // separate ranges can each look through their own)
+    public int nextSetBit(int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long nonZero = summary[w >>> 6] & (-1L << w);
+            if (nonZero == 0) {
+                w |= 63; // Nothing more in this summary word
+                continue;
+            }
+            w = (w & ~63) + Long.numberOfTrailingZeros(nonZero);
+            if (w > last) {
+                return -1;
+            }
+            long word = words[w];
+            if (w == first) {
+                word &= -1L << from;
+            }
+            if (w == last) {
+                word &= -1L >>> -to;
+            }
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    // Count set bits
+    public int cardinality() {
+        int count = 0;
+        for (int s = 0; s < summary.length; s++) {
+            long bits = summary[s];
+            while (bits != 0) {
+                count += Long.bitCount(words[(s << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    private long combine(int w, TileBitmap other, boolean exclude) {
+        if (other == null) {
+            return words[w];
+        }
+        return exclude ? words[w] & ~other.words[w] : words[w] & other.words[w];
+    }
+
+    // Use the summary to jump to the next non-zero word at or after w
+    private int nextNonZeroWord(int w) {
+        if (w >= words.length) {
+            return -1;
+        }
+        int s = w >>> 6;
+        long bits = summary[s] & (-1L << w);
+        while (bits == 0) {
+            if (++s >= summary.length) {
+                return -1;
+            }
+            bits = summary[s];
+        }
+        return (s << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
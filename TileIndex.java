@@ -0,0 +1,166 @@
+// Bitmap indexes over the farm, kept up to date on every tile state change
+// There's one bitmap per crop stage, one for live crops, and one per flag,
+// so questions like "which tiles are mature" or "which live crops still need
+// water" only visit the matching tiles instead of scanning the whole farm.
+class TileIndex {
+    private static final int STAGE_MASK = FarmGrid.STAGE_MASK;
+    private static final int FLAG_MASK = FarmGrid.WATERED | FarmGrid.FERTILIZED
+        | FarmGrid.PROTECTED | FarmGrid.SELECTED;
+
+    private final TileBitmap[] stages;
+    private final TileBitmap live;
+    private final TileBitmap watered;
+    private final TileBitmap fertilized;
+    private final TileBitmap protectedTiles;
+    private final TileBitmap selected;
+
+    public TileIndex(int size) {
+        stages = new TileBitmap[CropStage.values().length];
+        for (int s = 0; s < stages.length; s++) {
+            stages[s] = new TileBitmap(size);
+        }
+        live = new TileBitmap(size);
+        watered = new TileBitmap(size);
+        fertilized = new TileBitmap(size);
+        protectedTiles = new TileBitmap(size);
+        selected = new TileBitmap(size);
+    }
+
+    // Independent copy of every bitmap
+    public TileIndex(TileIndex other) {
+        stages = new TileBitmap[other.stages.length];
+        for (int s = 0; s < stages.length; s++) {
+            stages[s] = new TileBitmap(other.stages[s]);
+        }
+        live = new TileBitmap(other.live);
+        watered = new TileBitmap(other.watered);
+        fertilized = new TileBitmap(other.fertilized);
+        protectedTiles = new TileBitmap(other.protectedTiles);
+        selected = new TileBitmap(other.selected);
+    }
+
+    // Make the bits of tiles [from, to) the same as in other (see TileBitmap.copyRange)
+    public void copyRange(TileIndex other, int from, int to) {
+        for (int s = 0; s < stages.length; s++) {
+            stages[s].copyRange(other.stages[s], from, to);
+        }
+        live.copyRange(other.live, from, to);
+        watered.copyRange(other.watered, from, to);
+        fertilized.copyRange(other.fertilized, from, to);
+        protectedTiles.copyRange(other.protectedTiles, from, to);
+        selected.copyRange(other.selected, from, to);
+    }
+
+    // Rewrite a run of tiles' stage, live, watered and fertilized bits in one go
+    // (bit n is tile index + n, and the run sits inside one bitmap word), for
+    // VectorGrowthKernel. Growth never changes the protected or selected flags.
+    public void setGrowthRun(int index, int count, long[] stageBits, long liveBits, long wateredBits,
+                             long fertilizedBits) {
+        for (int s = 0; s < stages.length; s++) {
+            stages[s].setRun(index, count, stageBits[s]);
+        }
+        live.setRun(index, count, liveBits);
+        watered.setRun(index, count, wateredBits);
+        fertilized.setRun(index, count, fertilizedBits);
+    }
+
+    // Record that a tile's state word changed from oldState to newState
+    public void update(int index, int oldState, int newState) {
+        int oldStage = oldState & STAGE_MASK;
+        int newStage = newState & STAGE_MASK;
+        if (oldStage != newStage) {
+            stages[oldStage].clear(index);
+            stages[newStage].set(index);
+            live.set(index, isLiveStage(newStage));
+        }
+
+        int changedFlags = (oldState ^ newState) & FLAG_MASK;
+        if (changedFlags != 0) {
+            if ((changedFlags & FarmGrid.WATERED) != 0) {
+                watered.set(index, (newState & FarmGrid.WATERED) != 0);
+            }
+            if ((changedFlags & FarmGrid.FERTILIZED) != 0) {
+                fertilized.set(index, (newState & FarmGrid.FERTILIZED) != 0);
+            }
+            if ((changedFlags & FarmGrid.PROTECTED) != 0) {
+                protectedTiles.set(index, (newState & FarmGrid.PROTECTED) != 0);
+            }
+            if ((changedFlags & FarmGrid.SELECTED) != 0) {
+                selected.set(index, (newState & FarmGrid.SELECTED) != 0);
+            }
+        }
+    }
+
+    // Rebuild every bitmap from scratch, e.g. after opening a saved farm
+    public void rebuild(FarmStore store) {
+        for (TileBitmap bitmap : stages) {
+            bitmap.clearAll();
+        }
+        live.clearAll();
+        watered.clearAll();
+        fertilized.clearAll();
+        protectedTiles.clearAll();
+        selected.clearAll();
+
+        // Pretend every tile changed from "no stage, no flags" to its real state
+        for (int i = 0; i < store.size(); i++) {
+            int state = store.getState(i);
+            stages[state & STAGE_MASK].set(i);
+            live.set(i, isLiveStage(state & STAGE_MASK));
+            update(i, state & STAGE_MASK, state);
+        }
+    }
+
+    public TileBitmap stage(CropStage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public TileBitmap live() {
+        return live;
+    }
+
+    public TileBitmap watered() {
+        return watered;
+    }
+
+    public TileBitmap fertilized() {
+        return fertilized;
+    }
+
+    public TileBitmap protectedTiles() {
+        return protectedTiles;
+    }
+
+    public TileBitmap selected() {
+        return selected;
+    }
+
+    // Next mature (harvestable) crop at or after from, or -1
+    public int nextMature(int from) {
+        return stages[CropStage.MATURE.ordinal()].nextSetBit(from);
+    }
+
+    // Next live crop at or after from, or -1
+    public int nextLive(int from) {
+        return live.nextSetBit(from);
+    }
+
+    // Next live crop that hasn't been watered today, or -1
+    public int nextUnwatered(int from) {
+        return live.nextSetBit(from, watered, true);
+    }
+
+    // Next live crop that isn't protected by bug killer, or -1
+    public int nextUnprotected(int from) {
+        return live.nextSetBit(from, protectedTiles, true);
+    }
+
+    // Next selected tile at or after from, or -1
+    public int nextSelected(int from) {
+        return selected.nextSetBit(from);
+    }
+
+    private static boolean isLiveStage(int stage) {
+        return stage != CropStage.EMPTY.ordinal() && stage != CropStage.DEAD.ordinal();
+    }
+}
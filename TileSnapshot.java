@@ -0,0 +1,75 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Class to freeze a ChunkedFarmStore's tiles for a background save without copying them
+// Taking one is O(chunks), not O(tiles). While it's open, the first write to
+// a chunk copies that chunk's old tiles in here, so the writer thread still
+// sees the farm exactly as it was. The writer takes the chunks in order
+// (packing untouched ones straight from the live arrays) and each chunk stops
+// costing anything once it's been taken. Releasing it ends the copying.
+class TileSnapshot {
+    static final int CHUNK_BITS = ChunkedFarmStore.CHUNK_BITS;
+    static final int CHUNK_SIZE = ChunkedFarmStore.CHUNK_SIZE; // 4096 tiles, the store's chunks
+
+    private final ChunkedFarmStore store;
+    private final int size;
+    private final long[][] saved;            // Old packed tiles of chunks written to since the freeze
+    private final AtomicIntegerArray settled; // 1 once a chunk is saved or taken (needs no more copying)
+    private final long[] buffer = new long[CHUNK_SIZE];
+
+    TileSnapshot(ChunkedFarmStore store) {
+        this.store = store;
+        this.size = store.size();
+        int chunks = chunkCount();
+        saved = new long[chunks][];
+        settled = new AtomicIntegerArray(chunks);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int chunkCount() {
+        return (size + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+    }
+
+    // Number of tiles in a chunk (the last one can be short)
+    public int chunkLength(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_BITS));
+    }
+
+    // Called by the store before it changes a tile in this chunk
+    void preserve(int chunk) {
+        if (settled.get(chunk) != 0) {
+            return;
+        }
+        synchronized (this) {
+            if (settled.get(chunk) == 0) {
+                saved[chunk] = pack(chunk, new long[chunkLength(chunk)]);
+                settled.set(chunk, 1);
+            }
+        }
+    }
+
+    // The chunk's tiles as of the freeze, packed like FarmGrid.packedTile
+    // Each chunk is taken once; the array is only good until the next call
+    public synchronized long[] take(int chunk) {
+        long[] tiles = saved[chunk];
+        if (tiles != null) {
+            saved[chunk] = null;
+            return tiles;
+        }
+        pack(chunk, buffer);
+        settled.set(chunk, 1); // Only after packing, writers go straight ahead once they see this
+        return buffer;
+    }
+
+    // Stop copying on write (once the writer is done, or has given up)
+    public void release() {
+        store.release(this);
+    }
+
+    private long[] pack(int chunk, long[] tiles) {
+        store.packChunk(chunk, tiles);
+        return tiles;
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Hierarchical timer wheel for timed effects, keyed by game day
+// Level 0 has one slot per day for the next 64 days, level 1 one slot per
+// 64 days, and so on. Advancing a day only looks at the one slot that is due
+// (plus an occasional cascade of a higher slot into the lower levels), so the
+// daily cost depends on how many effects expire that day, not on how many
+// effects are pending or how big the farm is.
+//
+// Timers are plain (effect, payload) numbers kept in pooled arrays rather
+// than callback objects, which keeps the wheel cheap to copy and to save.
+class TimerWheel {
+    // Called for each timer that expires
+    interface Listener {
+        void onExpire(int effect, int payload);
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4; // 64^4 days ahead is plenty
+    private static final int CANCELLED = Integer.MIN_VALUE;
+
+    private final int[][] slotHeads; // First timer in each slot, or -1
+
+    // Timer pool: one entry per timer, linked into a slot through next
+    private int[] timerDay;
+    private int[] timerEffect;
+    private int[] timerPayload;
+    private int[] timerNext;
+    private int freeTimer; // Head of the free list, or -1
+    private int timerCount;
+
+    private int currentDay;
+
+    public TimerWheel(int startDay) {
+        slotHeads = new int[LEVELS][SLOTS];
+        for (int[] level : slotHeads) {
+            Arrays.fill(level, -1);
+        }
+        timerDay = new int[16];
+        timerEffect = new int[16];
+        timerPayload = new int[16];
+        timerNext = new int[16];
+        freeTimer = -1;
+        timerCount = 0;
+        currentDay = startDay;
+    }
+
+    // Independent copy with the same pending timers
+    public TimerWheel(TimerWheel other) {
+        slotHeads = new int[LEVELS][];
+        for (int level = 0; level < LEVELS; level++) {
+            slotHeads[level] = other.slotHeads[level].clone();
+        }
+        timerDay = other.timerDay.clone();
+        timerEffect = other.timerEffect.clone();
+        timerPayload = other.timerPayload.clone();
+        timerNext = other.timerNext.clone();
+        freeTimer = other.freeTimer;
+        timerCount = other.timerCount;
+        currentDay = other.currentDay;
+    }
+
+    // Write the wheel exactly as it is (slots and timer pool), so timer ids stay valid after loading
+    public void save(DataOutput out) throws IOException {
+        out.writeInt(currentDay);
+        out.writeInt(timerCount);
+        out.writeInt(freeTimer);
+        for (int id = 0; id < timerCount; id++) {
+            out.writeInt(timerDay[id]);
+            out.writeInt(timerEffect[id]);
+            out.writeInt(timerPayload[id]);
+            out.writeInt(timerNext[id]);
+        }
+        for (int[] level : slotHeads) {
+            for (int head : level) {
+                out.writeInt(head);
+            }
+        }
+    }
+
+    // Replace the whole wheel with one written by save
+    public void load(DataInput in) throws IOException {
+        currentDay = in.readInt();
+        timerCount = in.readInt();
+        freeTimer = in.readInt();
+        int capacity = Math.max(16, timerCount);
+        timerDay = new int[capacity];
+        timerEffect = new int[capacity];
+        timerPayload = new int[capacity];
+        timerNext = new int[capacity];
+        for (int id = 0; id < timerCount; id++) {
+            timerDay[id] = in.readInt();
+            timerEffect[id] = in.readInt();
+            timerPayload[id] = in.readInt();
+            timerNext[id] = in.readInt();
+        }
+        for (int[] level : slotHeads) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = in.readInt();
+            }
+        }
+    }
+
+    public int getCurrentDay() {
+        return currentDay;
+    }
+
+    // Schedule an effect to expire on the given day (at least one day from now)
+    // Returns an id that can be passed to cancel
+    public int schedule(int day, int effect, int payload) {
+        if (day <= currentDay) {
+            throw new IllegalArgumentException("Timer day " + day + " is not after day " + currentDay);
+        }
+        int id = allocate();
+        timerDay[id] = day;
+        timerEffect[id] = effect;
+        timerPayload[id] = payload;
+        insert(id);
+        return id;
+    }
+
+    // Cancel a timer that hasn't expired yet; it's skipped when its day comes
+    // (ids are reused once a timer expires, so only cancel timers still pending)
+    public void cancel(int id) {
+        timerEffect[id] = CANCELLED;
+    }
+
+    // Move to the next day and fire every timer that expires on it
+    public void advance(Listener listener) {
+        currentDay++;
+
+        // When the lower levels wrap around, spread the next slot of the level
+        // above down into them, starting from the highest level that wrapped
+        int top = 0;
+        while (top < LEVELS - 1 && (currentDay & ((1 << (SLOT_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            int slot = (currentDay >>> (SLOT_BITS * level)) & SLOT_MASK;
+            int id = slotHeads[level][slot];
+            slotHeads[level][slot] = -1;
+            while (id >= 0) {
+                int next = timerNext[id];
+                insert(id);
+                id = next;
+            }
+        }
+
+        int slot = currentDay & SLOT_MASK;
+        int id = slotHeads[0][slot];
+        slotHeads[0][slot] = -1;
+        while (id >= 0) {
+            int next = timerNext[id];
+            int effect = timerEffect[id];
+            int payload = timerPayload[id];
+            release(id);
+            if (effect != CANCELLED) {
+                listener.onExpire(effect, payload);
+            }
+            id = next;
+        }
+    }
+
+    // Put a timer into the slot for how far away its day is
+    private void insert(int id) {
+        int day = timerDay[id];
+        int level = 0;
+        long delta = (long) day - currentDay;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (day >>> (SLOT_BITS * level)) & SLOT_MASK;
+        timerNext[id] = slotHeads[level][slot];
+        slotHeads[level][slot] = id;
+    }
+
+    private int allocate() {
+        if (freeTimer >= 0) {
+            int id = freeTimer;
+            freeTimer = timerNext[id];
+            return id;
+        }
+        if (timerCount == timerDay.length) {
+            int capacity = timerCount * 2;
+            timerDay = Arrays.copyOf(timerDay, capacity);
+            timerEffect = Arrays.copyOf(timerEffect, capacity);
+            timerPayload = Arrays.copyOf(timerPayload, capacity);
+            timerNext = Arrays.copyOf(timerNext, capacity);
+        }
+        return timerCount++;
+    }
+
+    private void release(int id) {
+        timerNext[id] = freeTimer;
+        freeTimer = id;
+    }
+}
@@ -0,0 +1,211 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Growth pass that does GrowthKernel's arithmetic a vector of tiles at a time
+// Every tile's state word, progress and counters are widened into int lanes;
+// growth amount, counter ticks, progress and the 30/70/100 stage thresholds
+// are all masked lane operations. The farm is taken 64 tiles (one bitmap
+// word) at a time: the block's new state words are turned into TileIndex
+// bits with lane shifts and OR reductions, and the FarmStats changes are
+// counted from the old and new bits and added once per range. Only the survival roll
+// for unwatered crops and the timeline lookup when a vector mixes planting
+// epochs stay per tile. Needs jdk.incubator.vector
+// (--add-modules jdk.incubator.vector), see GrowthKernel for the fallback.
+class VectorGrowthKernel {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // Narrower vectors have no matching byte species, and the index bits are
+    // packed two 16-lane planes to an int
+    static final boolean SUPPORTED = INTS.length() >= 8 && INTS.length() <= 16;
+
+    // Same lane count as INTS, for widening the progress and counter arrays
+    private static final VectorSpecies<Short> SHORTS = SUPPORTED
+        ? VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2)) : null;
+    private static final VectorSpecies<Byte> BYTES = SUPPORTED
+        ? VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.vectorBitSize() / 4)) : null;
+
+    private static final int BLOCK = 64; // Tiles per bitmap word
+    private static final IntVector LANE = SUPPORTED ? IntVector.zero(INTS).addIndex(1) : null; // 0, 1, 2, ...
+    private static final CropStage[] STAGES = CropStage.values();
+    private static final int STAGE_MASK = FarmGrid.STAGE_MASK;
+    private static final int WATERED = FarmGrid.WATERED;
+    private static final int FERTILIZED = FarmGrid.FERTILIZED;
+    private static final int SEED = CropStage.SEED.ordinal();
+    private static final int SEEDLING = CropStage.SEEDLING.ordinal();
+    private static final int GROWING = CropStage.GROWING.ordinal();
+    private static final int MATURE = CropStage.MATURE.ordinal();
+    private static final int DEAD = CropStage.DEAD.ordinal();
+
+    // Slots of the totals array filled in by updateBlock
+    private static final int LIVE = 0;
+    private static final int WATERED_LIVE = 1;
+    private static final int PROTECTED_LIVE = 2;
+
+    private VectorGrowthKernel() {
+    }
+
+    // Grow tiles [from, to) of the chunk starting at tile base (a multiple of BLOCK)
+    public static void growRange(ChunkedFarmStore.Chunk chunk, int base, TileIndex tileIndex, FarmStats stats,
+                                 ModifierTimeline timeline, long seed, long tick, int from, int to) {
+        int[] state = chunk.state;
+        short[] growthProgress = chunk.growthProgress;
+        byte[] growthDelay = chunk.growthDelay;
+        byte[] growthAcceleration = chunk.growthAcceleration;
+
+        // Tiles before the first whole block, and after the last, go the scalar way
+        int start = Math.min(to, (from + BLOCK - 1) / BLOCK * BLOCK);
+        int end = Math.max(start, to / BLOCK * BLOCK);
+        GrowthKernel.growScalar(chunk, base, tileIndex, stats, timeline, seed, tick, from, start);
+
+        int lanes = INTS.length();
+        int[] scratch = new int[lanes]; // Per-lane rolls and modes
+        long[] stageBits = new long[STAGES.length];
+        int[] stageDeltas = new int[STAGES.length];
+        int[] totals = new int[3];
+        IntVector progressAdded = IntVector.zero(INTS);
+        TileBitmap liveTiles = tileIndex.live();
+        for (int block = start; block < end; block += BLOCK) {
+            if (liveTiles.getRun(block, BLOCK) == 0) {
+                continue; // Nothing growing in this block
+            }
+            boolean changed = false;
+            for (int i = block; i < block + BLOCK; i += lanes) {
+                int t = i - base; // Position in the chunk's arrays
+                IntVector word = IntVector.fromArray(INTS, state, t);
+                IntVector stage = word.and(STAGE_MASK);
+                VectorMask<Integer> live = stage.compare(VectorOperators.GE, SEED)
+                    .and(stage.compare(VectorOperators.LE, MATURE));
+                if (!live.anyTrue()) {
+                    continue;
+                }
+
+                // Unwatered crops get the same 40% roll to die as in FarmGrid.grow
+                VectorMask<Integer> thirsty = live.andNot(word.and(WATERED).compare(VectorOperators.NE, 0));
+                VectorMask<Integer> dies = INTS.maskAll(false);
+                if (thirsty.anyTrue()) {
+                    for (int lane = 0; lane < lanes; lane++) {
+                        scratch[lane] = thirsty.laneIsSet(lane) ? RandomStreams.roll(seed, tick, i + lane, 100) : 100;
+                    }
+                    dies = IntVector.fromArray(INTS, scratch, 0).compare(VectorOperators.LT, 40);
+                }
+                VectorMask<Integer> grows = live.andNot(dies);
+
+                IntVector mode = modes(timeline, state, t, word, live, scratch);
+                IntVector acceleration = (IntVector) ByteVector.fromArray(BYTES, growthAcceleration, t)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+                IntVector delay = (IntVector) ByteVector.fromArray(BYTES, growthDelay, t)
+                    .convertShape(VectorOperators.B2I, INTS, 0);
+                IntVector oldProgress = (IntVector) ShortVector.fromArray(SHORTS, growthProgress, t)
+                    .convertShape(VectorOperators.S2I, INTS, 0);
+
+                // Fertilizer doubles growth, acceleration doubles it again, delay stops it
+                VectorMask<Integer> accelerating = acceleration.compare(VectorOperators.GT, 0);
+                VectorMask<Integer> delaying = delay.compare(VectorOperators.GT, 0);
+                IntVector growthAmount = IntVector.broadcast(INTS, 10)
+                    .lanewise(VectorOperators.LSHL, word.and(FERTILIZED).lanewise(VectorOperators.LSHR, 4));
+                growthAmount = growthAmount.lanewise(VectorOperators.LSHL, 1,
+                    accelerating.or(mode.and(ModifierTimeline.ACCELERATED).compare(VectorOperators.NE, 0)));
+                growthAmount = growthAmount.blend(0,
+                    delaying.or(mode.and(ModifierTimeline.DELAYED).compare(VectorOperators.NE, 0)));
+
+                // Counters only tick down on tiles that actually grew
+                acceleration = acceleration.sub(1, accelerating.and(grows));
+                delay = delay.sub(1, delaying.and(grows));
+
+                IntVector progress = oldProgress.add(growthAmount).min(Short.MAX_VALUE);
+                IntVector newProgress = oldProgress.blend(progress, grows);
+                progressAdded = progressAdded.add(newProgress.sub(oldProgress));
+
+                IntVector newStage = stage
+                    .blend(SEEDLING, progress.compare(VectorOperators.GE, 30))
+                    .blend(GROWING, progress.compare(VectorOperators.GE, 70))
+                    .blend(MATURE, progress.compare(VectorOperators.GE, 100));
+                IntVector grown = word.and(~(STAGE_MASK | WATERED | FERTILIZED)).or(newStage);
+                IntVector dead = word.and(~STAGE_MASK).or(DEAD);
+                IntVector newWord = word.blend(grown, grows).blend(dead, dies);
+
+                ((ShortVector) newProgress.convertShape(VectorOperators.I2S, SHORTS, 0)).intoArray(growthProgress, t);
+                ((ByteVector) acceleration.convertShape(VectorOperators.I2B, BYTES, 0)).intoArray(growthAcceleration, t);
+                ((ByteVector) delay.convertShape(VectorOperators.I2B, BYTES, 0)).intoArray(growthDelay, t);
+                newWord.intoArray(state, t);
+                changed = true;
+            }
+            if (changed) {
+                updateBlock(tileIndex, state, block, block - base, stageBits, stageDeltas, totals);
+            }
+        }
+        stats.addCounts(stageDeltas, totals[LIVE], totals[WATERED_LIVE], totals[PROTECTED_LIVE]);
+        stats.addGrowthProgress(progressAdded.reduceLanes(VectorOperators.ADD));
+
+        GrowthKernel.growScalar(chunk, base, tileIndex, stats, timeline, seed, tick, end, to);
+    }
+
+    // Rewrite a block's index bits from its new state words (from offset in the
+    // chunk's arrays), counting how the stage, live, watered-live and
+    // protected-live totals moved on the way
+    private static void updateBlock(TileIndex tileIndex, int[] state, int block, int offset, long[] stageBits,
+                                    int[] stageDeltas, int[] totals) {
+        // One plane per bit of the state word's low five bits (stage, watered,
+        // fertilized): each lane moves its bit to its lane number (plus 16 for
+        // the second plane of a pair) and the lanes are ORed together
+        long plane0 = 0;
+        long plane1 = 0;
+        long plane2 = 0;
+        long wateredBits = 0;
+        long fertilizedBits = 0;
+        for (int k = 0; k < BLOCK; k += INTS.length()) {
+            IntVector word = IntVector.fromArray(INTS, state, offset + k);
+            long first = word.and(1).lanewise(VectorOperators.LSHL, LANE)
+                .or(word.and(2).lanewise(VectorOperators.LSHL, LANE.add(15)))
+                .reduceLanes(VectorOperators.OR);
+            long second = word.and(4).lanewise(VectorOperators.LSHR, 2).lanewise(VectorOperators.LSHL, LANE)
+                .or(word.and(WATERED).lanewise(VectorOperators.LSHL, LANE.add(13)))
+                .reduceLanes(VectorOperators.OR);
+            long third = word.and(FERTILIZED).lanewise(VectorOperators.LSHR, 4).lanewise(VectorOperators.LSHL, LANE)
+                .reduceLanes(VectorOperators.OR);
+            plane0 |= (first & 0xFFFF) << k;
+            plane1 |= ((first >>> 16) & 0xFFFF) << k;
+            plane2 |= (second & 0xFFFF) << k;
+            wateredBits |= ((second >>> 16) & 0xFFFF) << k;
+            fertilizedBits |= (third & 0xFFFF) << k;
+        }
+        for (int s = 0; s < stageBits.length; s++) {
+            stageBits[s] = ((s & 1) != 0 ? plane0 : ~plane0)
+                & ((s & 2) != 0 ? plane1 : ~plane1)
+                & ((s & 4) != 0 ? plane2 : ~plane2);
+        }
+        long liveBits = stageBits[SEED] | stageBits[SEEDLING] | stageBits[GROWING] | stageBits[MATURE];
+
+        for (int s = 0; s < stageBits.length; s++) {
+            stageDeltas[s] += Long.bitCount(stageBits[s])
+                - Long.bitCount(tileIndex.stage(STAGES[s]).getRun(block, BLOCK));
+        }
+        long oldLive = tileIndex.live().getRun(block, BLOCK);
+        long oldWatered = tileIndex.watered().getRun(block, BLOCK);
+        long protectedBits = tileIndex.protectedTiles().getRun(block, BLOCK); // Growth never changes it
+        totals[LIVE] += Long.bitCount(liveBits) - Long.bitCount(oldLive);
+        totals[WATERED_LIVE] += Long.bitCount(liveBits & wateredBits) - Long.bitCount(oldLive & oldWatered);
+        totals[PROTECTED_LIVE] += Long.bitCount(liveBits & protectedBits) - Long.bitCount(oldLive & protectedBits);
+
+        tileIndex.setGrowthRun(block, BLOCK, stageBits, liveBits, wateredBits, fertilizedBits);
+    }
+
+    // Timeline modes of the live lanes' planting epochs; one lookup when they
+    // share an epoch (crops planted together), otherwise one per lane
+    private static IntVector modes(ModifierTimeline timeline, int[] state, int i, IntVector word,
+                                   VectorMask<Integer> live, int[] scratch) {
+        IntVector epoch = word.lanewise(VectorOperators.LSHR, FarmGrid.EPOCH_SHIFT);
+        int firstEpoch = state[i + live.firstTrue()] >>> FarmGrid.EPOCH_SHIFT;
+        if (!epoch.compare(VectorOperators.NE, firstEpoch).and(live).anyTrue()) {
+            return IntVector.broadcast(INTS, timeline.modeOf(firstEpoch));
+        }
+        for (int lane = 0; lane < scratch.length; lane++) {
+            scratch[lane] = live.laneIsSet(lane) ? timeline.modeOf(state[i + lane] >>> FarmGrid.EPOCH_SHIFT) : 0;
+        }
+        return IntVector.fromArray(INTS, scratch, 0);
+    }
+}
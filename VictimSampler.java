@@ -0,0 +1,40 @@
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+// Class to pick disaster victims uniformly at random from a tile bitmap
+// Rather than taking the first few matching tiles (always the top-left of the
+// farm), it picks k distinct ranks out of the n matching tiles with Floyd's
+// algorithm, then finds the tiles with those ranks in one pass over the
+// bitmap words. That's O(k) random draws and no lists of candidate tiles.
+class VictimSampler {
+    private final RandomGenerator random;
+    private TileBitmap ranks; // Scratch set of chosen ranks, always left empty
+
+    public VictimSampler(RandomGenerator random) {
+        this.random = random;
+        ranks = new TileBitmap(0);
+    }
+
+    // Pick up to k of the n tiles set in tiles (and also set, or with exclude
+    // not set, in other) and pass each one to action, in tile order.
+    // n must be the exact number of matching tiles, e.g. from FarmStats.
+    // Returns how many tiles were picked.
+    public int sample(TileBitmap tiles, TileBitmap other, boolean exclude, int n, int k, IntConsumer action) {
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return 0;
+        }
+        if (ranks.size() < n) {
+            ranks = new TileBitmap(Math.max(n, ranks.size() * 2));
+        }
+
+        // Floyd's algorithm: every k-subset of [0, n) is equally likely
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            ranks.set(ranks.get(t) ? j : t);
+        }
+
+        tiles.forEachRanked(ranks, other, exclude, action);
+        return k;
+    }
+}
@@ -0,0 +1,168 @@
+import cornharvest.bench.Workload;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+// Class to build the benchmark workloads, by the name of the benchmark method
+// It sits in the default package so it can use the game's classes directly
+// (see cornharvest.bench.WorkloadBenchmark for why the benchmarks can't).
+class BenchWorkloads {
+    private static final CropStage[] STAGES = CropStage.values();
+    private static final int VIEW_WIDTH = 1024;
+    private static final int VIEW_HEIGHT = 768;
+
+    private BenchWorkloads() {
+    }
+
+    static Workload create(String name, int size) {
+        switch (name) {
+            case "cropTileGrow":
+                return cropTileGrow(size);
+            case "growAll":
+                return growAll(size, GrowthKernel.Mode.OFF);
+            case "growAllScalarKernel":
+                return growAll(size, GrowthKernel.Mode.SCALAR);
+            case "growAllVectorKernel":
+                return growAll(size, GrowthKernel.Mode.VECTOR);
+            case "processNightEvents":
+                return processNightEvents(size);
+            case "checkLossCondition":
+                return checkLossCondition(size);
+            case "paintViewport":
+                return paintViewport(size, 1);
+            case "paintViewportZoomedOut":
+                return paintViewport(size, FarmCanvas.MIN_ZOOM);
+            case "executeAction":
+                return executeAction(size);
+            case "addAndUseItem":
+                return addAndUseItem();
+            case "totalValue":
+                return totalValue();
+            default:
+                throw new IllegalArgumentException("No workload called " + name);
+        }
+    }
+
+    // Each tile is watered before it grows so nothing dies and the farm
+    // does the same work on every call (every crop soon sits at mature)
+    private static Workload cropTileGrow(int size) {
+        FarmGrid farmGrid = plantedFarm(size);
+        return () -> {
+            for (int i = 0; i < size; i++) {
+                CropTile tile = farmGrid.tile(i);
+                tile.water();
+                tile.grow();
+            }
+            return farmGrid.getStats().getLiveCount();
+        };
+    }
+
+    private static Workload growAll(int size, GrowthKernel.Mode mode) {
+        FarmGrid farmGrid = plantedFarm(size);
+        farmGrid.setGrowthMode(mode);
+        DayTickEngine engine = new DayTickEngine();
+        return () -> {
+            for (int i = 0; i < size; i++) {
+                farmGrid.water(i);
+            }
+            farmGrid.growAll(engine);
+            return farmGrid.getGrowthTick();
+        };
+    }
+
+    // Events wreck the farm as the nights go by, so it's replanted each iteration
+    private static Workload processNightEvents(int size) {
+        FarmSimulation simulation = simulation(size);
+        return new Workload() {
+            @Override
+            public long run() {
+                return simulation.getEventSystem().processNightEvents(simulation.getFarmGrid(),
+                    simulation.getInventory()).size();
+            }
+
+            @Override
+            public void reset() {
+                simulation.setFarmGrid(plantedFarm(size));
+            }
+        };
+    }
+
+    private static Workload checkLossCondition(int size) {
+        FarmGrid farmGrid = plantedFarm(size);
+        int seedPrice = ItemType.SEED.getPrice();
+        return () -> GameStateChecker.checkLossCondition(seedPrice - 1, farmGrid, seedPrice) ? 1 : 0;
+    }
+
+    // A window's worth of a farm with every stage and watered and protected tiles
+    // mixed in, scrolled to the middle of the farm, painted into an offscreen image
+    private static Workload paintViewport(int size, double zoom) {
+        FarmGrid farmGrid = new FarmGrid(size);
+        for (int i = 0; i < size; i++) {
+            farmGrid.setStage(i, STAGES[i % STAGES.length]);
+            farmGrid.setProtected(i, i % 5 == 0);
+            if (i % 3 == 0) {
+                farmGrid.water(i);
+            }
+        }
+        FarmCanvas canvas = new FarmCanvas(farmGrid, (int) Math.ceil(Math.sqrt(size)));
+        canvas.setZoom(zoom, new Point());
+        canvas.setSize(canvas.getPreferredSize());
+        int viewX = Math.max(0, (canvas.getWidth() - VIEW_WIDTH) / 2);
+        int viewY = Math.max(0, (canvas.getHeight() - VIEW_HEIGHT) / 2);
+
+        BufferedImage image = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.translate(-viewX, -viewY);
+        graphics.setClip(viewX, viewY, VIEW_WIDTH, VIEW_HEIGHT);
+        return () -> {
+            canvas.paintComponent(graphics);
+            return image.getRGB(VIEW_WIDTH / 2, VIEW_HEIGHT / 2);
+        };
+    }
+
+    // Select every tile and water it (watering always applies to a live crop)
+    private static Workload executeAction(int size) {
+        FarmSimulation simulation = simulation(size);
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        GameActionsController controller = new GameActionsController(null, simulation);
+        return () -> {
+            for (int i = 0; i < size; i++) {
+                farmGrid.setSelected(i, true);
+            }
+            controller.setAction(ActionType.WATER);
+            return controller.applyToSelected();
+        };
+    }
+
+    private static Workload addAndUseItem() {
+        Inventory inventory = new Inventory(new SimRandom(1));
+        return () -> {
+            inventory.addItem(ItemType.FERTILIZER, 1);
+            return inventory.useItem(ItemType.FERTILIZER, 1) ? 1 : 0;
+        };
+    }
+
+    private static Workload totalValue() {
+        Inventory inventory = new Inventory(new SimRandom(1));
+        inventory.addItem(ItemType.SEED, 10);
+        inventory.addItem(ItemType.FERTILIZER, 3);
+        inventory.addItem(ItemType.BUG_KILLER, 2);
+        return inventory::getTotalValue;
+    }
+
+    // A Normal game whose farm is the given size, fully planted
+    private static FarmSimulation simulation(int size) {
+        FarmSimulation simulation = new FarmSimulation(1, new DayTickEngine(), EventTable.defaults(),
+            DifficultyProfile.standard("Normal"), new EventBus());
+        simulation.setFarmGrid(plantedFarm(size));
+        return simulation;
+    }
+
+    private static FarmGrid plantedFarm(int size) {
+        FarmGrid farmGrid = new FarmGrid(size);
+        for (int i = 0; i < size; i++) {
+            farmGrid.plant(i);
+        }
+        return farmGrid;
+    }
+}
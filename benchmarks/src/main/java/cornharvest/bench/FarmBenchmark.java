@@ -0,0 +1,63 @@
+package cornharvest.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Simulation hot paths over whole farms of 16 to 16M tiles
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class FarmBenchmark extends WorkloadBenchmark {
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    @Override
+    protected int size() {
+        return size;
+    }
+
+    // CropTile.grow() on every tile of a planted farm
+    @Benchmark
+    public long cropTileGrow() {
+        return workload.run();
+    }
+
+    // The night's crop growth, FarmGrid.growAll (what CornHarvestGame.growCrops became)
+    @Benchmark
+    public long growAll() {
+        return workload.run();
+    }
+
+    // growAll through GrowthKernel's scalar loop
+    @Benchmark
+    public long growAllScalarKernel() {
+        return workload.run();
+    }
+
+    // growAll through VectorGrowthKernel (the scalar loop if the Vector API isn't there)
+    @Benchmark
+    public long growAllVectorKernel() {
+        return workload.run();
+    }
+
+    // EventSystem.processNightEvents on a planted farm
+    @Benchmark
+    public long processNightEvents() {
+        return workload.run();
+    }
+
+    // GameStateChecker.checkLossCondition when the player can't afford seeds (so the farm is checked)
+    @Benchmark
+    public long checkLossCondition() {
+        return workload.run();
+    }
+}
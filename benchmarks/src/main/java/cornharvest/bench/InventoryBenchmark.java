@@ -0,0 +1,35 @@
+package cornharvest.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Inventory operations; these don't depend on the farm size, so there's no size parameter
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class InventoryBenchmark extends WorkloadBenchmark {
+    @Override
+    protected int size() {
+        return 0;
+    }
+
+    // Inventory.addItem followed by useItem of the same item
+    @Benchmark
+    public long addAndUseItem() {
+        return workload.run();
+    }
+
+    // Inventory.getTotalValue
+    @Benchmark
+    public long totalValue() {
+        return workload.run();
+    }
+}
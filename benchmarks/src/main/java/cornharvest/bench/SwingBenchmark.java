@@ -0,0 +1,46 @@
+package cornharvest.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The UI side over farms of 16 to 16M tiles
+// FarmCanvas only paints the tiles in view, so painting should cost the same at every size
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class SwingBenchmark extends WorkloadBenchmark {
+    @Param({"16", "1024", "65536", "1048576", "16777216"})
+    public int size;
+
+    @Override
+    protected int size() {
+        return size;
+    }
+
+    // FarmCanvas.paintComponent for a 1024x768 view into an offscreen image, at 64-pixel tiles
+    @Benchmark
+    public long paintViewport() {
+        return workload.run();
+    }
+
+    // The same, zoomed all the way out (4-pixel tiles, so about 40K of them in view)
+    @Benchmark
+    public long paintViewportZoomedOut() {
+        return workload.run();
+    }
+
+    // GameActionsController.executeAction (watering every tile), without the result dialog
+    @Benchmark
+    public long executeAction() {
+        return workload.run();
+    }
+}
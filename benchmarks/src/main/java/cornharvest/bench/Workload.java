@@ -0,0 +1,11 @@
+package cornharvest.bench;
+
+// A piece of game code to measure, built by BenchWorkloads in the game's default package
+public interface Workload {
+    // Do the work once; the result is handed to JMH so nothing gets optimized away
+    long run();
+
+    // Put the game back to its starting state (called before each measurement iteration)
+    default void reset() {
+    }
+}
@@ -0,0 +1,35 @@
+package cornharvest.bench;
+
+import java.lang.reflect.Method;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+// Base class for the benchmarks: each @Benchmark method runs the workload of the same name
+// JMH won't generate code for benchmarks in the default package, and the game's
+// classes can't be reached from any other package, so the workloads live in the
+// default package (BenchWorkloads) and are looked up by name once per trial.
+// Calling run() through the interface is monomorphic and inlines away.
+@State(Scope.Thread)
+public abstract class WorkloadBenchmark {
+    protected Workload workload;
+
+    // Number of farm tiles for this trial
+    protected abstract int size();
+
+    @Setup(Level.Trial)
+    public void createWorkload(BenchmarkParams params) throws ReflectiveOperationException {
+        String benchmark = params.getBenchmark();
+        String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        Method create = Class.forName("BenchWorkloads").getDeclaredMethod("create", String.class, int.class);
+        create.setAccessible(true);
+        workload = (Workload) create.invoke(null, name, size());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetWorkload() {
+        workload.reset();
+    }
+}
@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+// The alias table must give every outcome exactly weight / total of the rolls
+class AliasSamplerTest {
+    @Test
+    void tablesMatchTheWeightsExactly() {
+        int[][] tables = {
+            {15, 15, 70},
+            {10, 3, 7, 80},
+            {5, 4, 1, 90},
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 1000000},
+            {3, 0, 9, 0, 0, 27, 1},
+            {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37},
+        };
+        for (int[] weights : tables) {
+            assertExactOdds(weights);
+        }
+        SplittableRandom random = new SplittableRandom(8);
+        for (int t = 0; t < 50; t++) {
+            int[] weights = new int[1 + random.nextInt(20)];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(200);
+            }
+            weights[random.nextInt(weights.length)]++;
+            assertExactOdds(weights);
+        }
+    }
+
+    @Test
+    void zeroWeightsAreNeverPicked() {
+        AliasSampler sampler = new AliasSampler(new int[]{0, 5, 0, 0, 1, 0});
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 10_000; i++) {
+            int outcome = sampler.sample(random);
+            assertTrue(outcome == 1 || outcome == 4, "outcome " + outcome);
+        }
+    }
+
+    @Test
+    void singleOutcomeIsAlwaysPicked() {
+        for (int[] weights : new int[][]{{1}, {42}, {0, 0, 7, 0}}) {
+            AliasSampler sampler = new AliasSampler(weights);
+            int only = weights.length == 1 ? 0 : 2;
+            SplittableRandom random = new SplittableRandom(10);
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(only, sampler.sample(random));
+            }
+            assertExactOdds(weights);
+        }
+    }
+
+    @Test
+    void badWeightsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasSampler(new int[]{3, -1, 4}));
+    }
+
+    // Feed the sampler every possible roll once and count what each outcome gets
+    private static void assertExactOdds(int[] weights) {
+        AliasSampler sampler = new AliasSampler(weights);
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        long rolls = weights.length * total;
+        long[] picks = new long[weights.length];
+        EveryRoll every = new EveryRoll();
+        for (long roll = 0; roll < rolls; roll++) {
+            picks[sampler.sample(every)]++;
+        }
+        assertEquals(rolls, every.next, "one draw per pick");
+        for (int i = 0; i < weights.length; i++) {
+            // picks / rolls == weight / total
+            assertEquals((long) weights[i] * weights.length, picks[i], "outcome " + i + " of " + weights.length);
+        }
+    }
+
+    // Returns 0, 1, 2, ... so a full cycle covers every roll the sampler can ask for
+    private static class EveryRoll implements RandomGenerator {
+        long next;
+
+        @Override
+        public long nextLong() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long nextLong(long bound) {
+            return next++ % bound;
+        }
+    }
+}
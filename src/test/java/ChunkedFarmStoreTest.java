@@ -0,0 +1,78 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// A big farm should only take memory, and growth time, for the chunks that have something on them
+class ChunkedFarmStoreTest {
+    private static final int SIZE = 1024 * 1024;
+    private static final int CHUNK_SIZE = ChunkedFarmStore.CHUNK_SIZE;
+
+    @Test
+    void chunksAreMadeByPlantingAndDroppedWhenEmpty() {
+        FarmGrid farmGrid = new FarmGrid(SIZE);
+        assertEquals(0, farmGrid.getAllocatedChunks());
+        assertTrue(farmGrid.isEmpty(SIZE - 1));
+
+        for (int crop = 0; crop < 10; crop++) {
+            farmGrid.plant(crop * 25 * CHUNK_SIZE);
+        }
+        farmGrid.plant(CHUNK_SIZE - 1); // Same chunk as the first crop
+        assertEquals(10, farmGrid.getAllocatedChunks());
+
+        // Selecting a tile puts nothing on the ground, but it's still a tile to keep
+        farmGrid.setSelected(SIZE - 1, true);
+        assertEquals(11, farmGrid.getAllocatedChunks());
+        farmGrid.setSelected(SIZE - 1, false);
+        assertEquals(10, farmGrid.getAllocatedChunks());
+
+        farmGrid.harvest(0);
+        assertEquals(10, farmGrid.getAllocatedChunks());
+        farmGrid.harvest(CHUNK_SIZE - 1);
+        assertEquals(9, farmGrid.getAllocatedChunks());
+        farmGrid.clearRange(0, SIZE);
+        assertEquals(0, farmGrid.getAllocatedChunks());
+        assertEquals(0, farmGrid.getStats().getLiveCount());
+    }
+
+    // Copies only copy the chunks there are, and are independent of the original
+    @Test
+    void copiesKeepTheirOwnChunks() {
+        FarmGrid farmGrid = new FarmGrid(SIZE);
+        farmGrid.plant(5 * CHUNK_SIZE);
+        FarmGrid copy = farmGrid.copy();
+        assertEquals(1, copy.getAllocatedChunks());
+
+        copy.plant(7 * CHUNK_SIZE);
+        copy.harvest(5 * CHUNK_SIZE);
+        assertTrue(farmGrid.isLive(5 * CHUNK_SIZE));
+        assertTrue(farmGrid.isEmpty(7 * CHUNK_SIZE));
+        assertEquals(1, farmGrid.getAllocatedChunks());
+        assertEquals(1, copy.getAllocatedChunks());
+    }
+
+    // Nights only write to the chunks with live crops in them, in every mode
+    @ParameterizedTest
+    @EnumSource(GrowthKernel.Mode.class)
+    void growthSkipsChunksWithoutCrops(GrowthKernel.Mode mode) {
+        ChunkedFarmStore planted = new ChunkedFarmStore(SIZE);
+        planted.setState(3 * CHUNK_SIZE + 17, CropStage.SEED.ordinal() | FarmGrid.WATERED);
+        planted.setState(200 * CHUNK_SIZE, CropStage.GROWING.ordinal());
+        planted.setState(201 * CHUNK_SIZE, CropStage.DEAD.ordinal());
+        ChunkedFarmStore store = planted.copy(); // Nothing written yet
+        FarmGrid farmGrid = new FarmGrid(store);
+        farmGrid.setGrowthMode(mode);
+
+        farmGrid.growAll();
+        for (int chunk = 0; chunk < store.chunkCount(); chunk++) {
+            assertEquals(chunk == 3 || chunk == 200, store.isWritten(chunk), "chunk " + chunk);
+        }
+        assertEquals(3, farmGrid.getAllocatedChunks());
+        assertEquals(CropStage.SEED, farmGrid.getStage(3 * CHUNK_SIZE + 17));
+        assertEquals(10, farmGrid.getGrowthProgress(3 * CHUNK_SIZE + 17));
+        assertFalse(farmGrid.isEmpty(200 * CHUNK_SIZE));
+    }
+}
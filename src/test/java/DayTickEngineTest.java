@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// A night split over many threads must leave exactly the farm one thread would
+class DayTickEngineTest {
+    private static final long SEED = 2024;
+    private static final int LAND_SIZE = 256; // 16 ranges of tiles
+    private static final int DAYS = 30;
+
+    @ParameterizedTest
+    @EnumSource(GrowthKernel.Mode.class)
+    void parallelNightsMatchSequential(GrowthKernel.Mode mode) {
+        DayTickEngine sequential = new DayTickEngine(1, Integer.MAX_VALUE);
+        DayTickEngine parallel = new DayTickEngine(8, 1);
+        try {
+            FarmSimulation expected = newGame(sequential, mode);
+            FarmSimulation actual = newGame(parallel, mode);
+            Strategy strategy = new GreedyStrategy();
+            for (int day = 0; day < DAYS && !expected.isGameOver(); day++) {
+                strategy.playDay(expected);
+                strategy.playDay(actual);
+                expected.advanceDay();
+                actual.advanceDay();
+                assertEquals(expected.checksum(), actual.checksum(), "day " + expected.getDay());
+                assertEquals(expected.getMoney(), actual.getMoney(), "day " + expected.getDay());
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private static FarmSimulation newGame(DayTickEngine engine, GrowthKernel.Mode mode) {
+        FarmSimulation simulation = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, LAND_SIZE,
+            engine, new EventBus());
+        simulation.getFarmGrid().setGrowthMode(mode);
+        return simulation;
+    }
+}
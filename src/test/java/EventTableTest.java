@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// events.properties must either load exactly as written or be refused as a whole
+class EventTableTest {
+    private static final String[] GOOD_LINES = {
+        "# A comment, then a blank line",
+        "",
+        "weather.good = 1, GOOD_WEATHER, Good",
+        "weather.neutral = 3, NOTHING, Neutral, with a comma in the label",
+        "event.pests = 2, PEST_INVASION, Pests",
+        "event.nothing = 0, NOTHING, Nothing",
+        "disaster.tornado = 1, TORNADO, Tornado",
+    };
+
+    @TempDir
+    File folder;
+
+    @Test
+    void shippedFileMatchesTheDefaults() {
+        EventTable shipped = EventTable.load(new File("events.properties"));
+        assertEquals(EventTable.defaults().fingerprint(), shipped.fingerprint());
+        assertEquals(5, shipped.getWeight("disaster.drought"));
+    }
+
+    @Test
+    void wellFormedLinesLoad() throws IOException {
+        EventTable table = EventTable.load(write(GOOD_LINES));
+        assertEquals(EventTable.parse(Arrays.asList(GOOD_LINES)).fingerprint(), table.fingerprint());
+        assertEquals(3, table.getWeight("weather.neutral"));
+        assertEquals(0, table.getWeight("event.nothing"));
+        assertEquals(NightEffect.TORNADO, table.roll(EventTable.DISASTER, new SplittableRandom(1)));
+    }
+
+    @Test
+    void malformedLinesAreRefused() throws IOException {
+        String[] badLines = {
+            "weather.good 15, GOOD_WEATHER, Good",         // No '='
+            "weathergood = 15, GOOD_WEATHER, Good",        // No group
+            "weather.good = 15, GOOD_WEATHER",             // No label
+            "season.spring = 15, GOOD_WEATHER, Spring",    // Unknown group
+            "weather.good = lots, GOOD_WEATHER, Good",     // Weight isn't a number
+            "weather.good = -1, GOOD_WEATHER, Good",       // Negative weight
+            "weather.good = 15, SUNSHINE, Good",           // Unknown effect
+            "weather.good = 15, TORNADO, Good",            // Effect from another group
+        };
+        for (String badLine : badLines) {
+            List<String> lines = new ArrayList<>(Arrays.asList(GOOD_LINES));
+            lines.add(badLine);
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> EventTable.parse(lines), badLine);
+            assertTrue(e.getMessage().startsWith("line " + lines.size()), e.getMessage());
+
+            // Loading falls back to the built-in odds rather than half a table
+            EventTable loaded = EventTable.load(write(lines.toArray(new String[0])));
+            assertEquals(EventTable.defaults().fingerprint(), loaded.fingerprint(), badLine);
+        }
+    }
+
+    @Test
+    void groupWithoutOddsIsRefused() throws IOException {
+        String[] noDisasters = Arrays.copyOf(GOOD_LINES, GOOD_LINES.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> EventTable.parse(Arrays.asList(noDisasters)));
+        String[] zeroDisasters = GOOD_LINES.clone();
+        zeroDisasters[zeroDisasters.length - 1] = "disaster.tornado = 0, TORNADO, Tornado";
+        assertThrows(IllegalArgumentException.class, () -> EventTable.parse(Arrays.asList(zeroDisasters)));
+        assertEquals(EventTable.defaults().fingerprint(), EventTable.load(write(zeroDisasters)).fingerprint());
+    }
+
+    @Test
+    void missingFileUsesTheDefaults() {
+        EventTable table = EventTable.load(new File(folder, "missing.properties"));
+        assertEquals(EventTable.defaults().fingerprint(), table.fingerprint());
+    }
+
+    @Test
+    void changedWeightsMustExist() {
+        EventTable table = EventTable.defaults();
+        assertEquals(50, table.withWeights(Map.of("disaster.flood", 50)).getWeight("disaster.flood"));
+        assertEquals(4, table.getWeight("disaster.flood"));
+        assertThrows(IllegalArgumentException.class, () -> table.withWeights(Map.of("disaster.meteor", 1)));
+        assertThrows(IllegalArgumentException.class, () -> table.withWeights(Map.of("disaster.flood", -1)));
+    }
+
+    private File write(String... lines) throws IOException {
+        File file = new File(folder, "events.properties");
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
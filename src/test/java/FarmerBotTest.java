@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+// The bot's rollouts reuse one scratch game per tree, so they must start from
+// exactly the root every time, and cost what they play rather than the farm size
+class FarmerBotTest {
+    private static final long SEED = 31;
+
+    // A scratch game reset to the root plays on exactly like a fresh copy of it
+    @Test
+    void resetGamePlaysLikeAFreshCopy() {
+        FarmSimulation root = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, 128,
+            new DayTickEngine(), new EventBus());
+        playDays(root, new CarefulStrategy(), 6);
+        FarmSimulation scratch = root.copy();
+        for (long future = 0; future < 3; future++) {
+            scratch.reseed(future);
+            playDays(scratch, new CarefulStrategy(), 8);
+            scratch.resetTo(root);
+            assertEquals(root.checksum(), scratch.checksum());
+
+            FarmSimulation fresh = root.copy();
+            fresh.reseed(100 + future);
+            scratch.reseed(100 + future);
+            for (int day = 0; day < 8; day++) {
+                playDays(fresh, new GreedyStrategy(), 1);
+                playDays(scratch, new GreedyStrategy(), 1);
+                assertSameGame(fresh, scratch);
+            }
+            scratch.resetTo(root);
+        }
+    }
+
+    // A hint on a 1024x1024 farm takes about as long as on a 64x64 one (room
+    // for every seed the bot can afford) when both have the same crops
+    @Test
+    void hintTimeDoesNotGrowWithTheFarm() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            long small = bestHintNanos(64, pool);
+            long big = bestHintNanos(1024, pool);
+            assertTrue(big < 4 * small, "64x64 took " + small / 1000000 + " ms, 1024x1024 took "
+                + big / 1000000 + " ms");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Fastest of a few hints, after one to warm up
+    private static long bestHintNanos(int landSize, ForkJoinPool pool) {
+        FarmSimulation simulation = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, landSize,
+            new DayTickEngine(), new EventBus());
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        for (int crop = 0; crop < 10; crop++) {
+            farmGrid.plant(crop * (farmGrid.size() / 10));
+        }
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 4; run++) {
+            FarmerBot bot = new FarmerBot(200, FarmerBot.DEFAULT_HORIZON, 1, pool, run);
+            long start = System.nanoTime();
+            bot.chooseMove(simulation);
+            long time = System.nanoTime() - start;
+            if (run > 0) {
+                best = Math.min(best, time);
+            }
+        }
+        return best;
+    }
+
+    private static void playDays(FarmSimulation simulation, Strategy strategy, int days) {
+        for (int day = 0; day < days && !simulation.isGameOver(); day++) {
+            strategy.playDay(simulation);
+            simulation.advanceDay();
+        }
+    }
+
+    private static void assertSameGame(FarmSimulation expected, FarmSimulation actual) {
+        assertEquals(expected.getDay(), actual.getDay());
+        assertEquals(expected.getMoney(), actual.getMoney());
+        assertEquals(expected.checksum(), actual.checksum());
+        FarmStats expectedStats = expected.getFarmGrid().getStats();
+        FarmStats actualStats = actual.getFarmGrid().getStats();
+        assertEquals(expectedStats.getLiveCount(), actualStats.getLiveCount());
+        assertEquals(expectedStats.getWateredCount(), actualStats.getWateredCount());
+        assertEquals(expected.getFarmGrid().getTileIndex().live().cardinality(),
+            actual.getFarmGrid().getTileIndex().live().cardinality());
+    }
+}
@@ -0,0 +1,239 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// A snapshot must read back as the same game, and a damaged one must be refused rather than half loaded
+class GameSnapshotTest {
+    private static final long SEED = 99;
+
+    @TempDir
+    File folder;
+
+    @Test
+    void playedGameReadsBack() throws IOException {
+        FarmSimulation simulation = playedGame();
+        File file = new File(folder, "game.snapshot");
+        GameSnapshot.write(file, simulation, 7);
+
+        GameSnapshot snapshot = read(file);
+        assertEquals(7, snapshot.getGeneration());
+        assertSameGame(simulation, snapshot.getSimulation());
+
+        // And plays on the same way
+        simulation.advanceDay();
+        snapshot.getSimulation().advanceDay();
+        assertSameGame(simulation, snapshot.getSimulation());
+    }
+
+    // Runs of untouched ground cost a few bytes however big the farm is
+    @Test
+    void sparseFarmIsSmall() throws IOException {
+        int size = 1 << 20;
+        FarmSimulation simulation = newGame();
+        FarmGrid farmGrid = new FarmGrid(size);
+        for (int i = 0; i < size; i += size / 8) {
+            farmGrid.plant(i);
+            farmGrid.water(i);
+        }
+        simulation.setFarmGrid(farmGrid);
+        File file = new File(folder, "game.snapshot");
+        GameSnapshot.write(file, simulation, 1);
+        assertTrue(file.length() < 4096, file.length() + " bytes"); // Not the 8 MB the tiles take unpacked
+
+        FarmGrid loaded = read(file).getSimulation().getFarmGrid();
+        assertEquals(size, loaded.size());
+        assertEquals(8, loaded.getAllocatedChunks()); // Only the chunks with crops are made
+        for (int i = 0; i < size; i++) {
+            assertEquals(farmGrid.getStateWord(i), loaded.getStateWord(i), "tile " + i);
+        }
+        assertEquals(farmGrid.getStats().getLiveCount(), loaded.getStats().getLiveCount());
+        assertEquals(farmGrid.checksum(), loaded.checksum());
+    }
+
+    // A capture is written as the game was when it was taken, however the tiles
+    // change while it waits for the autosave thread (actions, and nights grown by each kernel)
+    @ParameterizedTest
+    @EnumSource(GrowthKernel.Mode.class)
+    void captureKeepsTheTilesItWasTakenWith(GrowthKernel.Mode mode) throws IOException {
+        FarmSimulation simulation = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, 128,
+            new DayTickEngine(), new EventBus());
+        FarmGrid farmGrid = simulation.getFarmGrid();
+        farmGrid.setGrowthMode(mode);
+        for (int night = 0; night < 6; night++) {
+            tend(farmGrid, night);
+            farmGrid.growAll();
+        }
+        FarmSimulation expected = simulation.copy();
+        GameSnapshot.Capture capture = GameSnapshot.capture(simulation);
+
+        // Grow first, so the kernels are the first to write to each chunk
+        farmGrid.growAll();
+        for (int night = 0; night < 4; night++) {
+            tend(farmGrid, night);
+            simulation.advanceDay();
+        }
+        assertTrue(farmGrid.checksum() != expected.getFarmGrid().checksum());
+        File file = new File(folder, "game.snapshot");
+        GameSnapshot.write(file, capture, 2);
+        assertSameGame(expected, read(file).getSimulation());
+
+        // And the game itself was left alone by the capture
+        FarmSimulation after = simulation.copy();
+        GameSnapshot.write(file, simulation, 3);
+        assertSameGame(after, read(file).getSimulation());
+    }
+
+    @Test
+    void version1StillReads() throws IOException {
+        FarmSimulation simulation = playedGame();
+        File file = new File(folder, SaveJournal.SNAPSHOT_FILE);
+        writeVersion1(file, simulation, 3);
+
+        GameSnapshot snapshot = read(file);
+        assertEquals(3, snapshot.getGeneration());
+        assertSameGame(simulation, snapshot.getSimulation());
+    }
+
+    // The save journal rewrites a version 1 snapshot as version 2 when it compacts
+    @Test
+    void version1IsUpgradedOnCompaction() throws IOException {
+        FarmSimulation simulation = playedGame();
+        File file = new File(folder, SaveJournal.SNAPSHOT_FILE);
+        writeVersion1(file, simulation, 3);
+
+        SaveJournal saveJournal = SaveJournal.recover(folder, new DayTickEngine(), new EventBus());
+        saveJournal.compact();
+        saveJournal.close();
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            assertEquals(GameSnapshot.MAGIC, in.readInt());
+            assertEquals(GameSnapshot.VERSION, in.readInt());
+            assertEquals(4, in.readLong());
+        }
+        assertSameGame(simulation, read(file).getSimulation());
+    }
+
+    @Test
+    void damagedSectionIsRefused() throws IOException {
+        File file = new File(folder, "game.snapshot");
+        GameSnapshot.write(file, playedGame(), 1);
+        flipByte(file, file.length() - 1); // In the tiles, the last section
+
+        IOException e = assertThrows(IOException.class, () -> read(file));
+        assertTrue(e.getMessage().contains("section " + GameSnapshot.TILES + " checksum mismatch"), e.getMessage());
+    }
+
+    @Test
+    void damagedVersion1IsRefused() throws IOException {
+        File file = new File(folder, "game.snapshot");
+        writeVersion1(file, playedGame(), 1);
+        flipByte(file, file.length() - 1); // The checksum itself
+
+        IOException e = assertThrows(IOException.class, () -> read(file));
+        assertTrue(e.getMessage().contains("checksum mismatch"), e.getMessage());
+    }
+
+    @Test
+    void cutShortIsRefused() throws IOException {
+        File file = new File(folder, "game.snapshot");
+        GameSnapshot.write(file, playedGame(), 1);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() - 3);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> read(file));
+        assertTrue(e.getMessage().contains("out of bounds"), e.getMessage());
+    }
+
+    @Test
+    void otherFilesAreRefused() throws IOException {
+        File file = new File(folder, "game.snapshot");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x12345678);
+            out.write(new byte[32]);
+        }
+        assertThrows(IOException.class, () -> read(file));
+
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(GameSnapshot.MAGIC);
+            out.writeInt(GameSnapshot.VERSION + 1);
+            out.write(new byte[32]);
+        }
+        IOException e = assertThrows(IOException.class, () -> read(file));
+        assertTrue(e.getMessage().contains("unsupported version"), e.getMessage());
+    }
+
+    private static FarmSimulation newGame() {
+        return FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, new DayTickEngine(), new EventBus());
+    }
+
+    // A few days in, so the tiles, inventory, events and random streams have all moved on
+    private static FarmSimulation playedGame() {
+        FarmSimulation simulation = newGame();
+        Strategy strategy = new CarefulStrategy();
+        for (int day = 0; day < 6 && !simulation.isGameOver(); day++) {
+            strategy.playDay(simulation);
+            simulation.advanceDay();
+        }
+        strategy.playDay(simulation);
+        return simulation;
+    }
+
+    // Harvest what's ripe, plant some of the empty ground and water most crops, spread over every chunk
+    private static void tend(FarmGrid farmGrid, int night) {
+        for (int i = night % 3; i < farmGrid.size(); i += 3) {
+            if (farmGrid.isMature(i)) {
+                farmGrid.harvest(i);
+            } else if (farmGrid.isEmpty(i) && i % 5 != 0) {
+                farmGrid.plant(i);
+            }
+            if (farmGrid.isLive(i) && i % 4 != 0) {
+                farmGrid.water(i);
+            }
+        }
+    }
+
+    private static GameSnapshot read(File file) throws IOException {
+        return GameSnapshot.read(file, new DayTickEngine(), new EventBus());
+    }
+
+    // The old format: header, the game as FarmSimulation.save writes it, then its CRC32
+    private static void writeVersion1(File file, FarmSimulation simulation, long generation) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(GameSnapshot.MAGIC);
+            out.writeInt(1);
+            out.writeLong(generation);
+            CRC32 crc = new CRC32();
+            DataOutputStream game = new DataOutputStream(new CheckedOutputStream(out, crc));
+            simulation.save(game);
+            game.flush();
+            out.writeInt((int) crc.getValue());
+        }
+    }
+
+    private static void flipByte(File file, long position) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(position);
+            int b = out.read();
+            out.seek(position);
+            out.write(b ^ 0xFF);
+        }
+    }
+
+    private static void assertSameGame(FarmSimulation expected, FarmSimulation actual) {
+        assertEquals(expected.getDay(), actual.getDay());
+        assertEquals(expected.getMoney(), actual.getMoney());
+        assertEquals(expected.checksum(), actual.checksum());
+    }
+}
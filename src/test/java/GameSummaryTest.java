@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+// Summaries are plain counts, so merging them must not depend on how the games were split up
+class GameSummaryTest {
+    private static final int MAX_DAYS = MonteCarloRunner.DEFAULT_MAX_DAYS; // Long enough for some wins
+    private static final int GAMES = 600; // More than two tasks' worth, so run() really splits
+
+    private final MonteCarloRunner runner = new MonteCarloRunner();
+
+    @Test
+    void mergedHalvesMatchOneRun() {
+        GameSummary whole = runner.playGames(GreedyStrategy::new, 0, GAMES, MAX_DAYS);
+        GameSummary firstHalf = runner.playGames(GreedyStrategy::new, 0, GAMES / 2, MAX_DAYS);
+        GameSummary secondHalf = runner.playGames(GreedyStrategy::new, GAMES / 2, GAMES, MAX_DAYS);
+
+        GameSummary forwards = new GameSummary(MAX_DAYS);
+        forwards.merge(firstHalf);
+        forwards.merge(secondHalf);
+        GameSummary backwards = new GameSummary(MAX_DAYS);
+        backwards.merge(secondHalf);
+        backwards.merge(firstHalf);
+
+        assertSameSummary(whole, forwards);
+        assertSameSummary(whole, backwards);
+    }
+
+    @Test
+    void parallelRunMatchesSequentialGames() {
+        GameSummary sequential = runner.playGames(GreedyStrategy::new, 7, 7 + GAMES, MAX_DAYS);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            GameSummary parallel = new MonteCarloRunner(pool, EventTable.defaults())
+                .run(GreedyStrategy::new, 7, GAMES, MAX_DAYS);
+            assertSameSummary(sequential, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void totalsAddUp() {
+        GameSummary summary = runner.playGames(GreedyStrategy::new, 0, GAMES, MAX_DAYS);
+        assertEquals(GAMES, summary.getGames());
+        assertEquals(1.0, summary.getWinRate() + summary.getLossRate() + summary.getTimeoutRate(), 1e-9);
+        long binned = 0;
+        for (long count : summary.getFinalMoneyHistogram()) {
+            binned += count;
+        }
+        assertEquals(GAMES, binned);
+
+        // Percentiles can only go up, and sit within the day limit
+        assertTrue(summary.getWinRate() > 0);
+        int previous = 0;
+        for (double fraction : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            int day = summary.getDaysToWinPercentile(fraction);
+            assertTrue(day >= previous && day <= MAX_DAYS + 1, "p" + fraction + " = " + day);
+            previous = day;
+        }
+    }
+
+    @Test
+    void emptySummary() {
+        GameSummary summary = new GameSummary(MAX_DAYS);
+        assertEquals(0, summary.getWinRate());
+        assertEquals(-1, summary.getDaysToWinPercentile(0.5));
+        assertEquals(0, summary.getMeanFinalMoney());
+    }
+
+    @Test
+    void differentDayLimitsDontMerge() {
+        GameSummary summary = new GameSummary(MAX_DAYS);
+        assertThrows(IllegalArgumentException.class, () -> summary.merge(new GameSummary(MAX_DAYS + 1)));
+    }
+
+    private static void assertSameSummary(GameSummary expected, GameSummary actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+        assertEquals(expected.getWinRate(), actual.getWinRate());
+        assertEquals(expected.getLossRate(), actual.getLossRate());
+        assertEquals(expected.getMeanDaysToWin(), actual.getMeanDaysToWin());
+        assertEquals(expected.getMeanFinalMoney(), actual.getMeanFinalMoney());
+        assertArrayEquals(expected.getFinalMoneyHistogram(), actual.getFinalMoneyHistogram());
+        assertEquals(expected.describe(), actual.describe());
+    }
+}
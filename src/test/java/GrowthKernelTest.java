@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+// The growth kernels must give exactly what FarmGrid.grow gives, tile for tile
+class GrowthKernelTest {
+    private static final CropStage[] STAGES = CropStage.values();
+    // Progress values either side of the 30/70/100 thresholds for every growth amount (0, 10, 20, 40)
+    private static final int[] EDGE_PROGRESS = {0, 9, 10, 19, 20, 29, 30, 59, 60, 69, 70, 89, 90, 99, 100, 32767};
+
+    @Test
+    void scalarKernelMatchesGrow() {
+        assertSameGrowth(GrowthKernel.Mode.SCALAR);
+    }
+
+    @Test
+    void vectorKernelMatchesGrow() {
+        assumeTrue(GrowthKernel.VECTOR_AVAILABLE, "jdk.incubator.vector isn't available");
+        assertSameGrowth(GrowthKernel.Mode.VECTOR);
+    }
+
+    // Watered crops step over each threshold to the right stage, in every mode
+    @ParameterizedTest
+    @EnumSource(GrowthKernel.Mode.class)
+    void stageThresholds(GrowthKernel.Mode mode) {
+        int[] progress = {19, 20, 29, 59, 60, 69, 89, 90, 99};
+        CropStage[] expected = {
+            CropStage.SEED, CropStage.SEEDLING, CropStage.SEEDLING, CropStage.SEEDLING, CropStage.GROWING,
+            CropStage.GROWING, CropStage.GROWING, CropStage.MATURE, CropStage.MATURE,
+        };
+        int size = progress.length * 8; // Several vectors' worth plus a tail
+        ChunkedFarmStore store = new ChunkedFarmStore(size);
+        for (int i = 0; i < size; i++) {
+            store.setState(i, CropStage.SEED.ordinal() | FarmGrid.WATERED);
+            store.setGrowthProgress(i, progress[i % progress.length]);
+        }
+        FarmGrid farmGrid = new FarmGrid(store);
+        farmGrid.setGrowthMode(mode);
+        farmGrid.growAll();
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected[i % progress.length], farmGrid.getStage(i), "tile " + i);
+            assertEquals(progress[i % progress.length] + 10, farmGrid.getGrowthProgress(i), "tile " + i);
+        }
+    }
+
+    // Grow a mixed farm for several nights with the per-tile path and the kernel side by side,
+    // with farm-wide effects and new plantings in between so tiles end up in different epochs
+    private static void assertSameGrowth(GrowthKernel.Mode mode) {
+        FarmGrid reference = randomFarm(10_007, new Random(5));
+        reference.setGrowthSeed(42);
+        reference.setGrowthMode(GrowthKernel.Mode.OFF);
+        FarmGrid kernel = reference.copy();
+        kernel.setGrowthMode(mode);
+
+        Random random = new Random(6);
+        for (int night = 0; night < 8; night++) {
+            long seed = random.nextLong();
+            for (FarmGrid farmGrid : new FarmGrid[]{reference, kernel}) {
+                beforeNight(farmGrid, night, new Random(seed));
+                farmGrid.growAll();
+            }
+            assertSameFarm(reference, kernel, night);
+        }
+    }
+
+    private static void beforeNight(FarmGrid farmGrid, int night, Random random) {
+        if (night == 1) {
+            farmGrid.accelerateAllLive(2);
+        } else if (night == 3) {
+            farmGrid.delayAllLive(1);
+        } else if (night == 5) {
+            farmGrid.accelerateAllLive(1);
+            farmGrid.delayAllLive(1);
+        }
+        for (int i = 0; i < farmGrid.size(); i++) {
+            int roll = random.nextInt(10);
+            if (roll == 0) {
+                farmGrid.plant(i);
+            } else if (roll < 7) {
+                farmGrid.water(i);
+            } else if (roll == 7) {
+                farmGrid.applyFertilizer(i);
+            }
+        }
+    }
+
+    private static FarmGrid randomFarm(int size, Random random) {
+        ChunkedFarmStore store = new ChunkedFarmStore(size);
+        for (int i = 0; i < size; i++) {
+            int state = random.nextInt(STAGES.length);
+            state |= random.nextInt(10) < 7 ? FarmGrid.WATERED : 0;
+            state |= random.nextInt(10) < 3 ? FarmGrid.FERTILIZED : 0;
+            state |= random.nextInt(10) < 2 ? FarmGrid.PROTECTED : 0;
+            store.setState(i, state);
+            store.setGrowthProgress(i, random.nextBoolean()
+                ? EDGE_PROGRESS[random.nextInt(EDGE_PROGRESS.length)] : random.nextInt(110));
+            store.setGrowthDelay(i, random.nextInt(4) == 0 ? 1 + random.nextInt(2) : 0);
+            store.setGrowthAcceleration(i, random.nextInt(4) == 0 ? 1 + random.nextInt(2) : 0);
+        }
+        return new FarmGrid(store);
+    }
+
+    private static void assertSameFarm(FarmGrid expected, FarmGrid actual, int night) {
+        for (int i = 0; i < expected.size(); i++) {
+            String tile = "night " + night + ", tile " + i;
+            assertEquals(expected.getStateWord(i), actual.getStateWord(i), tile);
+            assertEquals(expected.getGrowthProgress(i), actual.getGrowthProgress(i), tile);
+            assertEquals(expected.getGrowthDelay(i), actual.getGrowthDelay(i), tile);
+            assertEquals(expected.getGrowthAcceleration(i), actual.getGrowthAcceleration(i), tile);
+        }
+        FarmStats expectedStats = expected.getStats();
+        FarmStats actualStats = actual.getStats();
+        for (CropStage stage : STAGES) {
+            assertEquals(expectedStats.getStageCount(stage), actualStats.getStageCount(stage), stage + " count");
+            assertEquals(expected.getTileIndex().stage(stage).cardinality(),
+                actual.getTileIndex().stage(stage).cardinality(), stage + " index");
+        }
+        assertEquals(expectedStats.getLiveCount(), actualStats.getLiveCount());
+        assertEquals(expectedStats.getWateredCount(), actualStats.getWateredCount());
+        assertEquals(expectedStats.getTotalGrowthProgress(), actualStats.getTotalGrowthProgress());
+        assertEquals(expected.getTileIndex().watered().cardinality(), actual.getTileIndex().watered().cardinality());
+        assertEquals(expected.getTileIndex().fertilized().cardinality(),
+            actual.getTileIndex().fertilized().cardinality());
+        assertEquals(expected.checksum(), actual.checksum());
+    }
+}
@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Nights simulated on one reused working copy must come out the same as nights on fresh copies
+class NightForecastTest {
+    private static final long SEED = 8;
+
+    @Test
+    void reusedCopyForecastsLikeFreshCopies() {
+        FarmSimulation snapshot = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, 96,
+            new DayTickEngine(), new EventBus());
+        FarmGrid farmGrid = snapshot.getFarmGrid();
+        for (int i = 0; i < farmGrid.size(); i += 7) {
+            farmGrid.plant(i);
+            if (i % 3 != 0) {
+                farmGrid.water(i);
+            }
+        }
+
+        NightForecast fresh = new NightForecast(snapshot);
+        for (int n = 0; n < 300; n++) {
+            FarmSimulation night = snapshot.copy();
+            night.reseed(1000 + n);
+            fresh.record(night, night.advanceDay());
+        }
+
+        // In two batches on the same working copy, like the forecast dialog
+        NightForecast reused = new NightForecast(snapshot);
+        FarmSimulation night = snapshot.copy();
+        reused.simulate(snapshot, night, 1000, 120);
+        reused.simulate(snapshot, night, 1120, 180);
+
+        assertEquals(fresh.describe(), reused.describe());
+        assertTrue(reused.getLossChance(1) > 0);
+    }
+}
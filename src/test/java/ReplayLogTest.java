@@ -0,0 +1,257 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+// A recorded game must play back to the same checksum every night, and a damaged log must be refused
+class ReplayLogTest {
+    private static final long SEED = 12345;
+    private static final int DAYS = 30;
+    // Magic, version, seed, difficulty name and settings hash come before the start byte
+    private static final int START_OFFSET = 4 + 1 + 8 + 2 + DifficultyProfile.DEFAULT_NAME.length() + 8;
+
+    @Test
+    void recordedGamePlaysBack() throws IOException {
+        FarmSimulation simulation = newGame();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME)) {
+            simulation.addRecorder(recorder);
+            playDays(simulation, DAYS);
+        }
+
+        ReplayPlayer player = player(bytes.toByteArray());
+        assertTrue(player.hasSameSettings());
+        assertEquals(SEED, player.getGameSeed());
+        int days = playAll(player);
+        assertEquals(simulation.getDay() - 1, days);
+        assertTrue(player.isFinished());
+        assertSameGame(simulation, player.getSimulation());
+    }
+
+    @Test
+    void continuedGamePlaysBackFromItsSave() throws IOException {
+        FarmSimulation simulation = newGame();
+        playDays(simulation, 10);
+        int startDay = simulation.getDay();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME,
+                true)) {
+            simulation.addRecorder(recorder);
+            playDays(simulation, DAYS);
+        }
+
+        ReplayPlayer player = player(bytes.toByteArray());
+        assertEquals(startDay, player.getSimulation().getDay());
+        assertEquals(simulation.getDay() - startDay, playAll(player));
+        assertSameGame(simulation, player.getSimulation());
+    }
+
+    @Test
+    void biggerFarmPlaysBack() throws IOException {
+        FarmSimulation simulation = FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, 16,
+            new DayTickEngine(), new EventBus());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME)) {
+            simulation.addRecorder(recorder);
+            playDays(simulation, DAYS);
+        }
+
+        ReplayPlayer player = player(bytes.toByteArray());
+        assertEquals(16, player.getSimulation().getLandSize());
+        assertEquals(simulation.getDay() - 1, playAll(player));
+        assertSameGame(simulation, player.getSimulation());
+    }
+
+    // Version 1 logs have no start byte and version 2 logs no farm width; both are 4x4 new games
+    @Test
+    void olderVersionsStillPlay() throws IOException {
+        FarmSimulation simulation = newGame();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME)) {
+            simulation.addRecorder(recorder);
+            playDays(simulation, 5);
+        }
+        byte[] log = bytes.toByteArray();
+
+        for (int version = 1; version <= 2; version++) {
+            int from = version == 1 ? START_OFFSET : START_OFFSET + 1;
+            int to = headerBytes();
+            byte[] older = new byte[log.length - (to - from)];
+            System.arraycopy(log, 0, older, 0, from);
+            System.arraycopy(log, to, older, from, log.length - to);
+            older[4] = (byte) version;
+
+            ReplayPlayer player = player(older);
+            assertEquals(simulation.getDay() - 1, playAll(player), "version " + version);
+            assertSameGame(simulation, player.getSimulation());
+        }
+    }
+
+    // A log cut off after a night (the game crashed) plays up to there
+    @Test
+    void truncatedLogPlaysWhatItHas() throws IOException {
+        FarmSimulation simulation = newGame();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME);
+        simulation.addRecorder(recorder);
+        playDays(simulation, 5);
+        FarmSimulation cutOff = simulation.copy();
+        int cutOffBytes = bytes.size(); // Flushed by the last night
+        playDays(simulation, 5);
+        recorder.close();
+
+        ReplayPlayer player = player(Arrays.copyOf(bytes.toByteArray(), cutOffBytes));
+        assertEquals(cutOff.getDay() - 1, playAll(player));
+        assertTrue(player.isFinished());
+        assertSameGame(cutOff, player.getSimulation());
+    }
+
+    @Test
+    void changedChecksumIsCaught() throws IOException {
+        FarmSimulation simulation = newGame();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ReplayRecorder recorder = new ReplayRecorder(bytes, "test", simulation, DifficultyProfile.DEFAULT_NAME)) {
+            simulation.addRecorder(recorder);
+            playDays(simulation, 5);
+        }
+        byte[] log = bytes.toByteArray();
+        log[log.length - 2] ^= 1; // Last night's checksum, just before END
+
+        ReplayPlayer player = player(log);
+        for (int day = 1; day < 5; day++) {
+            assertTrue(player.playDay());
+        }
+        assertThrows(IllegalStateException.class, player::playDay);
+    }
+
+    @Test
+    void unknownActionIsCorrupt() throws IOException {
+        int tag = 7 | 1 << ReplayLog.KIND_BITS; // No ActionType has ordinal 7
+        assertCorrupt(records(tag), "Corrupt replay: unknown action 7");
+    }
+
+    @Test
+    void unknownItemIsCorrupt() throws IOException {
+        int tag = ReplayLog.CONTROL | ReplayLog.BUY << ReplayLog.KIND_BITS;
+        assertCorrupt(records(tag, 200, 1), "Corrupt replay: unknown item 200");
+    }
+
+    @Test
+    void unknownStartIsCorrupt() throws IOException {
+        byte[] log = records(ReplayLog.CONTROL | ReplayLog.END << ReplayLog.KIND_BITS);
+        log[START_OFFSET] = 9;
+        IOException e = assertThrows(IOException.class, () -> player(log));
+        assertEquals("Corrupt replay: unknown start 9", e.getMessage());
+    }
+
+    @Test
+    void badFarmSizeIsCorrupt() {
+        byte[] log = records(ReplayLog.CONTROL | ReplayLog.END << ReplayLog.KIND_BITS);
+        log[START_OFFSET + 1] = 0x7F; // Farm width's top byte
+        IOException e = assertThrows(IOException.class, () -> player(log));
+        assertTrue(e.getMessage().startsWith("Corrupt replay: farm size"), e.getMessage());
+    }
+
+    @Test
+    void badHeaderIsRefused() {
+        byte[] log = records(ReplayLog.CONTROL | ReplayLog.END << ReplayLog.KIND_BITS);
+        byte[] wrongMagic = log.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(IOException.class, () -> player(wrongMagic));
+        byte[] newerVersion = log.clone();
+        newerVersion[4] = ReplayLog.VERSION + 1;
+        assertThrows(IOException.class, () -> player(newerVersion));
+    }
+
+    @Test
+    void varintsRoundTrip() throws IOException {
+        long[] values = {0, 1, -1, 15, -15, 16, 127, 128, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            assertEquals(value, ReplayLog.unzigzag(ReplayLog.zigzag(value)));
+            ReplayLog.writeVarLong(out, ReplayLog.zigzag(value));
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, ReplayLog.unzigzag(ReplayLog.readVarLong(in)));
+        }
+
+        // Small deltas either way stay small, so they fit in the tag
+        assertEquals(ReplayLog.MAX_INLINE_DELTA, ReplayLog.zigzag(15));
+        assertEquals(ReplayLog.MAX_INLINE_DELTA - 1, ReplayLog.zigzag(-15));
+
+        byte[] tooLong = new byte[11];
+        Arrays.fill(tooLong, (byte) 0x80);
+        assertThrows(IOException.class,
+            () -> ReplayLog.readVarLong(new DataInputStream(new ByteArrayInputStream(tooLong))));
+    }
+
+    private static FarmSimulation newGame() {
+        return FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, new DayTickEngine(), new EventBus());
+    }
+
+    // Play like a careful player, so every kind of action and purchase ends up in the log
+    private static void playDays(FarmSimulation simulation, int days) {
+        Strategy strategy = new CarefulStrategy();
+        for (int day = 0; day < days && !simulation.isGameOver(); day++) {
+            strategy.playDay(simulation);
+            simulation.advanceDay();
+        }
+    }
+
+    private static ReplayPlayer player(byte[] log) throws IOException {
+        return new ReplayPlayer(new ByteArrayInputStream(log), new DayTickEngine());
+    }
+
+    private static int playAll(ReplayPlayer player) throws IOException {
+        int days = 0;
+        while (player.playDay()) {
+            days++;
+        }
+        return days;
+    }
+
+    // A new game's header: up to the start byte, then the start byte and farm width
+    private static int headerBytes() {
+        return START_OFFSET + 1 + 4;
+    }
+
+    // A new game's header followed by the given record bytes
+    private static byte[] records(int... records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            new ReplayRecorder(bytes, "test", newGame(), DifficultyProfile.DEFAULT_NAME).close();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        byte[] header = Arrays.copyOf(bytes.toByteArray(), headerBytes());
+        byte[] log = Arrays.copyOf(header, header.length + records.length);
+        for (int i = 0; i < records.length; i++) {
+            log[header.length + i] = (byte) records[i];
+        }
+        return log;
+    }
+
+    private static void assertCorrupt(byte[] log, String message) throws IOException {
+        ReplayPlayer player = player(log);
+        IOException e = assertThrows(IOException.class, player::playDay);
+        assertEquals(message, e.getMessage());
+        assertFalse(player.isFinished());
+    }
+
+    private static void assertSameGame(FarmSimulation expected, FarmSimulation actual) {
+        assertEquals(expected.getDay(), actual.getDay());
+        assertEquals(expected.getMoney(), actual.getMoney());
+        assertEquals(expected.checksum(), actual.checksum());
+    }
+}
@@ -0,0 +1,253 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A saved game must come back exactly as it was left, whatever state a crash left the save folder in
+class SaveJournalTest {
+    private static final long SEED = 777;
+
+    @TempDir
+    File folder;
+
+    // Long enough for background compactions, so recovery starts from a later snapshot
+    @Test
+    void savedGameComesBack() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, SaveJournal.COMPACT_DAYS * 2 + 5);
+        saveJournal.close();
+        assertTrue(saveJournal.getGeneration() > 1);
+
+        SaveJournal recovered = recover();
+        assertSameGame(simulation, recovered.getSimulation());
+
+        // The recovered save carries on where it left off
+        playDays(recovered.getSimulation(), recovered, 3);
+        recovered.close();
+        SaveJournal again = recover();
+        assertSameGame(recovered.getSimulation(), again.getSimulation());
+        again.close();
+    }
+
+    @Test
+    void tornFrameIsCutOff() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, 3);
+        saveJournal.close();
+        File journal = new File(folder, SaveJournal.JOURNAL_FILE);
+        long length = journal.length();
+
+        // A crash halfway through writing a frame: its length, then only part of the payload
+        try (FileOutputStream out = new FileOutputStream(journal, true)) {
+            out.write(new byte[]{10, 1, 2});
+        }
+
+        SaveJournal recovered = recover();
+        assertSameGame(simulation, recovered.getSimulation());
+        recovered.close();
+        assertEquals(length, journal.length());
+    }
+
+    @Test
+    void frameWithBadCrcEndsTheReplay() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, 2);
+        new CarefulStrategy().playDay(simulation);
+        FarmSimulation beforeNight = simulation.copy();
+        simulation.advanceDay();
+        saveJournal.close();
+
+        // The last frame is the night; break its CRC
+        File journal = new File(folder, SaveJournal.JOURNAL_FILE);
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        SaveJournal recovered = recover();
+        assertSameGame(beforeNight, recovered.getSimulation());
+        recovered.close();
+    }
+
+    // A crash while a background snapshot was being written: the snapshot on disk is
+    // the old one, the journal up to it is the previous journal, and the current
+    // journal already belongs to the next generation
+    @Test
+    void previousJournalIsReplayedFirst() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, 3);
+        saveJournal.close();
+        File journal = new File(folder, SaveJournal.JOURNAL_FILE);
+        File previous = new File(folder, SaveJournal.PREVIOUS_JOURNAL_FILE);
+        Files.move(journal.toPath(), previous.toPath());
+
+        FarmSimulation expected = simulation.copy();
+        expected.advanceDay();
+        writeJournal(journal, saveJournal.getGeneration() + 1, sleepFrame(expected.checksum()));
+
+        SaveJournal recovered = recover();
+        assertSameGame(expected, recovered.getSimulation());
+        // Both journals were folded into a new snapshot
+        assertFalse(previous.exists());
+        assertEquals(saveJournal.getGeneration() + 2, recovered.getGeneration());
+        recovered.close();
+        SaveJournal again = recover();
+        assertSameGame(expected, again.getSimulation());
+        again.close();
+    }
+
+    // The real thing: a background compaction whose snapshot never makes it to disk
+    // leaves the previous journal behind, and recovery plays it before the current one
+    @Test
+    void failedBackgroundSnapshotIsRecovered() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        long firstGeneration = saveJournal.getGeneration();
+        // The snapshot's temporary file can't be created, like a crash before the rename
+        File blocker = new File(folder, SaveJournal.SNAPSHOT_FILE + ".tmp");
+        assertTrue(blocker.mkdir());
+        playDays(simulation, saveJournal, SaveJournal.COMPACT_DAYS + 3);
+        saveJournal.close();
+        assertTrue(blocker.delete());
+
+        File previous = new File(folder, SaveJournal.PREVIOUS_JOURNAL_FILE);
+        assertTrue(previous.exists());
+        assertEquals(firstGeneration + 1, saveJournal.getGeneration());
+
+        SaveJournal recovered = recover();
+        assertSameGame(simulation, recovered.getSimulation());
+        assertFalse(previous.exists());
+        assertEquals(firstGeneration + 2, recovered.getGeneration());
+        recovered.close();
+        SaveJournal again = recover();
+        assertSameGame(simulation, again.getSimulation());
+        again.close();
+    }
+
+    // A background compaction that did finish leaves only the new snapshot and journal
+    @Test
+    void backgroundSnapshotReplacesThePreviousJournal() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, SaveJournal.COMPACT_DAYS + 3);
+        saveJournal.close();
+        assertFalse(new File(folder, SaveJournal.PREVIOUS_JOURNAL_FILE).exists());
+
+        GameSnapshot snapshot = GameSnapshot.read(new File(folder, SaveJournal.SNAPSHOT_FILE), new DayTickEngine(),
+            new EventBus());
+        assertEquals(saveJournal.getGeneration(), snapshot.getGeneration());
+        SaveJournal recovered = recover();
+        assertSameGame(simulation, recovered.getSimulation());
+        recovered.close();
+    }
+
+    // A journal from before the snapshot (a crash during compaction) is already in it
+    @Test
+    void olderGenerationJournalIsIgnored() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        FarmSimulation start = simulation.copy();
+        saveJournal.close();
+
+        FarmSimulation later = simulation.copy();
+        later.advanceDay();
+        File journal = new File(folder, SaveJournal.JOURNAL_FILE);
+        writeJournal(journal, saveJournal.getGeneration() - 1, sleepFrame(later.checksum()));
+
+        SaveJournal recovered = recover();
+        assertSameGame(start, recovered.getSimulation());
+        recovered.close();
+        assertEquals(SaveJournal.HEADER_BYTES, journal.length());
+    }
+
+    // A well-formed frame that no longer plays the same way is an error, not a torn tail
+    @Test
+    void differentNightFailsRecovery() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        saveJournal.close();
+
+        FarmSimulation later = simulation.copy();
+        later.advanceDay();
+        writeJournal(new File(folder, SaveJournal.JOURNAL_FILE), saveJournal.getGeneration(),
+            sleepFrame(later.checksum() + 1));
+
+        assertThrows(IOException.class, this::recover);
+    }
+
+    @Test
+    void deleteRemovesTheSave() throws IOException {
+        FarmSimulation simulation = newGame();
+        SaveJournal saveJournal = SaveJournal.create(folder, simulation);
+        playDays(simulation, saveJournal, 2);
+        assertTrue(SaveJournal.exists(folder));
+        saveJournal.delete();
+        assertFalse(SaveJournal.exists(folder));
+        assertFalse(new File(folder, SaveJournal.JOURNAL_FILE).exists());
+    }
+
+    private SaveJournal recover() throws IOException {
+        return SaveJournal.recover(folder, new DayTickEngine(), new EventBus());
+    }
+
+    private static FarmSimulation newGame() {
+        return FarmSimulation.withSettings(SEED, DifficultyProfile.DEFAULT_NAME, new DayTickEngine(), new EventBus());
+    }
+
+    // Play like the game window does: flush after every day's commands
+    private static void playDays(FarmSimulation simulation, SaveJournal saveJournal, int days) {
+        Strategy strategy = new CarefulStrategy();
+        for (int day = 0; day < days && !simulation.isGameOver(); day++) {
+            strategy.playDay(simulation);
+            saveJournal.flush();
+            simulation.advanceDay();
+        }
+    }
+
+    // Payload of a night that should end with the given checksum
+    private static byte[] sleepFrame(long checksum) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(0); // SLEEP
+        out.writeLong(checksum);
+        return bytes.toByteArray();
+    }
+
+    private static void writeJournal(File file, long generation, byte[]... payloads) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(SaveJournal.MAGIC);
+            out.writeByte(SaveJournal.VERSION);
+            out.writeLong(generation);
+            for (byte[] payload : payloads) {
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                ReplayLog.writeVarLong(out, payload.length);
+                out.write(payload);
+                out.writeInt((int) crc.getValue());
+            }
+        }
+    }
+
+    private static void assertSameGame(FarmSimulation expected, FarmSimulation actual) {
+        assertEquals(expected.getDay(), actual.getDay());
+        assertEquals(expected.getMoney(), actual.getMoney());
+        assertEquals(expected.checksum(), actual.checksum());
+    }
+}
@@ -0,0 +1,168 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Every timer must fire on its own day, exactly once, however far ahead it was set
+class TimerWheelTest {
+    // Either side of where timers move up a level (64 and 4096 days) and beyond
+    private static final int[] DELAYS = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 5000, 262143, 262144, 300000};
+
+    @Test
+    void timersFireOnTheirDayAcrossLevels() {
+        // Start days that line up with the wheel and ones that don't
+        for (int startDay : new int[]{0, 10, 4090, 262100}) {
+            TimerWheel timers = new TimerWheel(startDay);
+            for (int i = 0; i < DELAYS.length; i++) {
+                timers.schedule(startDay + DELAYS[i], i, startDay + DELAYS[i]);
+            }
+            List<int[]> fired = advanceUntil(timers, startDay + DELAYS[DELAYS.length - 1]);
+
+            assertEquals(DELAYS.length, fired.size(), "start day " + startDay);
+            for (int[] timer : fired) {
+                assertEquals(timer[2], timer[0], "timer " + timer[1] + " from day " + startDay);
+            }
+        }
+    }
+
+    // Timers come out in day order, whatever order they were set in
+    @Test
+    void timersFireInDayOrder() {
+        TimerWheel timers = new TimerWheel(5);
+        SplittableRandom random = new SplittableRandom(3);
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            int day = 6 + random.nextInt(10000);
+            timers.schedule(day, i, day);
+        }
+        List<int[]> fired = advanceUntil(timers, 10006);
+
+        assertEquals(count, fired.size());
+        int previous = 0;
+        boolean[] seen = new boolean[count];
+        for (int[] timer : fired) {
+            assertTrue(timer[0] >= previous, "day " + timer[0] + " after day " + previous);
+            assertEquals(timer[2], timer[0]);
+            assertFalse(seen[timer[1]], "timer " + timer[1] + " fired twice");
+            seen[timer[1]] = true;
+            previous = timer[0];
+        }
+    }
+
+    @Test
+    void cancelledTimersDontFire() {
+        TimerWheel timers = new TimerWheel(0);
+        int near = timers.schedule(3, 1, 0);
+        int far = timers.schedule(5000, 2, 0); // Cancelled while still on a higher level
+        timers.schedule(3, 3, 0);
+        timers.schedule(5000, 4, 0);
+        timers.cancel(near);
+        timers.cancel(far);
+
+        List<int[]> fired = advanceUntil(timers, 5000);
+        assertEquals(2, fired.size());
+        assertEquals(3, fired.get(0)[1]);
+        assertEquals(4, fired.get(1)[1]);
+    }
+
+    @Test
+    void pastDaysAreRefused() {
+        TimerWheel timers = new TimerWheel(7);
+        assertThrows(IllegalArgumentException.class, () -> timers.schedule(7, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> timers.schedule(3, 1, 0));
+    }
+
+    // A copy and a saved and loaded wheel both go on to fire the same timers
+    @Test
+    void copiesAndSavesKeepPendingTimers() throws IOException {
+        TimerWheel timers = new TimerWheel(0);
+        for (int i = 0; i < DELAYS.length; i++) {
+            timers.schedule(DELAYS[i], i, DELAYS[i]);
+        }
+        advanceUntil(timers, 100);
+
+        TimerWheel copy = new TimerWheel(timers);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        timers.save(new DataOutputStream(bytes));
+        TimerWheel loaded = new TimerWheel(0);
+        loaded.load(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(100, loaded.getCurrentDay());
+
+        int lastDay = DELAYS[DELAYS.length - 1];
+        List<int[]> expected = advanceUntil(timers, lastDay);
+        assertSameTimers(expected, advanceUntil(copy, lastDay));
+        assertSameTimers(expected, advanceUntil(loaded, lastDay));
+    }
+
+    // The drought ends on the same night the old day-by-day countdown ended it,
+    // including when a second drought starts before the first is over
+    @Test
+    void droughtLastsAsLongAsTheOldCountdown() {
+        EventTable droughts = EventTable.defaults().withWeights(Map.of(
+            "disaster.drought", 40, "disaster.flood", 0, "disaster.tornado", 0));
+        EventSystem eventSystem = new EventSystem(new SplittableRandom(11), new DayTickEngine(), droughts);
+        FarmGrid farmGrid = new FarmGrid(16);
+        Inventory inventory = new Inventory(new SplittableRandom(12));
+
+        boolean isDroughtActive = false;
+        int droughtDaysRemaining = 0;
+        int started = 0;
+        int restarted = 0;
+        for (int night = 0; night < 2000; night++) {
+            NightReport report = eventSystem.processNightEvents(farmGrid, inventory);
+
+            // What the countdown did: tick down first, then a new drought starts the clock again
+            if (isDroughtActive) {
+                droughtDaysRemaining--;
+                if (droughtDaysRemaining <= 0) {
+                    isDroughtActive = false;
+                    assertTrue(report.contains(NightReport.DROUGHT_ENDED), "night " + night);
+                } else {
+                    assertTrue(report.contains(NightReport.DROUGHT_CONTINUES), "night " + night);
+                }
+            } else {
+                assertFalse(report.contains(NightReport.DROUGHT_ENDED), "night " + night);
+                assertFalse(report.contains(NightReport.DROUGHT_CONTINUES), "night " + night);
+            }
+            if (report.contains(NightReport.DROUGHT_STARTED)) {
+                restarted += isDroughtActive ? 1 : 0;
+                started++;
+                isDroughtActive = true;
+                droughtDaysRemaining = 2;
+            }
+
+            assertEquals(isDroughtActive, eventSystem.isDroughtActive(), "night " + night);
+            assertEquals(isDroughtActive ? droughtDaysRemaining : 0, eventSystem.getDroughtDaysRemaining(),
+                "night " + night);
+        }
+        assertTrue(started > 100 && restarted > 10, started + " droughts, " + restarted + " restarted");
+    }
+
+    // Advance up to and including the given day; returns {day, effect, payload} for each timer fired
+    private static List<int[]> advanceUntil(TimerWheel timers, int lastDay) {
+        List<int[]> fired = new ArrayList<>();
+        while (timers.getCurrentDay() < lastDay) {
+            timers.advance((effect, payload) -> fired.add(new int[]{timers.getCurrentDay(), effect, payload}));
+        }
+        return fired;
+    }
+
+    private static void assertSameTimers(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], actual.get(i)[0]);
+            assertEquals(expected.get(i)[1], actual.get(i)[1]);
+        }
+    }
+}
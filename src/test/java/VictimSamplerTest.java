@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+// Disasters must hit k different live tiles, each equally likely, the same way every time for a seed
+class VictimSamplerTest {
+    @Test
+    void victimsAreDistinctMatchingTiles() {
+        int size = 10_000;
+        TileBitmap live = new TileBitmap(size);
+        TileBitmap protectedTiles = new TileBitmap(size);
+        SplittableRandom layout = new SplittableRandom(1);
+        int unprotected = 0;
+        for (int i = 0; i < size; i++) {
+            if (layout.nextInt(3) == 0) {
+                live.set(i);
+                if (layout.nextInt(4) == 0) {
+                    protectedTiles.set(i);
+                } else {
+                    unprotected++;
+                }
+            } else if (layout.nextInt(10) == 0) {
+                protectedTiles.set(i); // Protected but empty, never a victim either way
+            }
+        }
+
+        VictimSampler sampler = new VictimSampler(new SplittableRandom(2));
+        for (int k : new int[]{1, 2, 50, unprotected - 1, unprotected, unprotected + 10}) {
+            List<Integer> victims = new ArrayList<>();
+            int picked = sampler.sample(live, protectedTiles, true, unprotected, k, victims::add);
+            assertEquals(Math.min(k, unprotected), picked, "k = " + k);
+            assertEquals(picked, victims.size(), "k = " + k);
+            int previous = -1;
+            for (int tile : victims) {
+                assertTrue(tile > previous, "victims come once each, in tile order");
+                assertTrue(live.get(tile) && !protectedTiles.get(tile), "tile " + tile + " can't be a victim");
+                previous = tile;
+            }
+        }
+
+        // With exclude off, only the live tiles that are also protected
+        int liveProtected = live.cardinality() - unprotected;
+        List<Integer> victims = new ArrayList<>();
+        sampler.sample(live, protectedTiles, false, liveProtected, liveProtected, victims::add);
+        assertEquals(liveProtected, victims.size());
+        for (int tile : victims) {
+            assertTrue(live.get(tile) && protectedTiles.get(tile), "tile " + tile);
+        }
+    }
+
+    @Test
+    void nothingToPickPicksNothing() {
+        TileBitmap live = new TileBitmap(100);
+        VictimSampler sampler = new VictimSampler(new SplittableRandom(3));
+        assertEquals(0, sampler.sample(live, null, false, 0, 5, tile -> {
+            throw new AssertionError("tile " + tile);
+        }));
+        live.set(40);
+        assertEquals(0, sampler.sample(live, null, false, 1, 0, tile -> {
+            throw new AssertionError("tile " + tile);
+        }));
+    }
+
+    // Each tile is picked k / n of the time: chi-square over a fixed range of seeds
+    @Test
+    void victimsAreUniform() {
+        int n = 50;
+        int k = 5;
+        int trials = 10_000;
+        TileBitmap live = new TileBitmap(n * 7 + 100);
+        int[] tiles = new int[n];
+        for (int r = 0; r < n; r++) {
+            tiles[r] = 3 + r * 7 + (r % 3) * 2; // Spread over several words, unevenly
+            live.set(tiles[r]);
+        }
+
+        int[] hits = new int[live.size()];
+        for (int seed = 0; seed < trials; seed++) {
+            new VictimSampler(new SplittableRandom(seed)).sample(live, null, false, n, k, tile -> hits[tile]++);
+        }
+
+        double expected = (double) trials * k / n;
+        double chiSquare = 0;
+        for (int tile : tiles) {
+            chiSquare += (hits[tile] - expected) * (hits[tile] - expected) / expected;
+        }
+        // 49 degrees of freedom: 85.35 is the 0.1% critical value
+        assertTrue(chiSquare < 85.35, "chi-square " + chiSquare);
+    }
+
+    // A flood over a farm big enough to split across threads picks the same tiles on one thread or eight
+    @Test
+    void sameSeedSameVictimsOnAnyThreadCount() {
+        EventTable floods = EventTable.defaults().withWeights(Map.of(
+            "event.pests", 100, "event.robbery", 0, "event.goodBugs", 0,
+            "disaster.drought", 0, "disaster.flood", 100, "disaster.tornado", 0));
+        DayTickEngine sequential = new DayTickEngine(1, Integer.MAX_VALUE);
+        DayTickEngine parallel = new DayTickEngine(8, 1);
+        try {
+            FarmGrid expected = plantedFarm(1 << 16);
+            FarmGrid actual = expected.copy();
+            EventSystem expectedEvents = new EventSystem(new SplittableRandom(4), sequential, floods);
+            EventSystem actualEvents = new EventSystem(new SplittableRandom(4), parallel, floods);
+            for (int night = 0; night < 5; night++) {
+                int liveBefore = expected.getStats().getLiveCount();
+                expectedEvents.processNightEvents(expected, new Inventory(new SplittableRandom(5)));
+                actualEvents.processNightEvents(actual, new Inventory(new SplittableRandom(5)));
+                expected.growAll(sequential);
+                actual.growAll(parallel);
+
+                assertTrue(expected.getStats().getLiveCount() <= liveBefore - liveBefore / 4, "night " + night);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.getStateWord(i), actual.getStateWord(i), "night " + night + ", tile " + i);
+                }
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private static FarmGrid plantedFarm(int size) {
+        FarmGrid farmGrid = new FarmGrid(size);
+        SplittableRandom random = new SplittableRandom(6);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) != 0) {
+                farmGrid.plant(i);
+            }
+            if (random.nextInt(8) == 0) {
+                farmGrid.setProtected(i, true);
+            }
+        }
+        return farmGrid;
+    }
+}